@@ -0,0 +1,229 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+// Command-line build needing nothing but a JDK 17, run from the project directory:
+//   java Build.java [compile] [test] [check] [jar] [bench]
+// Every module is compiled against the modules listed before it only, so a dependency in the
+// wrong direction breaks the build. test compiles the tests in test/ against all modules and
+// runs them, check runs the perft regression suite, jar writes one jar per module plus a
+// runnable jar with all of them to target/, and bench runs the search and perft benchmarks.
+// Without arguments it runs compile, test, check and jar.
+public class Build {
+
+	private static final Path SOURCES = Paths.get("src");
+	private static final Path TESTS = Paths.get("test");
+	private static final Path TARGET = Paths.get("target");
+	private static final Path TEST_CLASSES = TARGET.resolve("test-classes");
+	private static final String MAIN_CLASS = "application.Program";
+	private static final String RUNNABLE_JAR = "chess-system-java.jar";
+
+	// Module name followed by its packages, in dependency order.
+	private static final String[][] MODULES = {
+		{"core", "boardgame", "chess"},
+		{"engine", "engine"},
+		{"server", "server"},
+		{"application", "application"}
+	};
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		List<String> targets = (args.length > 0) ? Arrays.asList(args) : Arrays.asList("compile", "test", "check", "jar");
+		for (String target : targets) {
+			switch (target) {
+			case "compile":
+				compile();
+				break;
+			case "test":
+				test();
+				break;
+			case "check":
+				run("engine.PerftSuite");
+				break;
+			case "jar":
+				jar();
+				break;
+			case "bench":
+				run("engine.Bench");
+				run("engine.Perft", "5");
+				break;
+			default:
+				fail("Unknown target: " + target + " (expected compile, test, check, jar or bench)");
+			}
+		}
+	}
+
+	// Starts from empty output directories, so classes of deleted sources don't reach the jars.
+	private static void compile() throws IOException {
+		delete(TARGET.resolve("classes"));
+		delete(TEST_CLASSES);
+		List<String> classPath = new ArrayList<>();
+		for (String[] module : MODULES) {
+			List<String> sources = sources(SOURCES, Arrays.copyOfRange(module, 1, module.length));
+			if (sources.isEmpty()) {
+				continue;
+			}
+			compile(module[0], sources, classes(module[0]), classPath);
+			classPath.add(classes(module[0]).toString());
+		}
+	}
+
+	private static void compile(String name, List<String> sources, Path output, List<String> classPath)
+			throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			fail("No Java compiler available; run with a JDK rather than a JRE");
+		}
+		Files.createDirectories(output);
+		List<String> options = new ArrayList<>(Arrays.asList("--release", "17", "-encoding", "UTF-8",
+				"-d", output.toString()));
+		if (!classPath.isEmpty()) {
+			options.add("-cp");
+			options.add(String.join(File.pathSeparator, classPath));
+		}
+		options.addAll(sources);
+		System.out.println("Compiling " + name + " (" + sources.size() + " files)");
+		if (compiler.run(null, null, null, options.toArray(new String[0])) != 0) {
+			fail("Compilation of " + name + " failed");
+		}
+	}
+
+	// Test classes are the ones named *Test; testing.TestRunner runs their test methods.
+	private static void test() throws IOException, InterruptedException {
+		List<String> classPath = moduleClassPath();
+		if (classPath.isEmpty()) {
+			fail("Nothing compiled yet; run the compile target first");
+		}
+		List<String> sources = sources(TESTS, ".");
+		if (sources.isEmpty()) {
+			return;
+		}
+		delete(TEST_CLASSES);
+		compile("tests", sources, TEST_CLASSES, classPath);
+		List<String> testClasses = new ArrayList<>();
+		for (String source : sources) {
+			String name = TESTS.relativize(Paths.get(source)).toString();
+			if (name.endsWith("Test.java")) {
+				testClasses.add(name.substring(0, name.length() - ".java".length()).replace(File.separatorChar, '.'));
+			}
+		}
+		classPath.add(TEST_CLASSES.toString());
+		run(classPath, "testing.TestRunner", testClasses.toArray(new String[0]));
+	}
+
+	private static void jar() throws IOException {
+		List<Path> all = new ArrayList<>();
+		for (String[] module : MODULES) {
+			Path classes = classes(module[0]);
+			if (Files.isDirectory(classes)) {
+				writeJar(TARGET.resolve(module[0] + ".jar"), new Manifest(), classes);
+				all.add(classes);
+			}
+		}
+		if (all.isEmpty()) {
+			fail("Nothing compiled yet; run the compile target first");
+		}
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, MAIN_CLASS);
+		writeJar(TARGET.resolve(RUNNABLE_JAR), manifest, all.toArray(new Path[0]));
+		System.out.println("Wrote " + TARGET.resolve(RUNNABLE_JAR) + " (java -jar to play, "
+				+ "java -cp for application.UciProgram and the engine tools)");
+	}
+
+	private static void writeJar(Path jar, Manifest manifest, Path... roots) throws IOException {
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+			for (Path root : roots) {
+				List<Path> files;
+				try (Stream<Path> walk = Files.walk(root)) {
+					files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+				}
+				for (Path file : files) {
+					out.putNextEntry(new JarEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+					Files.copy(file, out);
+					out.closeEntry();
+				}
+			}
+		}
+	}
+
+	// Runs a main class of the compiled modules in a fresh JVM, failing the build on a non-zero exit.
+	private static void run(String mainClass, String... args) throws IOException, InterruptedException {
+		run(moduleClassPath(), mainClass, args);
+	}
+
+	private static void run(List<String> classPath, String mainClass, String... args)
+			throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>(Arrays.asList(
+				Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", String.join(File.pathSeparator, classPath), mainClass));
+		command.addAll(Arrays.asList(args));
+		System.out.println("Running " + mainClass);
+		Process process = new ProcessBuilder(command).inheritIO().start();
+		if (process.waitFor() != 0) {
+			fail(mainClass + " failed");
+		}
+	}
+
+	private static List<String> moduleClassPath() {
+		List<String> classPath = new ArrayList<>();
+		for (String[] module : MODULES) {
+			if (Files.isDirectory(classes(module[0]))) {
+				classPath.add(classes(module[0]).toString());
+			}
+		}
+		return classPath;
+	}
+
+	private static List<String> sources(Path root, String... packages) throws IOException {
+		List<String> sources = new ArrayList<>();
+		for (String name : packages) {
+			Path directory = root.resolve(name).normalize();
+			if (!Files.isDirectory(directory)) {
+				continue;
+			}
+			try (Stream<Path> walk = Files.walk(directory)) {
+				walk.filter(path -> path.toString().endsWith(".java")).sorted()
+						.forEach(path -> sources.add(path.toString()));
+			}
+		}
+		return sources;
+	}
+
+	private static void delete(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Files.delete(path);
+		}
+	}
+
+	private static Path classes(String module) {
+		return TARGET.resolve("classes").resolve(module);
+	}
+
+	private static void fail(String message) {
+		System.err.println("BUILD FAILED: " + message);
+		System.exit(1);
+	}
+
+}
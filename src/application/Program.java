@@ -9,16 +9,17 @@ import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.Variant;
 
 public class Program {
 	
 	public static void main (String [] args) {
 		
 		Scanner sc = new Scanner(System.in);
-		ChessMatch chessMatch = new ChessMatch();
+		ChessMatch chessMatch = new ChessMatch((args.length > 0) ? Variant.forName(args[0]) : Variant.STANDARD);
 		List<ChessPiece> captured = new ArrayList<>();
 		
-		while (!chessMatch.getCheckMate()) {
+		while (!chessMatch.getCheckMate() && !chessMatch.getDraw()) {
 			try {
 				UI.clearScreen();
 				UI.printMatch(chessMatch, captured);
@@ -41,11 +42,11 @@ public class Program {
 				}
 				
 				if (chessMatch.getPromoted() != null) {
-					System.out.print("Enter piece code for promotion (B/N/R/Q): ");
+					String codes = String.join("/", chessMatch.getVariant().getPromotionCodes().split(""));
+					System.out.print("Enter piece code for promotion (" + codes + "): ");
 					String pieceCode = sc.nextLine().toUpperCase();
-					while (!pieceCode.equals("B") && !pieceCode.equals("N")
-							&& !pieceCode.equals("R") && !pieceCode.equals("Q")) {
-						System.out.print("Ivalid value! Enter piece code for promotion (B/N/R/Q): ");
+					while (!chessMatch.getVariant().canPromoteTo(pieceCode)) {
+						System.out.print("Ivalid value! Enter piece code for promotion (" + codes + "): ");
 						pieceCode = sc.nextLine().toUpperCase();
 					}
 					chessMatch.replacePromotedPiece(pieceCode);
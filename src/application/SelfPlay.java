@@ -0,0 +1,233 @@
+package application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import engine.Evaluator;
+import engine.Openings;
+import engine.SearchEngine;
+import engine.SearchLimits;
+import engine.SearchParams;
+import engine.SearchResult;
+import engine.Sprt;
+import engine.TranspositionTable;
+import engine.nnue.NnueEvaluator;
+
+// Plays configuration A against configuration B, e.g.
+//   java application.SelfPlay games=2000 nodes=20000 b=null_move=0 elo0=0 elo1=10 log=games.txt
+// Every opening is played twice with colours reversed, and the SPRT stops the run early.
+// pgn=<file> also saves the games, e.g. as input for engine.tuning.TrainingExporter, and
+// evala=/evalb=<file> give either side evaluation weights written by engine.tuning.Tuner
+// or a .nnue network.
+public class SelfPlay {
+
+	private static final int MAX_PLIES = 400;
+	private static final int HASH_MEGABYTES = 8;
+
+	private final SearchParams paramsA;
+	private final SearchParams paramsB;
+	private final SearchLimits limits;
+	private final ThreadLocal<SearchEngine[]> engines;
+
+	public SelfPlay(SearchParams paramsA, SearchParams paramsB, SearchLimits limits) {
+		this(paramsA, paramsB, new Evaluator(), new Evaluator(), limits);
+	}
+
+	public SelfPlay(SearchParams paramsA, SearchParams paramsB, Evaluator evaluatorA, Evaluator evaluatorB,
+			SearchLimits limits) {
+		this.paramsA = paramsA;
+		this.paramsB = paramsB;
+		this.limits = limits;
+		this.engines = ThreadLocal.withInitial(() -> new SearchEngine[] {
+				new SearchEngine(this.paramsA, evaluatorA, new TranspositionTable(HASH_MEGABYTES)),
+				new SearchEngine(this.paramsB, evaluatorB, new TranspositionTable(HASH_MEGABYTES))
+		});
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			String[] parts = arg.split("=", 2);
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Expected name=value but got: " + arg);
+			}
+			options.put(parts[0], parts[1]);
+		}
+		int games = Integer.parseInt(options.getOrDefault("games", "1000"));
+		int threads = Integer.parseInt(options.getOrDefault("threads",
+				String.valueOf(Runtime.getRuntime().availableProcessors())));
+		SearchLimits limits = new SearchLimits(Integer.parseInt(options.getOrDefault("depth", "0")),
+				Long.parseLong(options.getOrDefault("nodes", "0")), Long.parseLong(options.getOrDefault("movetime", "0")));
+		if (limits.getDepth() == 0 && limits.getNodes() == 0 && limits.getMoveTime() == 0) {
+			limits = SearchLimits.nodes(10000);
+		}
+		List<String> openings = options.containsKey("openings")
+				? Openings.load(Paths.get(options.get("openings"))) : Openings.SUITE;
+		Sprt sprt = new Sprt(Double.parseDouble(options.getOrDefault("elo0", "0")),
+				Double.parseDouble(options.getOrDefault("elo1", "5")),
+				Double.parseDouble(options.getOrDefault("alpha", "0.05")),
+				Double.parseDouble(options.getOrDefault("beta", "0.05")));
+		Evaluator evaluatorA = loadEvaluator(options.get("evala"));
+		Evaluator evaluatorB = loadEvaluator(options.get("evalb"));
+		SelfPlay selfPlay = new SelfPlay(SearchParams.parse(options.get("a")), SearchParams.parse(options.get("b")),
+				evaluatorA, evaluatorB, limits);
+
+		System.out.println("A: " + selfPlay.paramsA);
+		System.out.println("B: " + selfPlay.paramsB);
+		Path log = Paths.get(options.getOrDefault("log", "selfplay.txt"));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try (BufferedWriter writer = Files.newBufferedWriter(log);
+				BufferedWriter pgn = options.containsKey("pgn") ? Files.newBufferedWriter(Paths.get(options.get("pgn"))) : null) {
+			selfPlay.run(games, openings, pool, sprt, writer, pgn);
+		} finally {
+			pool.shutdownNow();
+		}
+		System.out.println(sprt);
+	}
+
+	// A .nnue network, Tuner weights, or the built-in piece-square tables when not given.
+	private static Evaluator loadEvaluator(String file) throws IOException {
+		if (file == null) {
+			return new Evaluator();
+		}
+		return file.endsWith(".nnue") ? NnueEvaluator.load(Paths.get(file)) : Evaluator.load(Paths.get(file));
+	}
+
+	public void run(int games, List<String> openings, ExecutorService pool, Sprt sprt, BufferedWriter log)
+			throws IOException, InterruptedException {
+		run(games, openings, pool, sprt, log, null);
+	}
+
+	// pgn may be null when the games themselves are not needed.
+	public void run(int games, List<String> openings, ExecutorService pool, Sprt sprt, BufferedWriter log,
+			BufferedWriter pgn) throws IOException, InterruptedException {
+		CompletionService<Game> completion = new ExecutorCompletionService<>(pool);
+		for (int i=0; i<games; i++) {
+			int id = i;
+			int opening = (i / 2) % openings.size();
+			completion.submit(() -> play(id, opening, openings.get(opening), id % 2 == 0));
+		}
+		for (int i=0; i<games; i++) {
+			Game game;
+			try {
+				game = completion.take().get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Game failed", e.getCause());
+			}
+			log.write(game.toString());
+			log.newLine();
+			if (pgn != null) {
+				pgn.write(game.toPgn(openings.get(game.opening)));
+				pgn.newLine();
+			}
+			sprt.add(game.scoreA);
+			if ((i + 1) % 10 == 0) {
+				log.flush();
+				if (pgn != null) {
+					pgn.flush();
+				}
+				System.out.println(sprt);
+			}
+			if (sprt.getDecision() != Sprt.Decision.CONTINUE) {
+				break;
+			}
+		}
+	}
+
+	private Game play(int id, int opening, String moves, boolean aIsWhite) {
+		SearchEngine[] pair = this.engines.get();
+		pair[0].clear();
+		pair[1].clear();
+		ChessMatch chessMatch = Openings.toMatch(moves);
+		Color colorA = aIsWhite ? Color.WHITE : Color.BLACK;
+
+		List<String> played = new ArrayList<>();
+		int plies = 0;
+		while (!chessMatch.getCheckMate() && !chessMatch.getDraw() && plies < MAX_PLIES) {
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+			SearchEngine engine = (chessMatch.getCurrentPlayer() == colorA) ? pair[0] : pair[1];
+			SearchResult result = engine.search(chessMatch, this.limits);
+			SearchEngine.apply(chessMatch, result.getBestMove());
+			played.add(Move.toString(result.getBestMove()));
+			plies ++;
+		}
+
+		Game game = new Game(id, opening, aIsWhite, plies, played);
+		if (chessMatch.getCheckMate()) {
+			// after mate the match keeps the winner as the current player
+			game.scoreA = (chessMatch.getCurrentPlayer() == colorA) ? 1 : 0;
+			game.reason = "mate";
+		} else {
+			game.scoreA = 0.5;
+			game.reason = chessMatch.getDraw() ? chessMatch.getDrawReason().name().toLowerCase() : "adjudicated";
+		}
+		return game;
+	}
+
+	private static class Game {
+
+		private final int id;
+		private final int opening;
+		private final boolean aIsWhite;
+		private final int plies;
+		private final List<String> moves;
+		private double scoreA;
+		private String reason;
+
+		Game(int id, int opening, boolean aIsWhite, int plies, List<String> moves) {
+			this.id = id;
+			this.opening = opening;
+			this.aIsWhite = aIsWhite;
+			this.plies = plies;
+			this.moves = moves;
+		}
+
+		// The opening goes into a FEN header or ahead of the played moves, all in UCI notation.
+		String toPgn(String openingLine) {
+			double scoreWhite = this.aIsWhite ? this.scoreA : 1 - this.scoreA;
+			String result = (scoreWhite == 1) ? "1-0" : (scoreWhite == 0) ? "0-1" : "1/2-1/2";
+			StringBuilder sb = new StringBuilder();
+			sb.append("[Round \"").append(this.id).append("\"]\n");
+			sb.append("[White \"").append(this.aIsWhite ? "A" : "B").append("\"]\n");
+			sb.append("[Black \"").append(this.aIsWhite ? "B" : "A").append("\"]\n");
+			sb.append("[Result \"").append(result).append("\"]\n");
+			String text = openingLine.trim();
+			if (text.contains("/")) {
+				sb.append("[FEN \"").append(text).append("\"]\n\n");
+			} else {
+				sb.append('\n').append(text).append(' ');
+			}
+			for (String move : this.moves) {
+				sb.append(move).append(' ');
+			}
+			return sb.append(result).append('\n').toString();
+		}
+
+		// "<game> <opening> <white> <result> <plies> <reason>", e.g. "17 8 B 0-1 93 mate".
+		@Override
+		public String toString() {
+			double scoreWhite = this.aIsWhite ? this.scoreA : 1 - this.scoreA;
+			String result = (scoreWhite == 1) ? "1-0" : (scoreWhite == 0) ? "0-1" : "1/2";
+			return this.id + " " + this.opening + " " + (this.aIsWhite ? "A" : "B") + " " + result
+					+ " " + this.plies + " " + this.reason;
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package application;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -10,6 +11,8 @@ import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.Color;
+import chess.Square;
+import engine.StaticExchange;
 
 public class UI {
 	
@@ -32,6 +35,8 @@ public class UI {
 	public static final String ANSI_CYAN_BACKGROUND = "\u001B[46m";
 	public static final String ANSI_WHITE_BACKGROUND = "\u001B[47m";
 	
+	private static final StaticExchange STATIC_EXCHANGE = new StaticExchange();
+	
 	public static ChessPosition readChessPosition(Scanner sc) {
 		try {
 			String s = sc.nextLine();
@@ -51,11 +56,18 @@ public class UI {
 		System.out.println();
 		System.out.println("Turn: " + chessMatch.getTurn());
 		
-		if (!chessMatch.getCheckMate()) {
+		if (chessMatch.getDraw()) {
+			System.out.println("DRAW!");
+			System.out.println("Reason: " + chessMatch.getDrawReason());
+		} else if (!chessMatch.getCheckMate()) {
 			System.out.println("Waiting player: " + chessMatch.getCurrentPlayer());
 			if (chessMatch.getCheck()) {
 				System.out.println("CHECK!");
 			}
+			List<ChessPosition> hanging = hangingPieces(chessMatch);
+			if (!hanging.isEmpty()) {
+				System.out.println("Hanging pieces: " + hanging);
+			}
 		} else {
 			System.out.println("CHECKMATE!");
 			System.out.println("Winner: " + chessMatch.getCurrentPlayer());
@@ -63,26 +75,46 @@ public class UI {
 		
 	}
 	
+	private static List<ChessPosition> hangingPieces(ChessMatch chessMatch) {
+		List<ChessPosition> hanging = new ArrayList<>();
+		for (int square=0; square<Square.COUNT; square++) {
+			ChessPiece piece = chessMatch.getPiece(square);
+			if (piece != null && piece.getColor() == chessMatch.getCurrentPlayer()
+					&& STATIC_EXCHANGE.threat(chessMatch, square) > 0) {
+				hanging.add(ChessPosition.fromSquare(square));
+			}
+		}
+		return hanging;
+	}
+	
 	public static void printBoard(ChessPiece[][] pieces) {
 		for (int i=0; i<pieces.length; i++) {
-			System.out.print((8 - i) + " ");
-			for (int j=0; j<pieces.length; j++) {
+			System.out.print((pieces.length - i) + " ");
+			for (int j=0; j<pieces[i].length; j++) {
 				printPiece(pieces[i][j], false);
 			}
 			System.out.println();
 		}
-		System.out.println("  a b c d e f g h");
+		printFiles(pieces[0].length);
 	}
 	
 	public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves) {
 		for (int i=0; i<pieces.length; i++) {
-			System.out.print((8 - i) + " ");
-			for (int j=0; j<pieces.length; j++) {
+			System.out.print((pieces.length - i) + " ");
+			for (int j=0; j<pieces[i].length; j++) {
 				printPiece(pieces[i][j], possibleMoves[i][j]);
 			}
 			System.out.println();
 		}
-		System.out.println("  a b c d e f g h");
+		printFiles(pieces[0].length);
+	}
+	
+	private static void printFiles(int columns) {
+		System.out.print(" ");
+		for (int j=0; j<columns; j++) {
+			System.out.print(" " + (char)('a' + j));
+		}
+		System.out.println();
 	}
 	
 	private static void printPiece(ChessPiece piece, boolean background) {
@@ -0,0 +1,345 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.MoveResult;
+import chess.Variant;
+import engine.Evaluator;
+import engine.SearchEngine;
+import engine.SearchLimits;
+import engine.SearchParam;
+import engine.SearchParams;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import engine.analysis.Analysis;
+import engine.analysis.AnalysisCache;
+import engine.analysis.Analyzer;
+import engine.nnue.NnueEvaluator;
+
+public class UciProgram {
+
+	private static final String NAME = "chess-system-java";
+	private static final int DEFAULT_HASH = 16;
+	private static final int ANALYSIS_ENTRIES = 1 << 16;
+
+	private final SearchParams params = new SearchParams();
+	private Evaluator evaluator = new Evaluator();
+	private int hashMegabytes = DEFAULT_HASH;
+	private SearchEngine engine = newEngine();
+	private Variant variant = Variant.STANDARD;
+	private ChessMatch chessMatch = new ChessMatch();
+	private Thread searchThread;
+	private AnalysisCache analysisCache;
+	private Path analysisFile;
+
+	public static void main(String[] args) throws IOException {
+		UciProgram program = new UciProgram();
+		// a killed engine still leaves its analyses behind for the next start
+		Runtime.getRuntime().addShutdownHook(new Thread(program::saveAnalyses, "uci-save"));
+		program.run(new BufferedReader(new InputStreamReader(System.in)));
+	}
+
+	// Commands are read on this thread while searches run on their own, so "stop" and
+	// "isready" are answered immediately even in the middle of a search.
+	public void run(BufferedReader in) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			String[] tokens = line.trim().split("\\s+");
+			try {
+				switch (tokens[0]) {
+				case "uci":
+					send("id name " + NAME);
+					send("id author " + NAME + " contributors");
+					send("option name Hash type spin default " + DEFAULT_HASH + " min 1 max " + TranspositionTable.MAX_MEGABYTES);
+					send("option name Ponder type check default false");
+					send("option name SearchParams type string default " + new SearchParams());
+					send("option name UCI_Chess960 type check default false");
+					send("option name EvalFile type string default <empty>");
+					send("option name AnalysisFile type string default <empty>");
+					send("uciok");
+					break;
+				case "isready":
+					send("readyok");
+					break;
+				case "ucinewgame":
+					stopSearch();
+					this.engine.clear();
+					this.chessMatch = new ChessMatch(this.variant);
+					break;
+				case "setoption":
+					stopSearch();
+					setOption(tokens);
+					break;
+				case "position":
+					stopSearch();
+					this.chessMatch = position(tokens, this.variant);
+					break;
+				case "go":
+					stopSearch();
+					go(tokens);
+					break;
+				case "ponderhit":
+					this.engine.ponderHit();
+					break;
+				case "stop":
+					stopSearch();
+					break;
+				case "d":
+					send(this.chessMatch.getFen());
+					break;
+				case "quit":
+					stopSearch();
+					saveAnalyses();
+					return;
+				default:
+					break;
+				}
+			} catch (ChessException | IllegalArgumentException e) {
+				send("info string " + e.getMessage());
+			}
+		}
+		stopSearch();
+	}
+
+	private void setOption(String[] tokens) {
+		String name = value(tokens, "name", "value");
+		String value = value(tokens, "value", null);
+		if (name.equalsIgnoreCase("Hash")) {
+			int megabytes = Integer.parseInt(value);
+			if (megabytes < 1 || megabytes > TranspositionTable.MAX_MEGABYTES) {
+				throw new IllegalArgumentException("Hash must be between 1 and " + TranspositionTable.MAX_MEGABYTES);
+			}
+			this.hashMegabytes = megabytes;
+			this.engine = newEngine();
+		} else if (name.equalsIgnoreCase("SearchParams")) {
+			SearchParams parsed = SearchParams.parse(value);
+			for (SearchParam param : SearchParam.values()) {
+				this.params.set(param, parsed.get(param));
+			}
+		} else if (name.equalsIgnoreCase("Ponder")) {
+			// nothing to set up: pondering is driven by go ponder and ponderhit
+		} else if (name.equalsIgnoreCase("EvalFile")) {
+			this.evaluator = loadEvaluator(value);
+			this.engine = newEngine();
+		} else if (name.equalsIgnoreCase("AnalysisFile")) {
+			saveAnalyses();
+			openAnalyses(value);
+		} else if (name.equalsIgnoreCase("UCI_Chess960")) {
+			this.variant = Boolean.parseBoolean(value) ? Variant.CHESS960 : Variant.STANDARD;
+			this.chessMatch = new ChessMatch(this.variant);
+		} else {
+			throw new IllegalArgumentException("Unknown option: " + name);
+		}
+	}
+
+	// With UCI_Chess960 set, FEN castling fields may name rook files and castling moves
+	// are sent as the king taking its own rook.
+	private static ChessMatch position(String[] tokens, Variant variant) {
+		ChessMatch match;
+		int index;
+		if (tokens.length > 1 && tokens[1].equals("fen")) {
+			StringBuilder fen = new StringBuilder();
+			for (index=2; index<tokens.length && !tokens[index].equals("moves"); index++) {
+				fen.append(tokens[index]).append(' ');
+			}
+			match = new ChessMatch(fen.toString(), variant);
+		} else {
+			match = new ChessMatch(variant);
+			index = 2;
+		}
+		if (index < tokens.length && tokens[index].equals("moves")) {
+			for (index++; index<tokens.length; index++) {
+				play(match, Move.parse(tokens[index]));
+			}
+		}
+		return match;
+	}
+
+	// GUIs keep playing past a threefold repetition or the fifty-move rule, which
+	// performChessMove treats as the end of the match, so the move is looked up among the
+	// legal moves and made with doMove instead.
+	private static void play(ChessMatch match, int move) {
+		if (match.getCheckMate()) {
+			throw new ChessException(MoveResult.MATCH_OVER.getMessage());
+		}
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = match.generateMoves(moves);
+		for (int i=0; i<count; i++) {
+			if (moves[i] == move) {
+				match.doMove(move);
+				return;
+			}
+		}
+		throw new ChessException("Illegal move: " + Move.toString(move));
+	}
+
+	private void go(String[] tokens) {
+		int depth = 0;
+		long nodes = 0;
+		long moveTime = 0;
+		long time = 0;
+		long increment = 0;
+		int movesToGo = 0;
+		boolean ponder = false;
+		String ownTime = (this.chessMatch.getCurrentPlayer() == Color.WHITE) ? "wtime" : "btime";
+		String ownIncrement = (this.chessMatch.getCurrentPlayer() == Color.WHITE) ? "winc" : "binc";
+		for (int i=1; i<tokens.length; i++) {
+			String token = tokens[i];
+			if (token.equals("ponder")) {
+				ponder = true;
+			} else if (i + 1 == tokens.length) {
+				break;
+			} else if (token.equals("depth")) {
+				depth = Integer.parseInt(tokens[++i]);
+			} else if (token.equals("nodes")) {
+				nodes = Long.parseLong(tokens[++i]);
+			} else if (token.equals("movetime")) {
+				moveTime = Long.parseLong(tokens[++i]);
+			} else if (token.equals("movestogo")) {
+				movesToGo = Integer.parseInt(tokens[++i]);
+			} else if (token.equals(ownTime)) {
+				time = Long.parseLong(tokens[++i]);
+			} else if (token.equals(ownIncrement)) {
+				increment = Long.parseLong(tokens[++i]);
+			}
+		}
+
+		ChessMatch match = this.chessMatch;
+		// a fifty-move or repetition draw is only claimable and left to the GUI, so the search
+		// goes on past it and only a mated or stalemated side has nothing to report
+		if (match.getCheckMate() || match.generateMoves(new int[Move.MAX_MOVES]) == 0) {
+			send("bestmove 0000");
+			return;
+		}
+		SearchLimits limits = new SearchLimits(depth, nodes, moveTime, time, increment, movesToGo, ponder);
+		SearchEngine searchEngine = this.engine;
+		Analyzer analyzer = (this.analysisCache != null) ? new Analyzer(searchEngine, this.analysisCache) : null;
+		this.searchThread = new Thread(() -> {
+			SearchResult result;
+			Analysis cached = (analyzer != null) ? analyzer.lookup(match, limits) : null;
+			if (cached != null) {
+				result = cached.toSearchResult();
+				info(result);
+			} else {
+				result = searchEngine.search(match, limits);
+				if (analyzer != null) {
+					analyzer.store(match, result);
+				}
+			}
+			send(bestMove(result));
+		}, "uci-search");
+		this.searchThread.start();
+	}
+
+	// With a second move in the principal variation the GUI is told what to ponder on.
+	private static String bestMove(SearchResult result) {
+		if (result.getBestMove() == Move.NONE) {
+			return "bestmove 0000";
+		}
+		int[] pv = result.getPv();
+		String ponder = (pv.length > 1 && pv[0] == result.getBestMove()) ? " ponder " + Move.toString(pv[1]) : "";
+		return "bestmove " + Move.toString(result.getBestMove()) + ponder;
+	}
+
+	private void stopSearch() {
+		if (this.searchThread == null) {
+			return;
+		}
+		try {
+			// the search resets its stop flag when it starts, so keep signalling until it has ended
+			while (this.searchThread.isAlive()) {
+				this.engine.stop();
+				this.searchThread.join(10);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.searchThread = null;
+	}
+
+	// Analyses are kept in memory and written back to the file on quit, on a change of file
+	// and when the process is shut down.
+	private void openAnalyses(String file) {
+		if (file == null || file.isEmpty() || file.equals("<empty>")) {
+			this.analysisCache = null;
+			this.analysisFile = null;
+			return;
+		}
+		AnalysisCache cache = new AnalysisCache(ANALYSIS_ENTRIES);
+		Path path = Paths.get(file);
+		try {
+			cache.load(path);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot load " + file + ": " + e.getMessage());
+		}
+		this.analysisCache = cache;
+		this.analysisFile = path;
+		send("info string " + cache);
+	}
+
+	private synchronized void saveAnalyses() {
+		if (this.analysisCache == null) {
+			return;
+		}
+		try {
+			this.analysisCache.save(this.analysisFile);
+		} catch (IOException e) {
+			send("info string Cannot save " + this.analysisFile + ": " + e.getMessage());
+		}
+	}
+
+	// A .nnue network, Tuner weights, or the built-in piece-square tables when empty.
+	private static Evaluator loadEvaluator(String file) {
+		if (file == null || file.isEmpty() || file.equals("<empty>")) {
+			return new Evaluator();
+		}
+		try {
+			return file.endsWith(".nnue") ? NnueEvaluator.load(Paths.get(file)) : Evaluator.load(Paths.get(file));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot load " + file + ": " + e.getMessage());
+		}
+	}
+
+	private SearchEngine newEngine() {
+		SearchEngine searchEngine = new SearchEngine(this.params, this.evaluator, new TranspositionTable(this.hashMegabytes));
+		searchEngine.setListener(UciProgram::info);
+		return searchEngine;
+	}
+
+	private static void info(SearchResult result) {
+		String score = result.isMate() ? "mate " + result.getMateIn() : "cp " + result.getScore();
+		send("info depth " + result.getDepth() + " score " + score + " nodes " + result.getNodes()
+				+ " nps " + result.getNodesPerSecond() + " time " + result.getMillis() + " pv " + result.getPvString());
+	}
+
+	private static String value(String[] tokens, String key, String end) {
+		StringBuilder sb = new StringBuilder();
+		boolean inside = false;
+		for (String token : tokens) {
+			if (token.equals(key)) {
+				inside = true;
+			} else if (token.equals(end)) {
+				inside = false;
+			} else if (inside) {
+				sb.append((sb.length() > 0) ? " " : "").append(token);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static void send(String message) {
+		synchronized (System.out) {
+			System.out.println(message);
+			System.out.flush();
+		}
+	}
+
+}
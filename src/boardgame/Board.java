@@ -5,6 +5,7 @@ public class Board {
 	private int rows;
 	private int columns;
 	private Piece[][] pieces;
+	private Position[] positions;
 	
 	public Board(int rows, int columns) {
 		if (rows < 1 || columns < 1) {
@@ -13,6 +14,12 @@ public class Board {
 		this.rows = rows;
 		this.columns = columns;
 		this.pieces = new Piece[rows][columns];
+		this.positions = new Position[rows * columns];
+		for (int i=0; i<rows; i++) {
+			for (int j=0; j<columns; j++) {
+				this.positions[i * columns + j] = Position.immutable(i, j);
+			}
+		}
 	}
 
 	public int getRows() {
@@ -30,6 +37,13 @@ public class Board {
 		return this.pieces[row][column];
 	}
 	
+	public Piece piece(int square) {
+		if(!squareExists(square)) {
+			throw new BoardException("Position Error: This position doesn't exist!");
+		}
+		return this.pieces[square / columns][square % columns];
+	}
+	
 	public Piece piece(Position position) {
 		if(!positionExists(position)) {
 			throw new BoardException("Position Error: This position doesn't exist!");
@@ -42,7 +56,11 @@ public class Board {
 			throw new BoardException("Position Error: There's already a piece in this position!");
 		}
 		this.pieces[position.getRow()][position.getColumn()] = piece;
-		piece.position = position;
+		piece.position = position(position.getRow(), position.getColumn());
+	}
+	
+	public void placePiece(Piece piece, int square) {
+		placePiece(piece, position(square));
 	}
 	
 	public Piece removePiece(Position position) {
@@ -58,10 +76,39 @@ public class Board {
 		return auxPiece;
 	}
 	
-	private boolean positionExists(int row, int column) {
+	public Piece removePiece(int square) {
+		return removePiece(position(square));
+	}
+	
+	public Position position(int square) {
+		if(!squareExists(square)) {
+			throw new BoardException("Position Error: This position doesn't exist!");
+		}
+		return this.positions[square];
+	}
+	
+	public Position position(int row, int column) {
+		if(!positionExists(row, column)) {
+			throw new BoardException("Position Error: This position doesn't exist!");
+		}
+		return this.positions[row * columns + column];
+	}
+	
+	public int square(Position position) {
+		if(!positionExists(position)) {
+			throw new BoardException("Position Error: This position doesn't exist!");
+		}
+		return position.getRow() * columns + position.getColumn();
+	}
+	
+	public boolean positionExists(int row, int column) {
 		return row >= 0 && row < rows && column >=0 && column < columns;
 	}
 	
+	public boolean squareExists(int square) {
+		return square >= 0 && square < rows * columns;
+	}
+	
 	public boolean positionExists(Position position) {
 		return positionExists(position.getRow(), position.getColumn());
 	}
@@ -72,5 +119,9 @@ public class Board {
 		}
 		return piece(position) != null;
 	}
+	
+	public boolean thereIsAPiece(int square) {
+		return piece(square) != null;
+	}
 
 }
@@ -13,6 +13,10 @@ public abstract class Piece {
 		return board;
 	}
 	
+	public Position getPosition() {
+		return position;
+	}
+	
 	public abstract boolean[][] possibleMoves();
 	
 	public boolean possibleMove(Position position) {
@@ -22,7 +26,7 @@ public abstract class Piece {
 	public boolean isThereAnyPossibleMove() {
 		boolean [][] matrix = possibleMoves();
 		for (int i=0; i<matrix.length; i++) {
-			for (int j=0; j<matrix.length; j++) {
+			for (int j=0; j<matrix[i].length; j++) {
 				if(matrix[i][j]) {
 					return true;
 				}
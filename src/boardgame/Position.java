@@ -4,11 +4,20 @@ public class Position {
 	
 	private int row;
 	private int column;
+	private final boolean immutable;
 	
 	public Position(int row, int column) {
-		super();
+		this(row, column, false);
+	}
+	
+	private Position(int row, int column, boolean immutable) {
 		this.row = row;
 		this.column = column;
+		this.immutable = immutable;
+	}
+	
+	public static Position immutable(int row, int column) {
+		return new Position(row, column, true);
 	}
 
 	public int getRow() {
@@ -16,6 +25,7 @@ public class Position {
 	}
 
 	public void setRow(int row) {
+		checkMutable();
 		this.row = row;
 	}
 
@@ -24,14 +34,26 @@ public class Position {
 	}
 
 	public void setColumn(int column) {
+		checkMutable();
 		this.column = column;
 	}
 	
 	public void setValues(int row, int column) {
+		checkMutable();
 		this.row = row;
 		this.column = column;
 	}
 	
+	public boolean isImmutable() {
+		return this.immutable;
+	}
+	
+	private void checkMutable() {
+		if (this.immutable) {
+			throw new BoardException("Position Error: This position is shared and can't be changed!");
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return this.row + ", " + this.column;
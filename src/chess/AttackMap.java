@@ -0,0 +1,188 @@
+package chess;
+
+import boardgame.Position;
+
+// Attacks and mobility of every piece in one position, worked out in a single pass over the
+// board. Square sets are longs over the 8x8 numbering of Square.index. A piece attacks a
+// square when it could capture there if an opponent's piece stood on it: pawns attack
+// diagonally forward only, sliders stop at the first piece in their way, and squares held by
+// the attacker's own pieces are included, so defenders show up as attackers as well.
+// Mobility is the number of pseudo-legal moves of a piece, without castling and en passant.
+public final class AttackMap {
+
+	private final int rows;
+	private final int columns;
+	private final int squareOffset;
+	private final long[] attackers = new long[Square.COUNT];
+	private final int[] mobility = new int[Square.COUNT];
+	private final long[] attacks = new long[2];
+	private final long[] pieces = new long[2];
+	private final int[] totalMobility = new int[2];
+	private long kings;
+
+	AttackMap(ChessMatch chessMatch) {
+		Variant variant = chessMatch.getVariant();
+		this.rows = variant.getRows();
+		this.columns = variant.getColumns();
+		this.squareOffset = variant.squareOffset();
+		for (int square=0; square<Square.COUNT; square++) {
+			ChessPiece piece = chessMatch.getPiece(square);
+			if (piece != null) {
+				this.pieces[piece.getColor().ordinal()] |= 1L << square;
+			}
+		}
+		for (int square=0; square<Square.COUNT; square++) {
+			ChessPiece piece = chessMatch.getPiece(square);
+			if (piece != null) {
+				addPiece(piece, square, variant);
+			}
+		}
+	}
+
+	public long getAttacks(Color color) {
+		return this.attacks[color.ordinal()];
+	}
+
+	public boolean isAttacked(int square, Color color) {
+		return (this.attacks[color.ordinal()] & 1L << square) != 0;
+	}
+
+	// Squares of the pieces of both colours that attack the square.
+	public long getAttackers(int square) {
+		return this.attackers[square];
+	}
+
+	public long getAttackers(int square, Color color) {
+		return this.attackers[square] & this.pieces[color.ordinal()];
+	}
+
+	public int countAttackers(int square, Color color) {
+		return Long.bitCount(getAttackers(square, color));
+	}
+
+	// Mobility of the piece on the square, 0 for an empty square.
+	public int getMobility(int square) {
+		return this.mobility[square];
+	}
+
+	public int getMobility(Color color) {
+		return this.totalMobility[color.ordinal()];
+	}
+
+	// Pieces of the colour, king aside, attacked by the opponent and not defended at all.
+	public long getHangingPieces(Color color) {
+		Color opponent = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		return this.pieces[color.ordinal()] & ~this.kings & this.attacks[opponent.ordinal()]
+				& ~this.attacks[color.ordinal()];
+	}
+
+	// A square set as a board matrix, the shape possibleMoves returns, for UI overlays.
+	public boolean[][] toMatrix(long squares) {
+		boolean[][] matrix = new boolean[this.rows][this.columns];
+		while (squares != 0) {
+			int square = Long.numberOfTrailingZeros(squares);
+			squares &= squares - 1;
+			int row = Square.row(square) - this.squareOffset;
+			int column = Square.column(square);
+			if (row >= 0 && row < this.rows && column < this.columns) {
+				matrix[row][column] = true;
+			}
+		}
+		return matrix;
+	}
+
+	private void addPiece(ChessPiece piece, int square, Variant variant) {
+		MoveTables tables = MoveTables.of(this.rows, this.columns);
+		Position position = piece.getPosition();
+		int row = position.getRow();
+		int column = position.getColumn();
+		long targets;
+		switch (piece.getType()) {
+		case PAWN:
+			int forward = (piece.getColor() == Color.WHITE) ? -1 : 1;
+			targets = pawnAttacks(row + forward, column);
+			addPawnPushes(piece, square, row, column, forward, variant);
+			break;
+		case KNIGHT:
+			targets = steps(tables.knight(row, column));
+			break;
+		case KING:
+			targets = steps(tables.king(row, column));
+			this.kings |= 1L << square;
+			break;
+		default:
+			PieceType type = piece.getType();
+			targets = rays(tables.rays(row, column),
+					type.isOrthogonal() ? MoveTables.ORTHOGONAL_FIRST : MoveTables.DIAGONAL_FIRST,
+					type.isDiagonal() ? MoveTables.DIAGONAL_LAST : MoveTables.ORTHOGONAL_LAST);
+			break;
+		}
+		int color = piece.getColor().ordinal();
+		this.attacks[color] |= targets;
+		long moves = (piece.getType() == PieceType.PAWN) ? targets & this.pieces[1 - color] : targets & ~this.pieces[color];
+		this.mobility[square] += Long.bitCount(moves);
+		this.totalMobility[color] += Long.bitCount(moves);
+		while (targets != 0) {
+			int target = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			this.attackers[target] |= 1L << square;
+		}
+	}
+
+	private void addPawnPushes(ChessPiece pawn, int square, int row, int column, int forward, Variant variant) {
+		long occupied = this.pieces[0] | this.pieces[1];
+		int pushes = 0;
+		int target = row + forward;
+		if (target >= 0 && target < this.rows && (occupied & 1L << square(target, column)) == 0) {
+			pushes ++;
+			target += forward;
+			if (pawn.getMoveCount() == 0 && variant.hasDoublePawnStep() && target >= 0 && target < this.rows
+					&& (occupied & 1L << square(target, column)) == 0) {
+				pushes ++;
+			}
+		}
+		this.mobility[square] += pushes;
+		this.totalMobility[pawn.getColor().ordinal()] += pushes;
+	}
+
+	private long pawnAttacks(int row, int column) {
+		long targets = 0;
+		if (row >= 0 && row < this.rows) {
+			if (column > 0) {
+				targets |= 1L << square(row, column - 1);
+			}
+			if (column + 1 < this.columns) {
+				targets |= 1L << square(row, column + 1);
+			}
+		}
+		return targets;
+	}
+
+	private long steps(int[] targets) {
+		long squares = 0;
+		for (int target : targets) {
+			squares |= 1L << target;
+		}
+		return squares;
+	}
+
+	private long rays(int[][] rays, int first, int last) {
+		long occupied = this.pieces[0] | this.pieces[1];
+		long squares = 0;
+		for (int d=first; d<=last; d++) {
+			for (int target : rays[d]) {
+				long bit = 1L << target;
+				squares |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+			}
+		}
+		return squares;
+	}
+
+	private int square(int row, int column) {
+		return Square.index(row + this.squareOffset, column);
+	}
+
+}
@@ -0,0 +1,98 @@
+package chess;
+
+import java.util.Arrays;
+
+// Castling geometry of a match, fixed once the starting position is known. For each right it
+// keeps the king and rook squares and targets, the squares that must be empty and the squares
+// the king crosses as masks over the 8x8 square numbering, and for every square the rights
+// that survive a move from or to it, so rights are updated with two ANDs per move.
+public final class CastlingRules {
+
+	public static final int WHITE_KING_SIDE = 1;
+	public static final int WHITE_QUEEN_SIDE = 2;
+	public static final int BLACK_KING_SIDE = 4;
+	public static final int BLACK_QUEEN_SIDE = 8;
+	public static final int ALL = 15;
+
+	private final int[] kingSquares = new int[4];
+	private final int[] rookSquares = new int[4];
+	private final int[] kingTargets = new int[4];
+	private final int[] rookTargets = new int[4];
+	private final long[] emptyMasks = new long[4];
+	private final long[] safeMasks = new long[4];
+	private final int[] keptRights = new int[Square.COUNT];
+
+	CastlingRules() {
+		Arrays.fill(this.kingSquares, -1);
+		Arrays.fill(this.rookSquares, -1);
+		Arrays.fill(this.keptRights, ALL);
+	}
+
+	public static int right(Color color, boolean kingSide) {
+		int right = kingSide ? WHITE_KING_SIDE : WHITE_QUEEN_SIDE;
+		return (color == Color.WHITE) ? right : right << 2;
+	}
+
+	// Squares are on one row; everything between the four of them must be empty apart from
+	// the castling king and rook, and the king may not pass through an attacked square.
+	void add(int right, int kingSquare, int rookSquare, int kingTarget, int rookTarget) {
+		int index = index(right);
+		this.kingSquares[index] = kingSquare;
+		this.rookSquares[index] = rookSquare;
+		this.kingTargets[index] = kingTarget;
+		this.rookTargets[index] = rookTarget;
+		long span = span(Math.min(kingSquare, rookSquare), Math.max(kingSquare, rookSquare))
+				| span(Math.min(kingTarget, rookTarget), Math.max(kingTarget, rookTarget));
+		this.emptyMasks[index] = span & ~bit(kingSquare) & ~bit(rookSquare);
+		this.safeMasks[index] = span(Math.min(kingSquare, kingTarget), Math.max(kingSquare, kingTarget))
+				& ~bit(kingSquare) & ~bit(kingTarget);
+		boolean white = (right & (WHITE_KING_SIDE | WHITE_QUEEN_SIDE)) != 0;
+		this.keptRights[kingSquare] &= white ? ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE) : ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+		this.keptRights[rookSquare] &= ~right;
+	}
+
+	public boolean isDefined(int right) {
+		return this.rookSquares[index(right)] >= 0;
+	}
+
+	public int kingSquare(int right) {
+		return this.kingSquares[index(right)];
+	}
+
+	public int rookSquare(int right) {
+		return this.rookSquares[index(right)];
+	}
+
+	public int kingTarget(int right) {
+		return this.kingTargets[index(right)];
+	}
+
+	public int rookTarget(int right) {
+		return this.rookTargets[index(right)];
+	}
+
+	public long emptyMask(int right) {
+		return this.emptyMasks[index(right)];
+	}
+
+	public long safeMask(int right) {
+		return this.safeMasks[index(right)];
+	}
+
+	public int update(int rights, int origin, int target) {
+		return rights & this.keptRights[origin] & this.keptRights[target];
+	}
+
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	private static long span(int from, int to) {
+		return (-1L >>> (63 - to)) & (-1L << from);
+	}
+
+	private static int index(int right) {
+		return Integer.numberOfTrailingZeros(right);
+	}
+
+}
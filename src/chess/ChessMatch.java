@@ -1,12 +1,15 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
+import chess.metrics.MatchMetrics;
+import chess.metrics.Operation;
 import chess.pieces.Bishop;
 import chess.pieces.King;
 import chess.pieces.Knight;
@@ -16,22 +19,184 @@ import chess.pieces.Rook;
 
 public class ChessMatch {
 	
+	private static final int PAWN = PieceType.PAWN.ordinal();
+	private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+	private static final int BISHOP = PieceType.BISHOP.ordinal();
+	private static final int ROOK = PieceType.ROOK.ordinal();
+	private static final int QUEEN = PieceType.QUEEN.ordinal();
+	private static final int KING = PieceType.KING.ordinal();
+	
+	private Variant variant;
 	private Board board;
+	private MoveTables tables;
 	private int turn;
 	private Color currentPlayer;
 	private boolean check;
 	private boolean checkMate;
 	private ChessPiece enPassantVunerable;
 	private ChessPiece promoted;
+	private boolean draw;
+	private DrawReason drawReason;
+	private int halfmoveClock;
+	private long piecesKey;
+	private long occupancy;
+	private CastlingRules castlingRules;
+	private int castlingRights;
+	private int[][] material = new int[2][PieceType.COUNT];
+	private int[] bishopSquares = new int[2];
+	private RepetitionTable repetitions = new RepetitionTable();
+	private UndoRecord[] history = new UndoRecord[0];
+	private int historySize;
+	private PieceListener pieceListener;
+	private AttackMap attackMap;
+	private long attackMapKey;
+	private int[] legalMoves;
+	private long legalMovesKey;
 	
 	private List<Piece> piecesOnBoard = new ArrayList<>();
 	private List<Piece> capturedPieces = new ArrayList<>();
 	
 	public ChessMatch() {
-		this.board = new Board(8, 8);
+		this(Variant.STANDARD);
+	}
+	
+	public ChessMatch(Variant variant) {
+		this.variant = variant;
+		this.board = new Board(variant.getRows(), variant.getColumns());
+		this.tables = MoveTables.of(variant.getRows(), variant.getColumns());
 		this.turn = 1;
 		this.currentPlayer = Color.WHITE;
 		initialSetup();
+		setupCastling();
+		this.repetitions.increment(getPositionKey());
+	}
+	
+	public ChessMatch(String fen) {
+		this(fen, Variant.STANDARD);
+	}
+	
+	public ChessMatch(String fen, Variant variant) {
+		this.variant = variant;
+		this.board = new Board(variant.getRows(), variant.getColumns());
+		this.tables = MoveTables.of(variant.getRows(), variant.getColumns());
+		int rows = variant.getRows();
+		int columns = variant.getColumns();
+		String[] fields = fen.trim().split("\\s+");
+		String[] ranks = fields[0].split("/");
+		if (fields.length < 4 || ranks.length != rows) {
+			throw new ChessException("Invalid FEN: " + fen);
+		}
+		for (int row=0; row<rows; row++) {
+			int column = 0;
+			for (char c : ranks[row].toCharArray()) {
+				if (c >= '1' && c <= '8') {
+					column += c - '0';
+					continue;
+				}
+				if (column >= columns || !PieceType.isCode(c)) {
+					throw new ChessException("Invalid FEN: " + fen);
+				}
+				Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+				ChessPiece piece = newPiece(PieceType.of(c), color);
+				placePiece(piece, this.board.position(row, column++));
+				this.piecesOnBoard.add(piece);
+			}
+			if (column != columns) {
+				throw new ChessException("Invalid FEN: " + fen);
+			}
+		}
+		if (countKings(Color.WHITE) != 1 || countKings(Color.BLACK) != 1) {
+			throw new ChessException("Invalid FEN: each side needs exactly one king");
+		}
+		
+		if (fields[1].equals("w")) {
+			this.currentPlayer = Color.WHITE;
+		} else if (fields[1].equals("b")) {
+			this.currentPlayer = Color.BLACK;
+		} else {
+			throw new ChessException("Invalid FEN: " + fen);
+		}
+		setupMoveCounts(fields[2]);
+		setupCastling();
+		
+		if (!fields[3].equals("-")) {
+			if (fields[3].length() != 2) {
+				throw new ChessException("Invalid FEN: " + fen);
+			}
+			Position square = toPosition(new ChessPosition(fields[3].charAt(0), fields[3].charAt(1) - '0'));
+			int row = (this.currentPlayer == Color.WHITE) ? square.getRow() + 1 : square.getRow() - 1;
+			ChessPiece pawn = this.board.positionExists(row, square.getColumn())
+					? (ChessPiece)this.board.piece(row, square.getColumn()) : null;
+			if (pawn == null || pawn.getType() != PieceType.PAWN || pawn.getColor() == this.currentPlayer) {
+				throw new ChessException("Invalid FEN: no pawn can be captured en passant on " + fields[3]);
+			}
+			this.enPassantVunerable = pawn;
+		}
+		
+		try {
+			this.halfmoveClock = (fields.length > 4) ? Integer.parseInt(fields[4]) : 0;
+			int fullmove = (fields.length > 5) ? Math.max(1, Integer.parseInt(fields[5])) : 1;
+			this.turn = 2 * (fullmove - 1) + ((this.currentPlayer == Color.WHITE) ? 1 : 2);
+		} catch (NumberFormatException e) {
+			throw new ChessException("Invalid FEN: " + fen);
+		}
+		
+		if (testCheck(opponent(this.currentPlayer))) {
+			throw new ChessException("Invalid FEN: the side not to move is in check");
+		}
+		this.check = testCheck(this.currentPlayer);
+		int repetitionCount = this.repetitions.increment(getPositionKey());
+		if (this.check && !hasLegalMove(this.currentPlayer)) {
+			this.checkMate = true;
+			this.turn --;
+			this.currentPlayer = opponent(this.currentPlayer);
+		} else {
+			updateDraw(repetitionCount);
+		}
+	}
+	
+	public ChessMatch(ChessMatch other) {
+		this.variant = other.variant;
+		this.board = new Board(other.board.getRows(), other.board.getColumns());
+		this.tables = other.tables;
+		this.turn = other.turn;
+		this.currentPlayer = other.currentPlayer;
+		this.check = other.check;
+		this.checkMate = other.checkMate;
+		this.draw = other.draw;
+		this.drawReason = other.drawReason;
+		this.halfmoveClock = other.halfmoveClock;
+		this.castlingRules = other.castlingRules;
+		this.castlingRights = other.castlingRights;
+		for (Piece piece : other.piecesOnBoard) {
+			ChessPiece source = (ChessPiece)piece;
+			ChessPiece copy = copyPiece(source);
+			placePiece(copy, source.getPosition());
+			this.piecesOnBoard.add(copy);
+			if (source == other.enPassantVunerable) {
+				this.enPassantVunerable = copy;
+			}
+			if (source == other.promoted) {
+				this.promoted = copy;
+			}
+		}
+		for (Piece piece : other.capturedPieces) {
+			this.capturedPieces.add(copyPiece((ChessPiece)piece));
+		}
+		this.repetitions = new RepetitionTable(other.repetitions);
+	}
+	
+	public Variant getVariant() {
+		return this.variant;
+	}
+	
+	public PieceListener getPieceListener() {
+		return this.pieceListener;
+	}
+	
+	// Not copied by the copy constructor, since listeners usually hold state of this match.
+	public void setPieceListener(PieceListener pieceListener) {
+		this.pieceListener = pieceListener;
 	}
 	
 	public int getTurn() {
@@ -57,7 +222,75 @@ public class ChessMatch {
 	public ChessPiece getPromoted() {
 		return this.promoted;
 	}
+	
+	public boolean getDraw() {
+		return this.draw;
+	}
+	
+	public DrawReason getDrawReason() {
+		return this.drawReason;
+	}
+	
+	public int getHalfmoveClock() {
+		return this.halfmoveClock;
+	}
+	
+	public long getPositionKey() {
+		long key = this.piecesKey ^ Zobrist.castling(this.castlingRights);
+		if (this.currentPlayer == Color.BLACK) {
+			key ^= Zobrist.side();
+		}
+		int column = enPassantColumn(this.currentPlayer);
+		if (column >= 0) {
+			key ^= Zobrist.enPassant(column);
+		}
+		return key;
+	}
 
+	public String getFen() {
+		StringBuilder sb = new StringBuilder();
+		for (int row=0; row<this.board.getRows(); row++) {
+			int empty = 0;
+			for (int column=0; column<this.board.getColumns(); column++) {
+				ChessPiece piece = (ChessPiece)this.board.piece(row, column);
+				if (piece == null) {
+					empty ++;
+					continue;
+				}
+				if (empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				char code = piece.getType().getCode();
+				sb.append((piece.getColor() == Color.WHITE) ? code : Character.toLowerCase(code));
+			}
+			if (empty > 0) {
+				sb.append(empty);
+			}
+			if (row < this.board.getRows() - 1) {
+				sb.append('/');
+			}
+		}
+		// after a mate the match keeps the winner as current player; FEN names the mated side
+		Color toMove = this.checkMate ? opponent(this.currentPlayer) : this.currentPlayer;
+		int turn = this.checkMate ? this.turn + 1 : this.turn;
+		sb.append((toMove == Color.WHITE) ? " w " : " b ");
+		
+		String castling = castlingField(Color.WHITE) + castlingField(Color.BLACK);
+		sb.append(castling.isEmpty() ? "-" : castling);
+		
+		int column = enPassantColumn(toMove);
+		if (column >= 0) {
+			int row = this.enPassantVunerable.getPosition().getRow();
+			int behind = (this.enPassantVunerable.getColor() == Color.WHITE) ? row + 1 : row - 1;
+			sb.append(' ').append(ChessPosition.fromSquare(square(behind, column)));
+		} else {
+			sb.append(" -");
+		}
+		sb.append(' ').append(this.halfmoveClock).append(' ').append((turn + 1) / 2);
+		return sb.toString();
+	}
+	
 	public ChessPiece[][] getPieces() {
 		ChessPiece[][] piecesMat = new ChessPiece[this.board.getRows()][this.board.getColumns()];
 		for (int i=0; i<this.board.getRows(); i++) {
@@ -68,193 +301,724 @@ public class ChessMatch {
 		return piecesMat;
 	}
 	
+	// Piece on a square of the 8x8 numbering, or null when the square lies off a smaller board.
+	public ChessPiece getPiece(int square) {
+		int row = Square.row(square) - this.variant.squareOffset();
+		int column = Square.column(square);
+		return this.board.positionExists(row, column) ? (ChessPiece)this.board.piece(row, column) : null;
+	}
+	
+	// Attacks and mobility of the current position, computed on first use and shared until the
+	// pieces change. Moves made and taken back, as legality tests do, keep it valid.
+	public AttackMap getAttackMap() {
+		if (this.attackMap == null || this.attackMapKey != this.piecesKey) {
+			this.attackMap = new AttackMap(this);
+			this.attackMapKey = this.piecesKey;
+		}
+		return this.attackMap;
+	}
+	
 	public boolean[][] possibleMoves(ChessPosition originPosition){
-		Position position = originPosition.toPosition();
-		validateOriginPosition(position);
-		return this.board.piece(position).possibleMoves();
+		long start = MatchMetrics.start();
+		try {
+			Position position = toPosition(originPosition);
+			validateOriginPosition(position);
+			return pieceMoves(this.board.piece(position));
+		} finally {
+			MatchMetrics.stop(Operation.POSSIBLE_MOVES, start);
+		}
 	}
 	
 	public ChessPiece performChessMove(ChessPosition originPosition, ChessPosition targetPosition) {
-		Position origin = originPosition.toPosition();
-		Position target = targetPosition.toPosition();
-		validateOriginPosition(origin);
-		validateTargetPosition(origin, target);
-		Piece captured = makeMove(origin, target);
+		long start = MatchMetrics.start();
+		try {
+			if (this.checkMate || this.draw) {
+				throw new ChessException(MoveResult.MATCH_OVER.getMessage());
+			}
+			Position origin = toPosition(originPosition);
+			Position target = toPosition(targetPosition);
+			MoveResult result = checkMove(origin, target);
+			if (result != MoveResult.OK) {
+				throw new ChessException(result.getMessage());
+			}
+			ChessPiece movedPiece = (ChessPiece)this.board.piece(origin);
+			boolean castling = isCastling(origin, target);
+			Piece captured = makeMove(origin, target, castling);
 		
-		if (testCheck(currentPlayer)) {
-			undoMove(origin, target, captured);
-			throw new ChessException("You cannot put your king in a check position!");
+			if (testCheck(currentPlayer)) {
+				undoMove(origin, target, captured, castling);
+				throw new ChessException(MoveResult.KING_IN_CHECK.getMessage());
+			}
+			return completeChessMove(origin, target, movedPiece, captured);
+		} finally {
+			MatchMetrics.stop(Operation.PERFORM_CHESS_MOVE, start);
 		}
-		
-		ChessPiece movedPiece = (ChessPiece)this.board.piece(target);
-		
+	}
+	
+	// performChessMove for untrusted input: a move that can't be played is reported by the
+	// result instead of an exception, and only a move the piece can make at all gets as far
+	// as being made and tested for leaving the king in check.
+	public MoveResult tryMove(ChessPosition originPosition, ChessPosition targetPosition) {
+		return tryMove(originPosition.toSquare(), targetPosition.toSquare(), null);
+	}
+	
+	// The same with a Move code, whose promotion piece, if any, replaces the default queen.
+	public MoveResult tryMove(int move) {
+		return tryMove(Move.origin(move), Move.target(move), Move.promotion(move));
+	}
+	
+	private MoveResult tryMove(int originSquare, int targetSquare, String promotion) {
+		long start = MatchMetrics.start();
+		try {
+			if (this.checkMate || this.draw) {
+				return MoveResult.MATCH_OVER;
+			}
+			Position origin = boardPosition(originSquare);
+			Position target = boardPosition(targetSquare);
+			if (origin == null || target == null) {
+				return MoveResult.OFF_BOARD;
+			}
+			MoveResult result = checkMove(origin, target);
+			if (result != MoveResult.OK) {
+				return result;
+			}
+			ChessPiece movedPiece = (ChessPiece)this.board.piece(origin);
+			boolean promotes = movedPiece.getType() == PieceType.PAWN
+					&& target.getRow() == this.variant.promotionRow(movedPiece.getColor());
+			if (promotion != null && (!promotes || !this.variant.canPromoteTo(promotion))) {
+				return MoveResult.INVALID_PROMOTION;
+			}
+			boolean castling = isCastling(origin, target);
+			Piece captured = makeMove(origin, target, castling);
+			if (testCheck(this.currentPlayer)) {
+				undoMove(origin, target, captured, castling);
+				return MoveResult.KING_IN_CHECK;
+			}
+			completeChessMove(origin, target, movedPiece, captured);
+			if (promotion != null && this.promoted != null) {
+				replacePromotedPiece(promotion);
+			}
+			return MoveResult.OK;
+		} finally {
+			MatchMetrics.stop(Operation.PERFORM_CHESS_MOVE, start);
+		}
+	}
+	
+	// Whether the piece on the origin belongs to the side to move and can move to the target,
+	// leaving aside whether the move exposes its own king.
+	private MoveResult checkMove(Position origin, Position target) {
+		MoveResult result = checkOrigin(origin);
+		if (result != MoveResult.OK) {
+			return result;
+		}
+		boolean[][] moves = pieceMoves(this.board.piece(origin));
+		if (!hasAny(moves)) {
+			return MoveResult.NO_POSSIBLE_MOVE;
+		}
+		return moves[target.getRow()][target.getColumn()] ? MoveResult.OK : MoveResult.ILLEGAL_TARGET;
+	}
+	
+	private MoveResult checkOrigin(Position position) {
+		ChessPiece piece = (ChessPiece)this.board.piece(position);
+		if (piece == null) {
+			return MoveResult.NO_PIECE;
+		}
+		return (piece.getColor() == this.currentPlayer) ? MoveResult.OK : MoveResult.OPPONENT_PIECE;
+	}
+	
+	private static boolean hasAny(boolean[][] matrix) {
+		for (boolean[] row : matrix) {
+			for (boolean value : row) {
+				if (value) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	// Everything after a legal move has been made on the board: rights, promotion, check and
+	// mate, en passant, the move clocks and draws.
+	private ChessPiece completeChessMove(Position origin, Position target, ChessPiece movedPiece, Piece captured) {
+		this.castlingRights = this.castlingRules.update(this.castlingRights,
+				square(origin.getRow(), origin.getColumn()), square(target.getRow(), target.getColumn()));
+	
 		this.promoted = null;
-		if (movedPiece instanceof Pawn) {
-			if ((movedPiece.getColor() == Color.WHITE && target.getRow() ==0)
-					|| (movedPiece.getColor()== Color.BLACK && target.getRow() == 7)) {
+		if (movedPiece.getType() == PieceType.PAWN) {
+			if (target.getRow() == this.variant.promotionRow(movedPiece.getColor())) {
 				this.promoted = (ChessPiece)this.board.piece(target);
-				this.promoted = replacePromotedPiece("Q");
+				this.promoted = promote("Q");
 			}
 		}
-		
+	
 		check = (testCheck(opponent(currentPlayer))) ? true : false;
-		
+	
 		if (testCheckMate(opponent(currentPlayer))) {
 			this.checkMate = true;
 		} else {
 			nextTurn();
 		}
-		
-		if (movedPiece instanceof Pawn && (target.getRow() == origin.getRow() - 2
+	
+		if (movedPiece.getType() == PieceType.PAWN && (target.getRow() == origin.getRow() - 2
 				|| target.getRow() == origin.getRow() + 2)) {
 			this.enPassantVunerable = movedPiece;
 		} else {
 			this.enPassantVunerable = null;
 		}
-		
+	
+		if (movedPiece.getType() == PieceType.PAWN || captured != null) {
+			this.halfmoveClock = 0;
+			this.repetitions.clear();
+		} else {
+			this.halfmoveClock ++;
+		}
+		if (!this.checkMate) {
+			updateDraw(this.repetitions.increment(getPositionKey()));
+		}
+	
 		return (ChessPiece) captured;
 	}
 	
-	private Piece makeMove(Position origin, Position target) {
-		ChessPiece p = (ChessPiece)this.board.removePiece(origin);
-		p.increaseMoveCount();
-		Piece captured = this.board.removePiece(target);
-		this.board.placePiece(p, target);
-		
-		if (captured != null) {
-			this.piecesOnBoard.remove(captured);
-			this.capturedPieces.add(captured);
-		}
-		
-		if (p instanceof King && target.getColumn() == origin.getColumn() + 2) {
-			Position originRook = new Position(origin.getRow(), origin.getColumn() + 3);
-			Position targetRook = new Position(origin.getRow(), origin.getColumn() + 1);
-			ChessPiece rook = (ChessPiece)this.board.removePiece(originRook);
-			this.board.placePiece(rook, targetRook);
-			rook.increaseMoveCount();
+	// Every legal move of the side to move as Move codes, with one move per promotion piece,
+	// and none once the match is over. Computed once per position and shared with
+	// legalMoveCount, so asking again before the next move costs nothing.
+	public int[] legalMoves() {
+		return cachedLegalMoves().clone();
+	}
+	
+	public int legalMoveCount() {
+		return cachedLegalMoves().length;
+	}
+	
+	private int[] cachedLegalMoves() {
+		if (this.checkMate || this.draw) {
+			return new int[0];
 		}
-		
-		if (p instanceof King && target.getColumn() == origin.getColumn() - 2) {
-			Position originRook = new Position(origin.getRow(), origin.getColumn() - 4);
-			Position targetRook = new Position(origin.getRow(), origin.getColumn() - 1);
-			ChessPiece rook = (ChessPiece)this.board.removePiece(originRook);
-			this.board.placePiece(rook, targetRook);
-			rook.increaseMoveCount();
+		long key = getPositionKey();
+		if (this.legalMoves == null || this.legalMovesKey != key) {
+			int[] buffer = new int[Move.MAX_MOVES];
+			this.legalMoves = Arrays.copyOf(buffer, generateMoves(buffer));
+			this.legalMovesKey = key;
 		}
-		
-		if (p instanceof Pawn) {
-			if (origin.getColumn() != target.getColumn() && captured == null) {
-				Position capPawnPosition;
-				if (p.getColor() == Color.WHITE) {
-					capPawnPosition = new Position(target.getRow() + 1, target.getColumn());
-				}
-				else {
-					capPawnPosition = new Position(target.getRow() - 1, target.getColumn());
+		return this.legalMoves;
+	}
+	
+	public int generateMoves(int[] moves) {
+		int count = 0;
+		for (Piece piece : this.piecesOnBoard.toArray(new Piece[0])) {
+			ChessPiece p = (ChessPiece)piece;
+			if (p.getColor() != this.currentPlayer) {
+				continue;
+			}
+			Position origin = p.getPosition();
+			boolean[][] matrix = pieceMoves(p);
+			for (int i=0; i<this.board.getRows(); i++) {
+				for (int j=0; j<this.board.getColumns(); j++) {
+					if (matrix[i][j]) {
+						Position target = this.board.position(i, j);
+						boolean castling = isCastling(origin, target);
+						Piece captured = makeMove(origin, target, castling);
+						boolean legal = !testCheck(this.currentPlayer);
+						undoMove(origin, target, captured, castling);
+						if (!legal) {
+							continue;
+						}
+						int originSquare = square(origin.getRow(), origin.getColumn());
+						int targetSquare = square(i, j);
+						if (p.getType() == PieceType.PAWN && (i == 0 || i == this.board.getRows() - 1)) {
+							String codes = this.variant.getPromotionCodes();
+							for (int k=0; k<codes.length(); k++) {
+								moves[count++] = Move.of(originSquare, targetSquare, codes.substring(k, k + 1));
+							}
+						} else {
+							moves[count++] = Move.of(originSquare, targetSquare);
+						}
+					}
 				}
-				
-				captured = this.board.removePiece(capPawnPosition);
-				this.capturedPieces.add(captured);
-				this.piecesOnBoard.remove(captured);
 			}
 		}
+		return count;
+	}
+	
+	public void doMove(int move) {
+		UndoRecord record = pushRecord();
+		Position origin = position(Move.origin(move));
+		Position target = position(Move.target(move));
+		ChessPiece movedPiece = (ChessPiece)this.board.piece(origin);
+		boolean castling = isCastling(origin, target);
+		Piece captured = makeMove(origin, target, castling);
+		record.origin = origin;
+		record.target = target;
+		record.captured = captured;
+		record.castling = castling;
+		record.promotedPawn = null;
+		this.castlingRights = this.castlingRules.update(this.castlingRights, Move.origin(move), Move.target(move));
+		
+		String promotion = Move.promotion(move);
+		if (promotion != null) {
+			ChessPiece pawn = removePiece(target);
+			this.piecesOnBoard.remove(pawn);
+			ChessPiece newPiece = newPiece(promotion, pawn.getColor());
+			placePiece(newPiece, target);
+			this.piecesOnBoard.add(newPiece);
+			record.promotedPawn = pawn;
+		}
 		
-		return captured;
+		this.promoted = null;
+		this.check = testCheck(opponent(this.currentPlayer));
+		nextTurn();
+		
+		boolean pawnMove = movedPiece.getType() == PieceType.PAWN;
+		if (pawnMove && Math.abs(target.getRow() - origin.getRow()) == 2) {
+			this.enPassantVunerable = movedPiece;
+		} else {
+			this.enPassantVunerable = null;
+		}
+		this.halfmoveClock = (pawnMove || captured != null) ? 0 : this.halfmoveClock + 1;
+		record.positionKey = getPositionKey();
+		this.repetitions.increment(record.positionKey);
 	}
 	
-	private void undoMove(Position origin, Position target, Piece captured) {
-		ChessPiece p = (ChessPiece)this.board.removePiece(target);
-		p.decreaseMoveCount();
-		this.board.placePiece(p, origin);
+	public void doNullMove() {
+		if (this.check) {
+			throw new IllegalStateException("A null move can't be made while in check!");
+		}
+		UndoRecord record = pushRecord();
+		record.origin = null;
+		record.target = null;
+		record.captured = null;
+		record.promotedPawn = null;
 		
-		if (captured != null) {
-			this.board.placePiece(captured, target);
-			this.capturedPieces.remove(captured);
-			this.piecesOnBoard.add(captured);
+		this.promoted = null;
+		this.enPassantVunerable = null;
+		nextTurn();
+		this.halfmoveClock ++;
+		record.positionKey = getPositionKey();
+		this.repetitions.increment(record.positionKey);
+	}
+	
+	public void undoLastMove() {
+		if (this.historySize == 0) {
+			throw new IllegalStateException("There is no move to be undone!");
 		}
+		UndoRecord record = this.history[--this.historySize];
+		this.repetitions.decrement(record.positionKey);
 		
-		if (p instanceof King && target.getColumn() == origin.getColumn() + 2) {
-			Position originRook = new Position(origin.getRow(), origin.getColumn() + 3);
-			Position targetRook = new Position(origin.getRow(), origin.getColumn() + 1);
-			ChessPiece rook = (ChessPiece)this.board.removePiece(targetRook);
-			this.board.placePiece(rook, originRook);
-			rook.decreaseMoveCount();
+		if (record.promotedPawn != null) {
+			ChessPiece newPiece = removePiece(record.target);
+			this.piecesOnBoard.remove(newPiece);
+			placePiece(record.promotedPawn, record.target);
+			this.piecesOnBoard.add(record.promotedPawn);
 		}
 		
-		if (p instanceof King && target.getColumn() == origin.getColumn() - 2) {
-			Position originRook = new Position(origin.getRow(), origin.getColumn() - 4);
-			Position targetRook = new Position(origin.getRow(), origin.getColumn() - 1);
-			ChessPiece rook = (ChessPiece)this.board.removePiece(targetRook);
-			this.board.placePiece(rook, originRook);
-			rook.decreaseMoveCount();
+		this.turn = record.turn;
+		this.currentPlayer = record.currentPlayer;
+		this.check = record.check;
+		this.checkMate = record.checkMate;
+		this.draw = record.draw;
+		this.drawReason = record.drawReason;
+		this.enPassantVunerable = record.enPassantVunerable;
+		this.promoted = record.promoted;
+		this.halfmoveClock = record.halfmoveClock;
+		this.castlingRights = record.castlingRights;
+		if (record.origin != null) {
+			undoMove(record.origin, record.target, record.captured, record.castling);
+		}
+		record.captured = null;
+		record.promotedPawn = null;
+	}
+	
+	public int getRepetitionCount() {
+		return this.repetitions.count(getPositionKey());
+	}
+	
+	public boolean hasNonPawnMaterial(Color color) {
+		int[] counts = this.material[color.ordinal()];
+		return counts[KNIGHT] + counts[BISHOP] + counts[ROOK] + counts[QUEEN] > 0;
+	}
+	
+	private UndoRecord pushRecord() {
+		if (this.historySize == this.history.length) {
+			this.history = Arrays.copyOf(this.history, Math.max(16, this.history.length * 2));
+		}
+		UndoRecord record = this.history[this.historySize];
+		if (record == null) {
+			record = new UndoRecord();
+			this.history[this.historySize] = record;
 		}
+		this.historySize ++;
 		
-		if (p instanceof Pawn) {
-			if (origin.getColumn() != target.getColumn() && captured == this.enPassantVunerable) {
-				ChessPiece pawn = (ChessPiece)this.board.removePiece(target);
-				Position capPawnPosition;
-				if (p.getColor() == Color.WHITE) {
-					capPawnPosition = new Position(3, target.getColumn());
-				}
-				else {
-					capPawnPosition = new Position(4, target.getColumn());
+		record.turn = this.turn;
+		record.currentPlayer = this.currentPlayer;
+		record.check = this.check;
+		record.checkMate = this.checkMate;
+		record.draw = this.draw;
+		record.drawReason = this.drawReason;
+		record.enPassantVunerable = this.enPassantVunerable;
+		record.promoted = this.promoted;
+		record.halfmoveClock = this.halfmoveClock;
+		record.castlingRights = this.castlingRights;
+		return record;
+	}
+	
+	private Piece makeMove(Position origin, Position target, boolean castling) {
+		long start = MatchMetrics.start();
+		try {
+			if (castling) {
+				castle(origin, target, true);
+				return null;
+			}
+			ChessPiece p = removePiece(origin);
+			p.increaseMoveCount();
+			Piece captured = removePiece(target);
+			placePiece(p, target);
+		
+			if (captured != null) {
+				this.piecesOnBoard.remove(captured);
+				this.capturedPieces.add(captured);
+			}
+		
+			if (p.getType() == PieceType.PAWN) {
+				if (origin.getColumn() != target.getColumn() && captured == null) {
+					Position capPawnPosition;
+					if (p.getColor() == Color.WHITE) {
+						capPawnPosition = this.board.position(target.getRow() + 1, target.getColumn());
+					}
+					else {
+						capPawnPosition = this.board.position(target.getRow() - 1, target.getColumn());
+					}
+				
+					captured = removePiece(capPawnPosition);
+					this.capturedPieces.add(captured);
+					this.piecesOnBoard.remove(captured);
 				}
+			}
+		
+			return captured;
+		} finally {
+			MatchMetrics.stop(Operation.MAKE_MOVE, start);
+		}
+	}
+	
+	private void undoMove(Position origin, Position target, Piece captured, boolean castling) {
+		long start = MatchMetrics.start();
+		try {
+			if (castling) {
+				castle(origin, target, false);
+				return;
+			}
+			ChessPiece p = removePiece(target);
+			p.decreaseMoveCount();
+			placePiece(p, origin);
+		
+			if (captured != null) {
+				placePiece(captured, target);
+				this.capturedPieces.remove(captured);
+				this.piecesOnBoard.add(captured);
+			}
+		
+			if (p.getType() == PieceType.PAWN) {
+				if (origin.getColumn() != target.getColumn() && captured == this.enPassantVunerable) {
+					ChessPiece pawn = removePiece(target);
+					Position capPawnPosition;
+					if (p.getColor() == Color.WHITE) {
+						capPawnPosition = this.board.position(this.variant.enPassantRow(Color.WHITE), target.getColumn());
+					}
+					else {
+						capPawnPosition = this.board.position(this.variant.enPassantRow(Color.BLACK), target.getColumn());
+					}
 				
-				this.board.placePiece(pawn, capPawnPosition);
+					placePiece(pawn, capPawnPosition);
+				}
+			}
+		} finally {
+			MatchMetrics.stop(Operation.UNDO_MOVE, start);
+		}
+	}
+	
+	// Castling is a king move of two columns, or in Chess960 the king taking its own rook.
+	private boolean isCastling(Position origin, Position target) {
+		ChessPiece p = (ChessPiece)this.board.piece(origin);
+		if (p == null || p.getType() != PieceType.KING || !this.variant.hasCastling() || origin.getRow() != target.getRow()) {
+			return false;
+		}
+		if (this.variant.isChess960()) {
+			ChessPiece rook = (ChessPiece)this.board.piece(target);
+			return rook != null && rook.is(PieceType.ROOK, p.getColor());
+		}
+		return Math.abs(target.getColumn() - origin.getColumn()) == 2;
+	}
+	
+	private void castle(Position origin, Position target, boolean forward) {
+		Color color = (origin.getRow() == this.variant.homeRow(Color.WHITE)) ? Color.WHITE : Color.BLACK;
+		int right = CastlingRules.right(color, target.getColumn() > origin.getColumn());
+		Position kingOrigin = origin;
+		Position rookOrigin = position(this.castlingRules.rookSquare(right));
+		Position kingTarget = position(this.castlingRules.kingTarget(right));
+		Position rookTarget = position(this.castlingRules.rookTarget(right));
+		if (!forward) {
+			kingOrigin = kingTarget;
+			kingTarget = origin;
+			Position rook = rookOrigin;
+			rookOrigin = rookTarget;
+			rookTarget = rook;
+		}
+		ChessPiece king = removePiece(kingOrigin);
+		ChessPiece rook = removePiece(rookOrigin);
+		placePiece(king, kingTarget);
+		placePiece(rook, rookTarget);
+		if (forward) {
+			king.increaseMoveCount();
+			rook.increaseMoveCount();
+		} else {
+			king.decreaseMoveCount();
+			rook.decreaseMoveCount();
+		}
+	}
+	
+	// Column the king of the given colour moves to when castling on that side is allowed right
+	// now, apart from it standing in check, or -1. In Chess960 that is the rook's column.
+	public int castlingColumn(Color color, boolean kingSide) {
+		int right = CastlingRules.right(color, kingSide);
+		if ((this.castlingRights & right) == 0 || (this.occupancy & this.castlingRules.emptyMask(right)) != 0) {
+			return -1;
+		}
+		Color opponent = opponent(color);
+		for (long safe = this.castlingRules.safeMask(right); safe != 0; safe &= safe - 1) {
+			Position crossed = position(Long.numberOfTrailingZeros(safe));
+			if (isAttacked(crossed.getRow(), crossed.getColumn(), opponent)) {
+				return -1;
 			}
 		}
+		int target = this.variant.isChess960() ? this.castlingRules.rookSquare(right) : this.castlingRules.kingTarget(right);
+		return Square.column(target);
+	}
+	
+	// Column of the rook a castling right castles with, or -1 when the right is gone.
+	int castlingRookColumn(int right) {
+		return ((this.castlingRights & right) == 0) ? -1 : Square.column(this.castlingRules.rookSquare(right));
+	}
+	
+	// Square of the promoted piece while it is on the board, or -1.
+	int promotedSquare() {
+		Position position = (this.promoted != null) ? this.promoted.getPosition() : null;
+		if (position == null) {
+			return -1;
+		}
+		int square = square(position.getRow(), position.getColumn());
+		return (getPiece(square) == this.promoted) ? square : -1;
 	}
 	
+	// Marks the piece on the square as a promotion still waiting for replacePromotedPiece.
+	void restorePromoted(int square) {
+		this.promoted = getPiece(square);
+	}
+	
+	// The automatic queen may have ended the match, so check, mate and draw are worked out
+	// again for the piece chosen, and a mate the queen gave is taken back first.
 	public ChessPiece replacePromotedPiece(String pieceCode) {
+		ChessPiece newPiece = promote(pieceCode);
+		
+		if (this.checkMate) {
+			this.checkMate = false;
+			nextTurn();
+		}
+		this.draw = false;
+		this.drawReason = null;
+		this.halfmoveClock = 0;
+		this.check = testCheck(this.currentPlayer);
+		this.repetitions.clear();
+		int repetitionCount = this.repetitions.increment(getPositionKey());
+		if (this.check && !hasLegalMove(this.currentPlayer)) {
+			this.checkMate = true;
+			this.turn --;
+			this.currentPlayer = opponent(this.currentPlayer);
+		} else {
+			updateDraw(repetitionCount);
+		}
+		
+		return newPiece;
+	}
+	
+	private ChessPiece promote(String pieceCode) {
 		if (this.promoted == null) {
 			throw new IllegalStateException("There is no piece to be promoted!");
 		}
-		if (!pieceCode.equals("B") && !pieceCode.equals("N")
-				&& !pieceCode.equals("R") && !pieceCode.equals("Q")) {
+		if (!this.variant.canPromoteTo(pieceCode)) {
 			return this.promoted;
 		}
 		
-		Position position = this.promoted.getChessPosition().toPosition();
-		Piece p = board.removePiece(position);
+		Position position = this.promoted.getPosition();
+		Piece p = removePiece(position);
 		this.piecesOnBoard.remove(p);
 		
 		ChessPiece newPiece = newPiece(pieceCode, this.promoted.getColor());
-		this.board.placePiece(newPiece, position);
+		placePiece(newPiece, position);
 		this.piecesOnBoard.add(newPiece);
+		this.promoted = newPiece;
 		
 		return newPiece;
 	}
 	
-	private ChessPiece newPiece(String pieceCode, Color color) {
-		switch (pieceCode) {
-		case "B": {
-			return new Bishop(this.board, color);
+	private void placePiece(Piece piece, Position position) {
+		this.board.placePiece(piece, position);
+		trackPiece((ChessPiece)piece, position, 1);
+	}
+	
+	private ChessPiece removePiece(Position position) {
+		ChessPiece piece = (ChessPiece)this.board.removePiece(position);
+		if (piece != null) {
+			trackPiece(piece, position, -1);
 		}
-		case "N": {
-			return new Knight(this.board, color);
+		return piece;
+	}
+	
+	private void trackPiece(ChessPiece piece, Position position, int delta) {
+		int square = square(position.getRow(), position.getColumn());
+		this.piecesKey ^= Zobrist.piece(piece, square);
+		this.occupancy ^= CastlingRules.bit(square);
+		int index = piece.getType().ordinal();
+		this.material[piece.getColor().ordinal()][index] += delta;
+		if (index == BISHOP) {
+			this.bishopSquares[(position.getRow() + position.getColumn()) % 2] += delta;
 		}
-		case "R": {
-			return new Rook(this.board, color);
+		if (this.pieceListener != null) {
+			if (delta > 0) {
+				this.pieceListener.pieceAdded(piece, square);
+			} else {
+				this.pieceListener.pieceRemoved(piece, square);
+			}
 		}
-		default:
+	}
+	
+	private ChessPiece copyPiece(ChessPiece source) {
+		ChessPiece piece = newPiece(source.getType(), source.getColor());
+		piece.setMoveCount(source.getMoveCount());
+		return piece;
+	}
+	
+	private int countKings(Color color) {
+		return this.material[color.ordinal()][KING];
+	}
+	
+	// The board only tracks castling through move counts, so pieces that have lost
+	// their rights (or pawns off their starting rank) are marked as already moved.
+	private void setupMoveCounts(String castling) {
+		if (!castling.equals("-") && !castling.matches("[KQkqA-Ha-h]+")) {
+			throw new ChessException("Invalid FEN castling field: " + castling);
+		}
+		for (Piece piece : this.piecesOnBoard) {
+			ChessPiece p = (ChessPiece)piece;
+			p.setMoveCount(0);
+		}
+		for (Piece piece : this.piecesOnBoard) {
+			ChessPiece p = (ChessPiece)piece;
+			Position position = p.getPosition();
+			boolean homeRow = position.getRow() == this.variant.homeRow(p.getColor());
+			boolean unmoved;
+			switch (p.getType()) {
+			case PAWN:
+				unmoved = position.getRow() == this.variant.pawnRow(p.getColor());
+				break;
+			case KING:
+				unmoved = homeRow && hasCastlingRight(castling, p.getColor(), -1);
+				break;
+			case ROOK:
+				unmoved = homeRow && hasCastlingRight(castling, p.getColor(), position.getColumn());
+				break;
+			default:
+				unmoved = true;
+				break;
+			}
+			p.setMoveCount(unmoved ? 0 : 1);
+		}
+	}
+	
+	// Whether the FEN castling field grants the colour a right, with the rook on the given
+	// column when it is not -1. K and Q refer to the outermost rook on that side of the king.
+	private boolean hasCastlingRight(String castling, Color color, int rookColumn) {
+		int row = this.variant.homeRow(color);
+		int kingColumn = homeKingColumn(color);
+		for (char c : castling.toCharArray()) {
+			if (c == '-' || Character.isUpperCase(c) != (color == Color.WHITE)) {
+				continue;
+			}
+			char code = Character.toUpperCase(c);
+			if (rookColumn < 0) {
+				return kingColumn >= 0;
+			}
+			int column = code - 'A';
+			if (code == 'K' || code == 'Q') {
+				int step = (code == 'K') ? -1 : 1;
+				column = -1;
+				for (int x=(code == 'K') ? this.board.getColumns() - 1 : 0; x>=0 && x<this.board.getColumns(); x+=step) {
+					ChessPiece piece = (ChessPiece)this.board.piece(row, x);
+					if (piece != null && piece.is(PieceType.ROOK, color)) {
+						column = x;
+						break;
+					}
+				}
+			}
+			if (column == rookColumn) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private ChessPiece newPiece(String pieceCode, Color color) {
+		return newPiece(PieceType.of(pieceCode.charAt(0)), color);
+	}
+	
+	private ChessPiece newPiece(PieceType type, Color color) {
+		switch (type) {
+		case PAWN:
+			return new Pawn(this.board, color, this);
+		case KNIGHT:
+			return new Knight(this.board, color);
+		case BISHOP:
+			return new Bishop(this.board, color);
+		case ROOK:
+			return new Rook(this.board, color);
+		case QUEEN:
 			return new Queen(this.board, color);
+		default:
+			return new King(this.board, color, this);
 		}
 	}
 	
 	private void validateOriginPosition(Position position) {
-		if (!this.board.thereIsAPiece(position)) {
-			throw new ChessException("There is no piece in this position!");
-		}
-		if (this.currentPlayer != ((ChessPiece)this.board.piece(position)).getColor()) {
-			throw new ChessException("You cannot move a piece of your adversary!");
+		MoveResult result = checkOrigin(position);
+		if (result == MoveResult.OK && !hasAny(pieceMoves(this.board.piece(position)))) {
+			result = MoveResult.NO_POSSIBLE_MOVE;
 		}
-		if (!this.board.piece(position).isThereAnyPossibleMove()) {
-			throw new ChessException("There's no possible movement for this piece!");
+		if (result != MoveResult.OK) {
+			throw new ChessException(result.getMessage());
 		}
 	}
 	
-	private void validateTargetPosition(Position origin, Position target) {
-		if (!this.board.piece(origin).possibleMove(target)) {
-			throw new ChessException("Isn't possible to move to the targe with this piece!");
+	// Dispatched on the piece type, so each call below sees a single final class and can be
+	// inlined, where one virtual call would see all six.
+	private boolean[][] pieceMoves(Piece piece) {
+		long start = MatchMetrics.start();
+		try {
+			ChessPiece p = (ChessPiece)piece;
+			switch (p.getType()) {
+			case PAWN:
+				return ((Pawn)p).possibleMoves();
+			case KNIGHT:
+				return ((Knight)p).possibleMoves();
+			case BISHOP:
+				return ((Bishop)p).possibleMoves();
+			case ROOK:
+				return ((Rook)p).possibleMoves();
+			case QUEEN:
+				return ((Queen)p).possibleMoves();
+			default:
+				return ((King)p).possibleMoves();
+			}
+		} finally {
+			MatchMetrics.stop(Operation.PIECE_MOVES, start);
 		}
 	}
 	
@@ -263,103 +1027,257 @@ public class ChessMatch {
 	}
 	
 	private ChessPiece king(Color color) {
-		List<Piece> list = this.piecesOnBoard.stream().filter(
-				x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece)p;
+		for (Piece piece : this.piecesOnBoard) {
+			ChessPiece p = (ChessPiece)piece;
+			if (p.is(PieceType.KING, color)) {
+				return p;
 			}
 		}
 		throw new IllegalStateException("There is no " + color + " king on the board!");
 	}
 	
 	private boolean testCheck(Color color) {
-		Position kPosition = king(color).getChessPosition().toPosition();
-		List<Piece> adversaryPieces = this.piecesOnBoard.stream().filter(
-				x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());
-		
-		for (Piece p : adversaryPieces) {
-			boolean[][] matrix = p.possibleMoves();
-			if (matrix[kPosition.getRow()][kPosition.getColumn()]) {
+		long start = MatchMetrics.start();
+		try {
+			Position kPosition = king(color).getPosition();
+			return isAttacked(kPosition.getRow(), kPosition.getColumn(), opponent(color));
+		} finally {
+			MatchMetrics.stop(Operation.TEST_CHECK, start);
+		}
+	}
+	
+	// Looks outwards from the square through the move tables, at the knight and king steps,
+	// the two squares a pawn would capture from and the first piece along every ray, so no
+	// move matrix is generated. Squares held by the colour's own pieces count as attacked.
+	public boolean isAttacked(int row, int column, Color color) {
+		for (int target : this.tables.knight(row, column)) {
+			if (isPiece(target, PieceType.KNIGHT, color)) {
 				return true;
 			}
 		}
-		
+		for (int target : this.tables.king(row, column)) {
+			if (isPiece(target, PieceType.KING, color)) {
+				return true;
+			}
+		}
+		int pawnRow = row + ((color == Color.WHITE) ? 1 : -1);
+		if (pawnRow >= 0 && pawnRow < this.board.getRows()) {
+			for (int pawnColumn = column - 1; pawnColumn <= column + 1; pawnColumn += 2) {
+				if (pawnColumn >= 0 && pawnColumn < this.board.getColumns()) {
+					ChessPiece piece = (ChessPiece)this.board.piece(pawnRow, pawnColumn);
+					if (piece != null && piece.is(PieceType.PAWN, color)) {
+						return true;
+					}
+				}
+			}
+		}
+		int[][] rays = this.tables.rays(row, column);
+		for (int d=MoveTables.ORTHOGONAL_FIRST; d<=MoveTables.DIAGONAL_LAST; d++) {
+			for (int target : rays[d]) {
+				ChessPiece piece = (ChessPiece)this.board.piece(this.tables.row(target), MoveTables.column(target));
+				if (piece == null) {
+					continue;
+				}
+				if (piece.getColor() == color) {
+					PieceType type = piece.getType();
+					if ((d <= MoveTables.ORTHOGONAL_LAST) ? type.isOrthogonal() : type.isDiagonal()) {
+						return true;
+					}
+				}
+				break;
+			}
+		}
 		return false;
 	}
 	
+	private boolean isPiece(int target, PieceType type, Color color) {
+		ChessPiece piece = (ChessPiece)this.board.piece(this.tables.row(target), MoveTables.column(target));
+		return piece != null && piece.is(type, color);
+	}
+	
 	private boolean testCheckMate(Color color) {
-		if (!testCheck(color)) {
-			return false;
+		long start = MatchMetrics.start();
+		try {
+			return testCheck(color) && !hasLegalMove(color);
+		} finally {
+			MatchMetrics.stop(Operation.TEST_CHECK_MATE, start);
 		}
-		
+	}
+	
+	private boolean hasLegalMove(Color color) {
 		List<Piece> list = this.piecesOnBoard.stream().filter(
 				x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
 		
 		for (Piece p : list) {
-			boolean[][] matrix = p.possibleMoves();
+			boolean[][] matrix = pieceMoves(p);
 			for (int i=0; i<this.board.getRows(); i++) {
 				for (int j=0; j<this.board.getColumns(); j++) {
 					if (matrix[i][j]) {
-						Position origin = ((ChessPiece)p).getChessPosition().toPosition();
-						Position target = new Position(i, j);
-						Piece captured = makeMove(origin, target);
+						Position origin = p.getPosition();
+						Position target = this.board.position(i, j);
+						boolean castling = isCastling(origin, target);
+						Piece captured = makeMove(origin, target, castling);
 						boolean testCheck = testCheck(color);
-						undoMove(origin, target, captured);
+						undoMove(origin, target, captured, castling);
 						if (!testCheck) {
-							return false;
+							return true;
 						}
 					}
 				}
 			}
 		}
 		
-		return true;
+		return false;
+	}
+	
+	private void updateDraw(int repetitionCount) {
+		if (!this.check && !hasLegalMove(this.currentPlayer)) {
+			this.drawReason = DrawReason.STALEMATE;
+		} else if (isInsufficientMaterial()) {
+			this.drawReason = DrawReason.INSUFFICIENT_MATERIAL;
+		} else if (this.halfmoveClock >= 100) {
+			this.drawReason = DrawReason.FIFTY_MOVE_RULE;
+		} else if (repetitionCount >= 3) {
+			this.drawReason = DrawReason.THREEFOLD_REPETITION;
+		}
+		this.draw = this.drawReason != null;
 	}
 	
-	private void placeNewPiece(char column, int row, ChessPiece piece) {
-		this.board.placePiece(piece, new ChessPosition(column, row).toPosition());
+	public boolean isInsufficientMaterial() {
+		int minors = 0;
+		int knights = 0;
+		for (int[] counts : this.material) {
+			if (counts[PAWN] + counts[ROOK] + counts[QUEEN] > 0) {
+				return false;
+			}
+			minors += counts[KNIGHT] + counts[BISHOP];
+			knights += counts[KNIGHT];
+		}
+		return minors <= 1 || (knights == 0 && (this.bishopSquares[0] == 0 || this.bishopSquares[1] == 0));
+	}
+	
+	// Castling rights come from the move counts left by the setup or the FEN castling field;
+	// from then on they are only updated through the castling rules' square masks.
+	private void setupCastling() {
+		this.castlingRules = new CastlingRules();
+		this.castlingRights = 0;
+		if (!this.variant.hasCastling()) {
+			return;
+		}
+		for (Color color : new Color[] {Color.WHITE, Color.BLACK}) {
+			int row = this.variant.homeRow(color);
+			for (boolean kingSide : new boolean[] {true, false}) {
+				int rookColumn = castlingRook(color, kingSide);
+				if (rookColumn >= 0) {
+					int right = CastlingRules.right(color, kingSide);
+					this.castlingRules.add(right, square(row, homeKingColumn(color)), square(row, rookColumn),
+							square(row, this.variant.castlingKingColumn(kingSide)), square(row, this.variant.castlingRookColumn(kingSide)));
+					this.castlingRights |= right;
+				}
+			}
+		}
+	}
+	
+	// Column of the unmoved rook an unmoved king can still castle with on that side, or -1.
+	private int castlingRook(Color color, boolean kingSide) {
+		int row = this.variant.homeRow(color);
+		int kingColumn = homeKingColumn(color);
+		if (kingColumn < 0) {
+			return -1;
+		}
+		int step = kingSide ? 1 : -1;
+		for (int column=kingColumn+step; column>=0 && column<this.board.getColumns(); column+=step) {
+			ChessPiece piece = (ChessPiece)this.board.piece(row, column);
+			if (piece != null && piece.is(PieceType.ROOK, color) && piece.getMoveCount() == 0) {
+				return column;
+			}
+		}
+		return -1;
+	}
+	
+	private int homeKingColumn(Color color) {
+		int row = this.variant.homeRow(color);
+		for (int column=0; column<this.board.getColumns(); column++) {
+			ChessPiece piece = (ChessPiece)this.board.piece(row, column);
+			if (piece != null && piece.is(PieceType.KING, color)) {
+				return (piece.getMoveCount() == 0) ? column : -1;
+			}
+		}
+		return -1;
+	}
+	
+	// KQkq for standard chess, the files of the castling rooks (Shredder-FEN) for Chess960.
+	private String castlingField(Color color) {
+		String field = "";
+		for (boolean kingSide : new boolean[] {true, false}) {
+			int right = CastlingRules.right(color, kingSide);
+			if ((this.castlingRights & right) != 0) {
+				int column = Square.column(this.castlingRules.rookSquare(right));
+				field += this.variant.isChess960() ? (char)('A' + column) : (kingSide ? 'K' : 'Q');
+			}
+		}
+		return (color == Color.WHITE) ? field : field.toLowerCase();
+	}
+	
+	private int enPassantColumn(Color toMove) {
+		if (this.enPassantVunerable == null) {
+			return -1;
+		}
+		Position position = this.enPassantVunerable.getPosition();
+		for (int column = position.getColumn() - 1; column <= position.getColumn() + 1; column += 2) {
+			if (column >= 0 && column < this.board.getColumns()) {
+				ChessPiece piece = (ChessPiece)this.board.piece(position.getRow(), column);
+				if (piece != null && piece.is(PieceType.PAWN, toMove)) {
+					return position.getColumn();
+				}
+			}
+		}
+		return -1;
+	}
+	
+	private void placeNewPiece(int row, int column, ChessPiece piece) {
+		placePiece(piece, this.board.position(row, column));
 		this.piecesOnBoard.add(piece);
 	}
 	
+	private int square(int row, int column) {
+		return Square.index(row + this.variant.squareOffset(), column);
+	}
+	
+	private Position position(int square) {
+		return this.board.position(Square.row(square) - this.variant.squareOffset(), Square.column(square));
+	}
+	
+	// As position, but null for a square off a smaller board.
+	private Position boardPosition(int square) {
+		int row = Square.row(square) - this.variant.squareOffset();
+		int column = Square.column(square);
+		return this.board.positionExists(row, column) ? this.board.position(row, column) : null;
+	}
+	
+	private Position toPosition(ChessPosition chessPosition) {
+		int row = this.board.getRows() - chessPosition.getRow();
+		int column = chessPosition.getColumn() - 'a';
+		if (!this.board.positionExists(row, column)) {
+			throw new ChessException("Chess Position Error: " + chessPosition + " is not on this board");
+		}
+		return this.board.position(row, column);
+	}
+	
 	private void nextTurn() {
 		this.turn ++;
 		this.currentPlayer = (this.currentPlayer == Color.WHITE) ? Color.BLACK : Color.WHITE;
 	}
 	
 	private void initialSetup() {
-		placeNewPiece('a', 1, new Rook(this.board, Color.WHITE));
-		placeNewPiece('b', 1, new Knight(this.board, Color.WHITE));
-		placeNewPiece('c', 1, new Bishop(this.board, Color.WHITE));
-		placeNewPiece('d', 1, new Queen(this.board, Color.WHITE));
-		placeNewPiece('e', 1, new King(this.board, Color.WHITE, this));
-		placeNewPiece('f', 1, new Bishop(this.board, Color.WHITE));
-		placeNewPiece('g', 1, new Knight(this.board, Color.WHITE));
-		placeNewPiece('h', 1, new Rook(this.board, Color.WHITE));
-        placeNewPiece('a', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('b', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('c', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('d', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('e', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('f', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('g', 2, new Pawn(this.board, Color.WHITE, this));
-        placeNewPiece('h', 2, new Pawn(this.board, Color.WHITE, this));
-        
-        placeNewPiece('a', 8, new Rook(this.board, Color.BLACK));
-        placeNewPiece('b', 8, new Knight(this.board, Color.BLACK));
-        placeNewPiece('c', 8, new Bishop(this.board, Color.BLACK));
-        placeNewPiece('d', 8, new Queen(this.board, Color.BLACK));
-        placeNewPiece('e', 8, new King(this.board, Color.BLACK, this));
-        placeNewPiece('f', 8, new Bishop(this.board, Color.BLACK));
-        placeNewPiece('g', 8, new Knight(this.board, Color.BLACK));
-        placeNewPiece('h', 8, new Rook(this.board, Color.BLACK));
-        placeNewPiece('a', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('b', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('c', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('d', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('e', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('f', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('g', 7, new Pawn(this.board, Color.BLACK, this));
-        placeNewPiece('h', 7, new Pawn(this.board, Color.BLACK, this));
+		String backRank = this.variant.getBackRank();
+		for (Color color : new Color[] {Color.WHITE, Color.BLACK}) {
+			for (int column=0; column<backRank.length(); column++) {
+				placeNewPiece(this.variant.homeRow(color), column, newPiece(PieceType.of(backRank.charAt(column)), color));
+			}
+			for (int column=0; column<backRank.length(); column++) {
+				placeNewPiece(this.variant.pawnRow(color), column, newPiece(PieceType.PAWN, color));
+			}
+		}
 	}
 }
@@ -7,17 +7,34 @@ import boardgame.Position;
 public abstract class ChessPiece extends Piece {
 	
 	private Color color;
+	private final PieceType type;
 	private int moveCount;
+	private final MoveTables tables;
 
-	public ChessPiece(Board board, Color color) {
+	public ChessPiece(Board board, Color color, PieceType type) {
 		super(board);
 		this.color = color;
+		this.type = type;
+		this.tables = MoveTables.of(board.getRows(), board.getColumns());
 	}
 
 	public Color getColor() {
 		return color;
 	}
 	
+	public PieceType getType() {
+		return this.type;
+	}
+	
+	public boolean is(PieceType type, Color color) {
+		return this.type == type && this.color == color;
+	}
+	
+	@Override
+	public String toString() {
+		return this.type.getSymbol();
+	}
+	
 	public int getMoveCount() {
 		return this.moveCount;
 	}
@@ -29,6 +46,10 @@ public abstract class ChessPiece extends Piece {
 	public void decreaseMoveCount() {
 		this.moveCount --;
 	}
+	
+	void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
 
 	protected boolean isThereOpponentPiece(Position position) {
 		ChessPiece piece = (ChessPiece)getBoard().piece(position);
@@ -36,6 +57,39 @@ public abstract class ChessPiece extends Piece {
 	}
 	
 	public ChessPosition getChessPosition() {
-		return ChessPosition.fromPosition(position);
+		return new ChessPosition((char)('a' + position.getColumn()), getBoard().getRows() - position.getRow());
+	}
+	
+	protected MoveTables getTables() {
+		return this.tables;
+	}
+	
+	protected void markSteps(boolean[][] matrix, int[] targets) {
+		for (int target : targets) {
+			int row = this.tables.row(target);
+			int column = MoveTables.column(target);
+			ChessPiece piece = (ChessPiece)getBoard().piece(row, column);
+			if (piece == null || piece.color != this.color) {
+				matrix[row][column] = true;
+			}
+		}
+	}
+	
+	protected void markRays(boolean[][] matrix, int[][] rays, int first, int last) {
+		for (int d=first; d<=last; d++) {
+			for (int target : rays[d]) {
+				int row = this.tables.row(target);
+				int column = MoveTables.column(target);
+				ChessPiece piece = (ChessPiece)getBoard().piece(row, column);
+				if (piece == null) {
+					matrix[row][column] = true;
+					continue;
+				}
+				if (piece.color != this.color) {
+					matrix[row][column] = true;
+				}
+				break;
+			}
+		}
 	}
 }
@@ -23,12 +23,20 @@ public class ChessPosition {
 		return row;
 	}
 	
+	public int toSquare() {
+		return Square.index(8 - this.row, this.column - 'a');
+	}
+	
+	public static ChessPosition fromSquare(int square) {
+		return Square.of(square).getChessPosition();
+	}
+	
 	protected Position toPosition() {
-		return new Position(8 - this.row, this.column - 'a');
+		return Square.of(toSquare()).getPosition();
 	}
 	
 	protected static ChessPosition fromPosition(Position position) {
-		return new ChessPosition((char)('a' + position.getColumn()), 8 - position.getRow());
+		return Square.of(position).getChessPosition();
 	}
 	
 	@Override
@@ -0,0 +1,10 @@
+package chess;
+
+public enum DrawReason {
+	
+	STALEMATE,
+	INSUFFICIENT_MATERIAL,
+	FIFTY_MOVE_RULE,
+	THREEFOLD_REPETITION;
+
+}
@@ -0,0 +1,55 @@
+package chess;
+
+public final class Move {
+	
+	public static final int NONE = 0;
+	// No position has more legal moves than this (the known maximum is 218).
+	public static final int MAX_MOVES = 256;
+	
+	private static final String PROMOTIONS = " NBRQ";
+	
+	private Move() {
+	}
+	
+	public static int of(int origin, int target) {
+		return origin | (target << 6);
+	}
+	
+	public static int of(int origin, int target, String promotion) {
+		int code = (promotion == null) ? 0 : PROMOTIONS.indexOf(promotion.charAt(0));
+		if (code < 0) {
+			throw new ChessException("Invalid promotion piece: " + promotion);
+		}
+		return of(origin, target) | (code << 12);
+	}
+	
+	public static int parse(String text) {
+		if (text.length() < 4 || text.length() > 5) {
+			throw new ChessException("Invalid move: " + text);
+		}
+		int origin = new ChessPosition(text.charAt(0), text.charAt(1) - '0').toSquare();
+		int target = new ChessPosition(text.charAt(2), text.charAt(3) - '0').toSquare();
+		String promotion = (text.length() == 5) ? text.substring(4).toUpperCase() : null;
+		return of(origin, target, promotion);
+	}
+	
+	public static int origin(int move) {
+		return move & 63;
+	}
+	
+	public static int target(int move) {
+		return (move >>> 6) & 63;
+	}
+	
+	public static String promotion(int move) {
+		int code = (move >>> 12) & 7;
+		return (code == 0) ? null : String.valueOf(PROMOTIONS.charAt(code));
+	}
+	
+	public static String toString(int move) {
+		String s = Square.of(origin(move)).toString() + Square.of(target(move));
+		String promotion = promotion(move);
+		return (promotion == null) ? s : s + promotion.toLowerCase();
+	}
+
+}
@@ -0,0 +1,31 @@
+package chess;
+
+// Outcome of ChessMatch.tryMove. Anything but OK leaves the match as it was; the messages are
+// the ones performChessMove throws ChessException with for the same input.
+public enum MoveResult {
+
+	OK(null),
+	MATCH_OVER("The match is already over!"),
+	OFF_BOARD("Chess Position Error: the position is not on this board"),
+	NO_PIECE("There is no piece in this position!"),
+	OPPONENT_PIECE("You cannot move a piece of your adversary!"),
+	NO_POSSIBLE_MOVE("There's no possible movement for this piece!"),
+	ILLEGAL_TARGET("Isn't possible to move to the targe with this piece!"),
+	KING_IN_CHECK("You cannot put your king in a check position!"),
+	INVALID_PROMOTION("This piece can't be promoted to that piece code!");
+
+	private final String message;
+
+	private MoveResult(String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return this.message;
+	}
+
+	public boolean isOk() {
+		return this == OK;
+	}
+
+}
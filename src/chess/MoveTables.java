@@ -0,0 +1,100 @@
+package chess;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Knight and king targets and sliding rays for every square of a board size, computed once
+// per size and shared, so move generation on any variant needs no bounds checks.
+// Targets are Square indices, with a board of fewer than 8 rows numbered like the bottom
+// rows of the 8x8 board as in Variant.squareOffset, so they are the squares ChessMatch,
+// AttackMap and Move use; row turns a target back into a row of the board.
+public final class MoveTables {
+
+	public static final int ORTHOGONAL_FIRST = 0;
+	public static final int ORTHOGONAL_LAST = 3;
+	public static final int DIAGONAL_FIRST = 4;
+	public static final int DIAGONAL_LAST = 7;
+
+	private static final int[][] KNIGHT_STEPS = {{-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}, {1, 2}, {2, 1}, {2, -1}, {1, -2}};
+	private static final int[][] DIRECTIONS = {{-1, 0}, {0, -1}, {1, 0}, {0, 1}, {-1, -1}, {-1, 1}, {1, 1}, {1, -1}};
+	private static final ConcurrentHashMap<Integer, MoveTables> TABLES = new ConcurrentHashMap<>();
+
+	private final int columns;
+	private final int squareOffset;
+	private final int[][] knight;
+	private final int[][] king;
+	private final int[][][] rays;
+
+	private MoveTables(int rows, int columns) {
+		this.columns = columns;
+		this.squareOffset = 8 - rows;
+		this.knight = new int[rows * columns][];
+		this.king = new int[rows * columns][];
+		this.rays = new int[rows * columns][DIRECTIONS.length][];
+		for (int row=0; row<rows; row++) {
+			for (int column=0; column<columns; column++) {
+				int cell = row * columns + column;
+				this.knight[cell] = steps(rows, columns, row, column, KNIGHT_STEPS, this.squareOffset);
+				this.king[cell] = steps(rows, columns, row, column, DIRECTIONS, this.squareOffset);
+				for (int d=0; d<DIRECTIONS.length; d++) {
+					this.rays[cell][d] = ray(rows, columns, row, column, DIRECTIONS[d], this.squareOffset);
+				}
+			}
+		}
+	}
+
+	public static MoveTables of(int rows, int columns) {
+		return TABLES.computeIfAbsent(rows << 8 | columns, key -> new MoveTables(rows, columns));
+	}
+
+	public int[] knight(int row, int column) {
+		return this.knight[row * this.columns + column];
+	}
+
+	public int[] king(int row, int column) {
+		return this.king[row * this.columns + column];
+	}
+
+	public int[][] rays(int row, int column) {
+		return this.rays[row * this.columns + column];
+	}
+
+	// Row of the board, not of the 8x8 numbering, the target lies on.
+	public int row(int target) {
+		return Square.row(target) - this.squareOffset;
+	}
+
+	public static int column(int target) {
+		return Square.column(target);
+	}
+
+	private static int[] steps(int rows, int columns, int row, int column, int[][] steps, int squareOffset) {
+		int[] buffer = new int[steps.length];
+		int count = 0;
+		for (int[] step : steps) {
+			int r = row + step[0];
+			int c = column + step[1];
+			if (r >= 0 && r < rows && c >= 0 && c < columns) {
+				buffer[count++] = Square.index(r + squareOffset, c);
+			}
+		}
+		int[] targets = new int[count];
+		System.arraycopy(buffer, 0, targets, 0, count);
+		return targets;
+	}
+
+	private static int[] ray(int rows, int columns, int row, int column, int[] direction, int squareOffset) {
+		int[] buffer = new int[Math.max(rows, columns)];
+		int count = 0;
+		int r = row + direction[0];
+		int c = column + direction[1];
+		while (r >= 0 && r < rows && c >= 0 && c < columns) {
+			buffer[count++] = Square.index(r + squareOffset, c);
+			r += direction[0];
+			c += direction[1];
+		}
+		int[] targets = new int[count];
+		System.arraycopy(buffer, 0, targets, 0, count);
+		return targets;
+	}
+
+}
@@ -0,0 +1,12 @@
+package chess;
+
+// Told about every piece put on or taken off the board, including the temporary moves made
+// while testing legality and the moves undone afterwards, so it can mirror the board
+// incrementally. Squares use the Square numbering.
+public interface PieceListener {
+
+	void pieceAdded(ChessPiece piece, int square);
+
+	void pieceRemoved(ChessPiece piece, int square);
+
+}
@@ -0,0 +1,67 @@
+package chess;
+
+// The kinds of chess piece, in the order of the piece-indexed tables (Zobrist keys, material
+// counts, evaluation weights), so ordinal() indexes them directly. Every ChessPiece carries its
+// type, letting hot paths switch on it instead of testing instanceof or parsing toString().
+public enum PieceType {
+
+	PAWN('P', false, false),
+	KNIGHT('N', false, false),
+	BISHOP('B', true, false),
+	ROOK('R', false, true),
+	QUEEN('Q', true, true),
+	KING('K', false, false);
+
+	public static final String CODES = "PNBRQK";
+	public static final int COUNT = CODES.length();
+
+	private static final PieceType[] TYPES = values();
+
+	private final char code;
+	private final String symbol;
+	private final boolean diagonal;
+	private final boolean orthogonal;
+
+	private PieceType(char code, boolean diagonal, boolean orthogonal) {
+		this.code = code;
+		this.symbol = String.valueOf(code);
+		this.diagonal = diagonal;
+		this.orthogonal = orthogonal;
+	}
+
+	public static PieceType of(int ordinal) {
+		return TYPES[ordinal];
+	}
+
+	public static PieceType of(char code) {
+		int index = CODES.indexOf(Character.toUpperCase(code));
+		if (index < 0) {
+			throw new ChessException("Unknown piece code: " + code);
+		}
+		return TYPES[index];
+	}
+
+	public static boolean isCode(char code) {
+		return CODES.indexOf(Character.toUpperCase(code)) >= 0;
+	}
+
+	public char getCode() {
+		return this.code;
+	}
+
+	// The code as a string, which is also how a ChessPiece prints.
+	public String getSymbol() {
+		return this.symbol;
+	}
+
+	// Slides along diagonals, like bishops and queens.
+	public boolean isDiagonal() {
+		return this.diagonal;
+	}
+
+	// Slides along ranks and files, like rooks and queens.
+	public boolean isOrthogonal() {
+		return this.orthogonal;
+	}
+
+}
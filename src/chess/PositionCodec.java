@@ -0,0 +1,208 @@
+package chess;
+
+// Fixed 32-byte position encoding for caches, the wire and training data:
+//   bytes  0-7   occupancy over the 8x8 square numbering, bit n set for square n
+//   bytes  8-23  one nibble per occupied square in ascending square order (at most 32 pieces)
+//   bytes 24-31  extras: side to move, castling rook files, en passant file, pending
+//                promotion square, halfmove clock and turn
+// All values are big-endian. Encoding and decoding into a board of piece codes allocate
+// nothing; repetition history is not part of a position and is not stored.
+public final class PositionCodec {
+
+	public static final int SIZE = 32;
+	public static final int MAX_PIECES = 32;
+
+	// Piece codes in nibbles and decoded boards: 1 to 6 for white PNBRQK, plus BLACK for black.
+	public static final int EMPTY = 0;
+	public static final int BLACK = 8;
+
+	private static final int[] RIGHTS = {CastlingRules.WHITE_KING_SIDE, CastlingRules.WHITE_QUEEN_SIDE,
+			CastlingRules.BLACK_KING_SIDE, CastlingRules.BLACK_QUEEN_SIDE};
+	private static final int CASTLING_SHIFT = 1;
+	private static final int EN_PASSANT_SHIFT = 17;
+	private static final int PROMOTED_SHIFT = 21;
+	private static final int HALFMOVE_SHIFT = 28;
+	private static final int TURN_SHIFT = 36;
+
+	private PositionCodec() {
+	}
+
+	public static void encode(ChessMatch chessMatch, byte[] buffer, int offset) {
+		long occupancy = 0;
+		long high = 0;
+		long low = 0;
+		int count = 0;
+		for (int square=0; square<Square.COUNT; square++) {
+			ChessPiece piece = chessMatch.getPiece(square);
+			if (piece == null) {
+				continue;
+			}
+			if (count == MAX_PIECES) {
+				throw new ChessException("Position Error: More than " + MAX_PIECES + " pieces can't be encoded");
+			}
+			long code = pieceCode(piece);
+			if (count < 16) {
+				high |= code << (60 - 4 * count);
+			} else {
+				low |= code << (60 - 4 * (count - 16));
+			}
+			occupancy |= 1L << square;
+			count ++;
+		}
+
+		// a finished game is stored from the mated side, as in FEN
+		boolean blackToMove = (chessMatch.getCurrentPlayer() == Color.BLACK) != chessMatch.getCheckMate();
+		long extras = blackToMove ? 1 : 0;
+		for (int i=0; i<RIGHTS.length; i++) {
+			long file = chessMatch.castlingRookColumn(RIGHTS[i]) + 1;
+			extras |= file << (CASTLING_SHIFT + 4 * i);
+		}
+		ChessPiece enPassant = chessMatch.getEnPassantVunerable();
+		if (enPassant != null) {
+			extras |= (long)(enPassant.getPosition().getColumn() + 1) << EN_PASSANT_SHIFT;
+		}
+		extras |= (long)(chessMatch.promotedSquare() + 1) << PROMOTED_SHIFT;
+		extras |= (long)Math.min(chessMatch.getHalfmoveClock(), 255) << HALFMOVE_SHIFT;
+		extras |= (long)(chessMatch.getTurn() & 0xFFFF) << TURN_SHIFT;
+
+		putLong(buffer, offset, occupancy);
+		putLong(buffer, offset + 8, high);
+		putLong(buffer, offset + 16, low);
+		putLong(buffer, offset + 24, extras);
+	}
+
+	// Fills board with the piece code of every square and returns the extras word.
+	public static long decode(byte[] buffer, int offset, int[] board) {
+		long occupancy = getLong(buffer, offset);
+		long high = getLong(buffer, offset + 8);
+		long low = getLong(buffer, offset + 16);
+		for (int square=0; square<Square.COUNT; square++) {
+			board[square] = EMPTY;
+		}
+		int count = 0;
+		for (long bits = occupancy; bits != 0; bits &= bits - 1) {
+			long nibbles = (count < 16) ? high : low;
+			board[Long.numberOfTrailingZeros(bits)] = (int)(nibbles >>> (60 - 4 * (count & 15))) & 15;
+			count ++;
+		}
+		return getLong(buffer, offset + 24);
+	}
+
+	public static ChessMatch toMatch(byte[] buffer, int offset, Variant variant) {
+		int[] board = new int[Square.COUNT];
+		long extras = decode(buffer, offset, board);
+		ChessMatch chessMatch = new ChessMatch(toFen(board, extras, variant), variant);
+		int promoted = promotedSquare(extras);
+		if (promoted >= 0) {
+			chessMatch.restorePromoted(promoted);
+		}
+		return chessMatch;
+	}
+
+	public static boolean isBlackToMove(long extras) {
+		return (extras & 1) != 0;
+	}
+
+	// File of the rook a castling right (a CastlingRules constant) castles with, or -1.
+	public static int castlingFile(long extras, int right) {
+		int index = Integer.numberOfTrailingZeros(right);
+		return (int)(extras >>> (CASTLING_SHIFT + 4 * index) & 15) - 1;
+	}
+
+	public static int enPassantFile(long extras) {
+		return (int)(extras >>> EN_PASSANT_SHIFT & 15) - 1;
+	}
+
+	public static int promotedSquare(long extras) {
+		return (int)(extras >>> PROMOTED_SHIFT & 127) - 1;
+	}
+
+	public static int halfmoveClock(long extras) {
+		return (int)(extras >>> HALFMOVE_SHIFT) & 255;
+	}
+
+	public static int turn(long extras) {
+		return (int)(extras >>> TURN_SHIFT) & 0xFFFF;
+	}
+
+	public static char fenCode(int pieceCode) {
+		char code = PieceType.of((pieceCode & 7) - 1).getCode();
+		return ((pieceCode & BLACK) != 0) ? Character.toLowerCase(code) : code;
+	}
+
+	private static int pieceCode(ChessPiece piece) {
+		int code = piece.getType().ordinal() + 1;
+		return (piece.getColor() == Color.BLACK) ? code | BLACK : code;
+	}
+
+	private static String toFen(int[] board, long extras, Variant variant) {
+		StringBuilder sb = new StringBuilder();
+		int offset = variant.squareOffset();
+		for (int row=0; row<variant.getRows(); row++) {
+			int empty = 0;
+			for (int column=0; column<variant.getColumns(); column++) {
+				int code = board[Square.index(row + offset, column)];
+				if (code == EMPTY) {
+					empty ++;
+					continue;
+				}
+				if (empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				sb.append(fenCode(code));
+			}
+			if (empty > 0) {
+				sb.append(empty);
+			}
+			if (row < variant.getRows() - 1) {
+				sb.append('/');
+			}
+		}
+		boolean black = isBlackToMove(extras);
+		sb.append(black ? " b " : " w ");
+
+		int length = sb.length();
+		for (int i=0; i<RIGHTS.length; i++) {
+			int file = castlingFile(extras, RIGHTS[i]);
+			if (file >= 0) {
+				char letter = (char)('A' + file);
+				sb.append((i < 2) ? letter : Character.toLowerCase(letter));
+			}
+		}
+		if (sb.length() == length) {
+			sb.append('-');
+		}
+
+		int file = enPassantFile(extras);
+		if (file >= 0) {
+			// the square behind a pawn that has just moved two squares
+			int rank = black ? 3 : variant.getRows() - 2;
+			sb.append(' ').append((char)('a' + file)).append(rank);
+		} else {
+			sb.append(" -");
+		}
+
+		// a mated side's turn was never taken, so count it as the next full move
+		int turn = turn(extras);
+		boolean mated = (turn % 2 == 0) != black;
+		sb.append(' ').append(halfmoveClock(extras)).append(' ').append((turn + (mated ? 2 : 1)) / 2);
+		return sb.toString();
+	}
+
+	private static void putLong(byte[] buffer, int offset, long value) {
+		for (int i=7; i>=0; i--) {
+			buffer[offset + i] = (byte)value;
+			value >>>= 8;
+		}
+	}
+
+	private static long getLong(byte[] buffer, int offset) {
+		long value = 0;
+		for (int i=0; i<8; i++) {
+			value = (value << 8) | (buffer[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,113 @@
+package chess;
+
+import java.util.Arrays;
+
+class RepetitionTable {
+	
+	private long[] keys;
+	private int[] counts;
+	private int size;
+	
+	public RepetitionTable() {
+		this.keys = new long[64];
+		this.counts = new int[64];
+	}
+	
+	public RepetitionTable(RepetitionTable other) {
+		this.keys = other.keys.clone();
+		this.counts = other.counts.clone();
+		this.size = other.size;
+	}
+	
+	public int increment(long key) {
+		int mask = this.keys.length - 1;
+		int i = slot(key, mask);
+		while (this.counts[i] != 0) {
+			if (this.keys[i] == key) {
+				return ++this.counts[i];
+			}
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = key;
+		this.counts[i] = 1;
+		this.size ++;
+		if (this.size * 2 > this.keys.length) {
+			grow();
+		}
+		return 1;
+	}
+	
+	public void decrement(long key) {
+		int mask = this.keys.length - 1;
+		int i = slot(key, mask);
+		while (this.counts[i] != 0) {
+			if (this.keys[i] == key) {
+				if (--this.counts[i] == 0) {
+					delete(i, mask);
+				}
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+	
+	public int count(long key) {
+		int mask = this.keys.length - 1;
+		int i = slot(key, mask);
+		while (this.counts[i] != 0) {
+			if (this.keys[i] == key) {
+				return this.counts[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return 0;
+	}
+	
+	public void clear() {
+		if (this.size > 0) {
+			Arrays.fill(this.counts, 0);
+			this.size = 0;
+		}
+	}
+	
+	private void delete(int i, int mask) {
+		this.size --;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (this.counts[j] == 0) {
+				return;
+			}
+			int k = slot(this.keys[j], mask);
+			if ((j > i && (k <= i || k > j)) || (j < i && k <= i && k > j)) {
+				this.keys[i] = this.keys[j];
+				this.counts[i] = this.counts[j];
+				this.counts[j] = 0;
+				i = j;
+			}
+		}
+	}
+	
+	private void grow() {
+		long[] oldKeys = this.keys;
+		int[] oldCounts = this.counts;
+		this.keys = new long[oldKeys.length * 2];
+		this.counts = new int[oldCounts.length * 2];
+		int mask = this.keys.length - 1;
+		for (int j=0; j<oldKeys.length; j++) {
+			if (oldCounts[j] != 0) {
+				int i = slot(oldKeys[j], mask);
+				while (this.counts[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				this.keys[i] = oldKeys[j];
+				this.counts[i] = oldCounts[j];
+			}
+		}
+	}
+	
+	private static int slot(long key, int mask) {
+		return (int)(key ^ (key >>> 32)) & mask;
+	}
+
+}
@@ -0,0 +1,79 @@
+package chess;
+
+import boardgame.Position;
+
+public final class Square {
+	
+	public static final int COUNT = 64;
+	
+	private static final Square[] SQUARES = new Square[COUNT];
+	
+	static {
+		for (int i=0; i<COUNT; i++) {
+			SQUARES[i] = new Square(i);
+		}
+	}
+	
+	private final int index;
+	private final Position position;
+	private final ChessPosition chessPosition;
+	
+	private Square(int index) {
+		this.index = index;
+		this.position = Position.immutable(row(index), column(index));
+		this.chessPosition = new ChessPosition((char)('a' + column(index)), 8 - row(index));
+	}
+	
+	public static Square of(int index) {
+		if (index < 0 || index >= COUNT) {
+			throw new ChessException("Square Error: Valid values are between 0 and 63");
+		}
+		return SQUARES[index];
+	}
+	
+	public static Square of(Position position) {
+		return of(index(position.getRow(), position.getColumn()));
+	}
+	
+	public static Square of(ChessPosition chessPosition) {
+		return SQUARES[chessPosition.toSquare()];
+	}
+	
+	public static int index(int row, int column) {
+		return (row << 3) | column;
+	}
+	
+	public static int row(int square) {
+		return square >> 3;
+	}
+	
+	public static int column(int square) {
+		return square & 7;
+	}
+	
+	public int getIndex() {
+		return this.index;
+	}
+	
+	public int getRow() {
+		return row(this.index);
+	}
+	
+	public int getColumn() {
+		return column(this.index);
+	}
+	
+	public Position getPosition() {
+		return this.position;
+	}
+	
+	public ChessPosition getChessPosition() {
+		return this.chessPosition;
+	}
+	
+	@Override
+	public String toString() {
+		return this.chessPosition.toString();
+	}
+
+}
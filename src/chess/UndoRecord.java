@@ -0,0 +1,26 @@
+package chess;
+
+import boardgame.Piece;
+import boardgame.Position;
+
+class UndoRecord {
+	
+	Position origin;
+	Position target;
+	Piece captured;
+	ChessPiece promotedPawn;
+	boolean castling;
+	long positionKey;
+	
+	int turn;
+	Color currentPlayer;
+	boolean check;
+	boolean checkMate;
+	boolean draw;
+	DrawReason drawReason;
+	ChessPiece enPassantVunerable;
+	ChessPiece promoted;
+	int halfmoveClock;
+	int castlingRights;
+
+}
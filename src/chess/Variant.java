@@ -0,0 +1,212 @@
+package chess;
+
+import java.util.Random;
+
+// Rules that differ between chess variants: board size, starting back rank, pawn moves,
+// promotion choices and castling. Squares keep the 8x8 numbering of Square (a board with
+// fewer ranks uses the lowest ones), so boards can be at most 8x8.
+public final class Variant {
+
+	public static final Variant STANDARD = new Variant("standard", 8, "RNBQKBNR", true, true, false, "QRBN");
+	public static final Variant LOS_ALAMOS = new Variant("losalamos", 6, "RNQKNR", false, false, false, "QRN");
+	public static final int CHESS960_POSITIONS = 960;
+
+	private static final String[] KNIGHT_PLACEMENTS = {"NN---", "N-N--", "N--N-", "N---N", "-NN--",
+			"-N-N-", "-N--N", "--NN-", "--N-N", "---NN"};
+
+	// Chess960 rules from the standard setup (number 518), for positions given as FEN.
+	public static final Variant CHESS960 = chess960(518);
+
+	private final String name;
+	private final int rows;
+	private final int columns;
+	private final String backRank;
+	private final boolean doublePawnStep;
+	private final boolean castling;
+	private final boolean chess960;
+	private final String promotionCodes;
+
+	private Variant(String name, int rows, String backRank, boolean doublePawnStep, boolean castling,
+			boolean chess960, String promotionCodes) {
+		if (rows < 4 || rows > 8 || backRank.length() < 3 || backRank.length() > 8) {
+			throw new ChessException("Variant Error: Boards need 4 to 8 rows and 3 to 8 columns");
+		}
+		this.name = name;
+		this.rows = rows;
+		this.columns = backRank.length();
+		this.backRank = backRank;
+		this.doublePawnStep = doublePawnStep;
+		this.castling = castling;
+		this.chess960 = chess960;
+		this.promotionCodes = promotionCodes;
+	}
+
+	// Chess960 setup given as the white back rank, e.g. "BBQNNRKR": bishops on opposite
+	// colours and the king between the rooks. Castling moves are encoded as king takes rook.
+	public static Variant chess960(String backRank) {
+		String rank = backRank.toUpperCase();
+		if (rank.length() != 8 || count(rank, 'K') != 1 || count(rank, 'Q') != 1 || count(rank, 'R') != 2
+				|| count(rank, 'B') != 2 || count(rank, 'N') != 2) {
+			throw new ChessException("Variant Error: Invalid Chess960 back rank " + backRank);
+		}
+		if (rank.indexOf('B') % 2 == rank.lastIndexOf('B') % 2) {
+			throw new ChessException("Variant Error: Chess960 bishops must stand on opposite colours");
+		}
+		int king = rank.indexOf('K');
+		if (rank.indexOf('R') > king || rank.lastIndexOf('R') < king) {
+			throw new ChessException("Variant Error: Chess960 king must stand between the rooks");
+		}
+		return new Variant("chess960", 8, rank, true, true, true, "QRBN");
+	}
+
+	// Chess960 setup by its standard number, 0 to 959: the light and dark squared bishops,
+	// the queen and the knights are placed from the digits of the number in mixed radix
+	// 4, 4, 6, 10 and the king lands between the rooks on the three squares left.
+	public static Variant chess960(int number) {
+		if (number < 0 || number >= CHESS960_POSITIONS) {
+			throw new ChessException("Variant Error: Chess960 positions are numbered 0 to 959");
+		}
+		char[] rank = new char[8];
+		int n = number;
+		rank[2 * (n % 4) + 1] = 'B';
+		n /= 4;
+		rank[2 * (n % 4)] = 'B';
+		n /= 4;
+		place(rank, 'Q', n % 6);
+		n /= 6;
+		String knights = KNIGHT_PLACEMENTS[n];
+		for (int i=knights.length()-1; i>=0; i--) {
+			if (knights.charAt(i) == 'N') {
+				place(rank, 'N', i);
+			}
+		}
+		place(rank, 'R', 0);
+		place(rank, 'K', 0);
+		place(rank, 'R', 0);
+		return chess960(new String(rank));
+	}
+
+	public static Variant randomChess960(Random random) {
+		return chess960(random.nextInt(CHESS960_POSITIONS));
+	}
+
+	public static Variant forName(String name) {
+		switch (name.toLowerCase()) {
+		case "standard":
+			return STANDARD;
+		case "losalamos":
+			return LOS_ALAMOS;
+		default:
+			if (name.toLowerCase().startsWith("chess960:")) {
+				String setup = name.substring(9);
+				return setup.matches("\\d+") ? chess960(Integer.parseInt(setup)) : chess960(setup);
+			}
+			throw new ChessException("Unknown variant: " + name);
+		}
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public int getRows() {
+		return this.rows;
+	}
+
+	public int getColumns() {
+		return this.columns;
+	}
+
+	public String getBackRank() {
+		return this.backRank;
+	}
+
+	public boolean hasDoublePawnStep() {
+		return this.doublePawnStep;
+	}
+
+	public boolean hasCastling() {
+		return this.castling;
+	}
+
+	public boolean isChess960() {
+		return this.chess960;
+	}
+
+	// Standard number of a Chess960 setup, or -1 for other variants.
+	public int getChess960Number() {
+		if (this.chess960) {
+			for (int number=0; number<CHESS960_POSITIONS; number++) {
+				if (chess960(number).backRank.equals(this.backRank)) {
+					return number;
+				}
+			}
+		}
+		return -1;
+	}
+
+	public String getPromotionCodes() {
+		return this.promotionCodes;
+	}
+
+	public boolean canPromoteTo(String pieceCode) {
+		return pieceCode.length() == 1 && this.promotionCodes.contains(pieceCode);
+	}
+
+	public int homeRow(Color color) {
+		return (color == Color.WHITE) ? this.rows - 1 : 0;
+	}
+
+	public int pawnRow(Color color) {
+		return (color == Color.WHITE) ? this.rows - 2 : 1;
+	}
+
+	public int promotionRow(Color color) {
+		return (color == Color.WHITE) ? 0 : this.rows - 1;
+	}
+
+	// Row on which a pawn of the given colour can capture a pawn that has just moved two squares.
+	public int enPassantRow(Color color) {
+		return (color == Color.WHITE) ? 3 : this.rows - 4;
+	}
+
+	// Columns the king and rook end on after castling, as in standard chess whatever their start.
+	public int castlingKingColumn(boolean kingSide) {
+		return kingSide ? this.columns - 2 : 2;
+	}
+
+	public int castlingRookColumn(boolean kingSide) {
+		return kingSide ? this.columns - 3 : 3;
+	}
+
+	// Row offset of this board inside the 8x8 square numbering.
+	public int squareOffset() {
+		return 8 - this.rows;
+	}
+
+	@Override
+	public String toString() {
+		return this.chess960 ? this.name + ":" + this.backRank : this.name;
+	}
+
+	// Puts the piece on the free square with the given index among the free squares.
+	private static void place(char[] rank, char piece, int index) {
+		for (int i=0; i<rank.length; i++) {
+			if (rank[i] == 0 && index-- == 0) {
+				rank[i] = piece;
+				return;
+			}
+		}
+	}
+
+	private static int count(String text, char c) {
+		int count = 0;
+		for (char x : text.toCharArray()) {
+			if (x == c) {
+				count ++;
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import java.util.Random;
+
+class Zobrist {
+
+	private static final long[][] PIECES = new long[2 * PieceType.COUNT][64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT = new long[8];
+	private static final long SIDE;
+
+	static {
+		Random random = new Random(0x5EED_C0DEL);
+		for (long[] keys : PIECES) {
+			for (int i=0; i<keys.length; i++) {
+				keys[i] = random.nextLong();
+			}
+		}
+		for (int i=0; i<CASTLING.length; i++) {
+			CASTLING[i] = random.nextLong();
+		}
+		for (int i=0; i<EN_PASSANT.length; i++) {
+			EN_PASSANT[i] = random.nextLong();
+		}
+		SIDE = random.nextLong();
+	}
+
+	private Zobrist() {
+	}
+
+	static long piece(ChessPiece piece, int square) {
+		return PIECES[piece.getColor().ordinal() * PieceType.COUNT + piece.getType().ordinal()][square];
+	}
+
+	static long castling(int rights) {
+		return CASTLING[rights];
+	}
+
+	static long enPassant(int column) {
+		return EN_PASSANT[column];
+	}
+
+	static long side() {
+		return SIDE;
+	}
+
+}
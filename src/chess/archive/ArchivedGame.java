@@ -0,0 +1,30 @@
+package chess.archive;
+
+import java.util.List;
+
+public class ArchivedGame {
+	
+	private final String fen;
+	private final List<String> moves;
+	private final Outcome outcome;
+	
+	public ArchivedGame(String fen, List<String> moves, Outcome outcome) {
+		this.fen = fen;
+		this.moves = moves;
+		this.outcome = outcome;
+	}
+	
+	// Starting position, or null for the standard initial setup.
+	public String getFen() {
+		return this.fen;
+	}
+	
+	public List<String> getMoves() {
+		return this.moves;
+	}
+	
+	public Outcome getOutcome() {
+		return this.outcome;
+	}
+
+}
@@ -0,0 +1,99 @@
+package chess.archive;
+
+import java.util.Objects;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.Square;
+
+public final class MoveResolver {
+
+	private MoveResolver() {
+	}
+
+	// Finds the legal move written as SAN ("Nbd7", "exd8=Q+", "O-O") or UCI ("e7e8q"),
+	// or returns Move.NONE when the token names none of the given moves.
+	public static int resolve(ChessMatch chessMatch, int[] moves, int count, String token) {
+		if (token.matches("[a-h][1-8][a-h][1-8][qrbnQRBN]?")) {
+			int move = Move.parse(token.toLowerCase());
+			for (int i=0; i<count; i++) {
+				if (moves[i] == move) {
+					return move;
+				}
+			}
+		}
+
+		String san = token.replaceAll("[+#!?x]", "");
+		if (san.equals("O-O") || san.equals("O-O-O")) {
+			boolean kingSide = san.equals("O-O");
+			for (int i=0; i<count; i++) {
+				int origin = Move.origin(moves[i]);
+				int target = Move.target(moves[i]);
+				ChessPiece piece = chessMatch.getPiece(origin);
+				if (piece.getType() == PieceType.KING && isCastling(chessMatch, piece, target, Square.column(target) - Square.column(origin))
+						&& (Square.column(target) > Square.column(origin)) == kingSide) {
+					return moves[i];
+				}
+			}
+			return Move.NONE;
+		}
+
+		String promotion = null;
+		int equals = san.indexOf('=');
+		if (equals >= 0) {
+			promotion = san.substring(equals + 1).toUpperCase();
+			san = san.substring(0, equals);
+		} else if (san.length() > 2 && "QRBN".indexOf(san.charAt(san.length() - 1)) >= 0) {
+			promotion = san.substring(san.length() - 1);
+			san = san.substring(0, san.length() - 1);
+		}
+		if (san.length() < 2) {
+			return Move.NONE;
+		}
+		PieceType type = PieceType.PAWN;
+		if ("KQRBN".indexOf(san.charAt(0)) >= 0) {
+			type = PieceType.of(san.charAt(0));
+			san = san.substring(1);
+		}
+		if (san.length() < 2) {
+			return Move.NONE;
+		}
+		String target = san.substring(san.length() - 2);
+		String disambiguation = san.substring(0, san.length() - 2);
+
+		int found = Move.NONE;
+		for (int i=0; i<count; i++) {
+			int move = moves[i];
+			String origin = Square.of(Move.origin(move)).getChessPosition().toString();
+			if (chessMatch.getPiece(Move.origin(move)).getType() != type
+					|| !Square.of(Move.target(move)).getChessPosition().toString().equals(target)
+					|| !matches(origin, disambiguation)
+					|| !Objects.equals(Move.promotion(move), promotion)) {
+				continue;
+			}
+			if (found != Move.NONE) {
+				return Move.NONE;
+			}
+			found = move;
+		}
+		return found;
+	}
+
+	private static boolean matches(String origin, String disambiguation) {
+		for (char c : disambiguation.toCharArray()) {
+			if (origin.indexOf(c) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Castling moves the king two columns, or onto its own rook in Chess960.
+	private static boolean isCastling(ChessMatch chessMatch, ChessPiece king, int target, int columns) {
+		ChessPiece captured = chessMatch.getPiece(target);
+		return Math.abs(columns) == 2 || (captured != null && captured.getColor() == king.getColor());
+	}
+
+}
@@ -0,0 +1,29 @@
+package chess.archive;
+
+public enum Outcome {
+	WHITE_WINS("1-0"),
+	DRAW("1/2-1/2"),
+	BLACK_WINS("0-1"),
+	UNKNOWN("*");
+	
+	private final String token;
+	
+	Outcome(String token) {
+		this.token = token;
+	}
+	
+	public String getToken() {
+		return this.token;
+	}
+	
+	// Returns null when the token is not a game termination marker.
+	public static Outcome parse(String token) {
+		for (Outcome outcome : values()) {
+			if (outcome.token.equals(token)) {
+				return outcome;
+			}
+		}
+		return token.equals("1/2") ? DRAW : null;
+	}
+
+}
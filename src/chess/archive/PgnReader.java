@@ -0,0 +1,140 @@
+package chess.archive;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streams games out of a PGN file one at a time. Moves may be given in SAN or in UCI
+// notation, so a plain "e2e4 e7e5 ... 1-0" line is also accepted as a game.
+public class PgnReader implements Closeable {
+
+	private final BufferedReader reader;
+	private String fen;
+	private Outcome headerOutcome = Outcome.UNKNOWN;
+	private List<String> moves = new ArrayList<>();
+	private int commentDepth;
+	private int variationDepth;
+	private boolean sawHeader;
+
+	public PgnReader(BufferedReader reader) {
+		this.reader = reader;
+	}
+
+	// Returns null at the end of the input.
+	public ArchivedGame next() throws IOException {
+		String line;
+		while ((line = this.reader.readLine()) != null) {
+			String text = line.trim();
+			if (this.commentDepth == 0 && text.startsWith("[")) {
+				if (!this.moves.isEmpty()) {
+					ArchivedGame game = finish(this.headerOutcome);
+					header(text);
+					return game;
+				}
+				header(text);
+				continue;
+			}
+			ArchivedGame game = movetext(text);
+			if (game != null) {
+				return game;
+			}
+		}
+		if (!this.moves.isEmpty() || this.sawHeader) {
+			return finish(this.headerOutcome);
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+	private void header(String text) {
+		this.sawHeader = true;
+		int space = text.indexOf(' ');
+		int open = text.indexOf('"');
+		int close = text.lastIndexOf('"');
+		if (space < 0 || open < 0 || close <= open) {
+			return;
+		}
+		String name = text.substring(1, space);
+		String value = text.substring(open + 1, close);
+		if (name.equals("FEN")) {
+			this.fen = value;
+		} else if (name.equals("Result")) {
+			Outcome outcome = Outcome.parse(value);
+			this.headerOutcome = (outcome == null) ? Outcome.UNKNOWN : outcome;
+		}
+	}
+
+	// Consumes one line of movetext, returning the game if its termination marker was found.
+	private ArchivedGame movetext(String text) {
+		StringBuilder token = new StringBuilder();
+		for (int i=0; i<=text.length(); i++) {
+			char c = (i < text.length()) ? text.charAt(i) : ' ';
+			if (this.commentDepth > 0) {
+				if (c == '}') {
+					this.commentDepth = 0;
+				}
+				continue;
+			}
+			if (c == '{' || c == ';' || c == '(' || c == ')' || Character.isWhitespace(c)) {
+				if (token.length() > 0) {
+					ArchivedGame game = token(token.toString());
+					token.setLength(0);
+					if (game != null) {
+						return game;
+					}
+				}
+				if (c == '{') {
+					this.commentDepth = 1;
+				} else if (c == ';') {
+					return null;
+				} else if (c == '(') {
+					this.variationDepth ++;
+				} else if (c == ')') {
+					this.variationDepth = Math.max(0, this.variationDepth - 1);
+				}
+				continue;
+			}
+			token.append(c);
+		}
+		return null;
+	}
+
+	private ArchivedGame token(String token) {
+		if (this.variationDepth > 0 || token.startsWith("$")) {
+			return null;
+		}
+		Outcome outcome = Outcome.parse(token);
+		if (outcome != null) {
+			return finish((outcome == Outcome.UNKNOWN) ? this.headerOutcome : outcome);
+		}
+		if (token.startsWith("0-0")) {
+			this.moves.add(token.replace('0', 'O'));
+			return null;
+		}
+		int start = 0;
+		while (start < token.length() && (Character.isDigit(token.charAt(start)) || token.charAt(start) == '.')) {
+			start ++;
+		}
+		if (start < token.length()) {
+			this.moves.add(token.substring(start));
+		}
+		return null;
+	}
+
+	private ArchivedGame finish(Outcome outcome) {
+		ArchivedGame game = new ArchivedGame(this.fen, this.moves, outcome);
+		this.fen = null;
+		this.headerOutcome = Outcome.UNKNOWN;
+		this.moves = new ArrayList<>();
+		this.variationDepth = 0;
+		this.sawHeader = false;
+		return game;
+	}
+
+}
@@ -0,0 +1,263 @@
+package chess.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+
+// Replays game archives and counts every position reached (once per game) with its outcomes.
+// Counters live in an off-heap PositionTable that is spilled to sorted run files whenever it
+// fills up; the runs are then merged into a single PositionFile.
+public class PositionAggregator implements Closeable {
+
+	private static final int FAN_IN = 64;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final PositionTable table;
+	private final int maxPlies;
+	private final Path directory;
+	private final List<Path> runs = new ArrayList<>();
+	private final int[] moves = new int[Move.MAX_MOVES];
+	private long[] seen = new long[256];
+	private long games;
+	private long skippedGames;
+	private long positions;
+	private int spills;
+
+	// maxPlies limits how deep into each game positions are counted, 0 meaning the whole game.
+	public PositionAggregator(int megabytes, int maxPlies, Path directory) {
+		this.table = new PositionTable(megabytes);
+		this.maxPlies = maxPlies;
+		this.directory = directory;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: PositionAggregator <output> <megabytes> [maxPlies] <games.pgn>...");
+			return;
+		}
+		Path output = Paths.get(args[0]);
+		int megabytes = Integer.parseInt(args[1]);
+		int maxPlies = (args.length > 2 && args[2].matches("\\d+")) ? Integer.parseInt(args[2]) : 0;
+		int first = (args.length > 2 && args[2].matches("\\d+")) ? 3 : 2;
+
+		long start = System.nanoTime();
+		Path directory = Files.createTempDirectory(output.toAbsolutePath().getParent(), "positions");
+		try (PositionAggregator aggregator = new PositionAggregator(megabytes, maxPlies, directory)) {
+			for (int i=first; i<args.length; i++) {
+				try (PgnReader reader = new PgnReader(Files.newBufferedReader(Paths.get(args[i])))) {
+					ArchivedGame game;
+					while ((game = reader.next()) != null) {
+						aggregator.add(game);
+					}
+				}
+			}
+			long distinct = aggregator.finish(output);
+			long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+			System.out.println("Games: " + aggregator.games + " (" + aggregator.skippedGames + " with illegal moves)");
+			System.out.println("Positions: " + aggregator.positions + ", distinct: " + distinct);
+			System.out.println("Spilled runs: " + aggregator.spills);
+			System.out.println("Time: " + millis + " ms");
+		} finally {
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	public void add(ArchivedGame game) throws IOException {
+		ChessMatch chessMatch;
+		try {
+			chessMatch = (game.getFen() == null) ? new ChessMatch() : new ChessMatch(game.getFen());
+		} catch (ChessException e) {
+			this.skippedGames ++;
+			return;
+		}
+		this.games ++;
+		int seenCount = 0;
+		List<String> tokens = game.getMoves();
+		for (int ply=0; ; ply++) {
+			long key = chessMatch.getPositionKey();
+			if (!contains(seenCount, key)) {
+				if (seenCount == this.seen.length) {
+					this.seen = Arrays.copyOf(this.seen, seenCount * 2);
+				}
+				this.seen[seenCount++] = key;
+				if (this.table.isFull()) {
+					spill();
+				}
+				this.table.add(key, game.getOutcome());
+				this.positions ++;
+			}
+			if (ply == tokens.size() || (this.maxPlies > 0 && ply == this.maxPlies)) {
+				break;
+			}
+			int count = chessMatch.generateMoves(this.moves);
+			int move = MoveResolver.resolve(chessMatch, this.moves, count, tokens.get(ply));
+			if (move == Move.NONE) {
+				this.skippedGames ++;
+				break;
+			}
+			chessMatch.doMove(move);
+		}
+	}
+
+	public long getGames() {
+		return this.games;
+	}
+
+	public long getPositions() {
+		return this.positions;
+	}
+
+	// Spills what is left in memory and merges every run into the output, returning
+	// the number of distinct positions written.
+	public long finish(Path output) throws IOException {
+		if (this.table.size() > 0 || this.runs.isEmpty()) {
+			spill();
+		}
+		while (this.runs.size() > FAN_IN) {
+			List<Path> batch = new ArrayList<>(this.runs.subList(0, FAN_IN));
+			this.runs.subList(0, FAN_IN).clear();
+			Path merged = Files.createTempFile(this.directory, "merge", ".run");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(merged), BUFFER_SIZE))) {
+				merge(batch, out);
+			}
+			this.runs.add(merged);
+		}
+
+		long count;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), BUFFER_SIZE))) {
+			out.writeInt(PositionFile.MAGIC);
+			out.writeInt(PositionFile.VERSION);
+			out.writeLong(0);
+			count = merge(this.runs, out);
+		}
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(8).putLong(0, count);
+			channel.write(header, 8);
+		}
+		this.runs.clear();
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Path run : this.runs) {
+			Files.deleteIfExists(run);
+		}
+		this.runs.clear();
+	}
+
+	private void spill() throws IOException {
+		Path run = Files.createTempFile(this.directory, "spill", ".run");
+		try (FileChannel channel = FileChannel.open(run, StandardOpenOption.WRITE)) {
+			this.table.spill(channel);
+		}
+		this.runs.add(run);
+		this.spills ++;
+	}
+
+	// Merges sorted runs, summing the counters of equal keys, and deletes them afterwards.
+	private static long merge(List<Path> runs, DataOutputStream out) throws IOException {
+		PriorityQueue<Run> queue = new PriorityQueue<>((a, b) -> Long.compareUnsigned(a.record[0], b.record[0]));
+		List<Run> open = new ArrayList<>();
+		try {
+			for (Path path : runs) {
+				Run run = new Run(path);
+				open.add(run);
+				if (run.advance()) {
+					queue.add(run);
+				}
+			}
+			long count = 0;
+			long[] current = null;
+			while (!queue.isEmpty()) {
+				Run run = queue.poll();
+				if (current != null && current[0] == run.record[0]) {
+					for (int field=1; field<current.length; field++) {
+						current[field] += run.record[field];
+					}
+				} else {
+					if (current != null) {
+						write(out, current);
+						count ++;
+					}
+					current = run.record.clone();
+				}
+				if (run.advance()) {
+					queue.add(run);
+				}
+			}
+			if (current != null) {
+				write(out, current);
+				count ++;
+			}
+			return count;
+		} finally {
+			for (Run run : open) {
+				run.close();
+			}
+			for (Path path : runs) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	private static void write(DataOutputStream out, long[] record) throws IOException {
+		for (long value : record) {
+			out.writeLong(value);
+		}
+	}
+
+	private boolean contains(int count, long key) {
+		for (int i=0; i<count; i++) {
+			if (this.seen[i] == key) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Run implements Closeable {
+
+		private final DataInputStream in;
+		private final long[] record = new long[PositionTable.RECORD_SIZE / 8];
+
+		Run(Path path) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+		}
+
+		boolean advance() throws IOException {
+			try {
+				for (int field=0; field<this.record.length; field++) {
+					this.record[field] = this.in.readLong();
+				}
+				return true;
+			} catch (EOFException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+
+}
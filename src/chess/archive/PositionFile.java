@@ -0,0 +1,75 @@
+package chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Sorted position statistics: a 16-byte header (magic, version, record count) followed by
+// PositionTable records in ascending unsigned key order, looked up by binary search.
+public class PositionFile implements Closeable {
+
+	public static final int MAGIC = 0x43505331;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+
+	private final FileChannel channel;
+	private final long count;
+	private final ByteBuffer record = ByteBuffer.allocate(PositionTable.RECORD_SIZE);
+
+	public PositionFile(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(header, 0);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			this.channel.close();
+			throw new IOException("Not a position file: " + path);
+		}
+		this.count = header.getLong(8);
+	}
+
+	public long size() {
+		return this.count;
+	}
+
+	// Returns games, white wins, draws and black wins for the key, or null if it never occurred.
+	public synchronized long[] lookup(long key) throws IOException {
+		if (key == 0) {
+			key = 1;
+		}
+		long low = 0;
+		long high = this.count - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			readFully(this.record, HEADER_SIZE + middle * PositionTable.RECORD_SIZE);
+			int comparison = Long.compareUnsigned(this.record.getLong(0), key);
+			if (comparison == 0) {
+				return new long[] {this.record.getLong(8), this.record.getLong(16),
+						this.record.getLong(24), this.record.getLong(32)};
+			}
+			if (comparison < 0) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		buffer.clear();
+		while (buffer.hasRemaining()) {
+			if (this.channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of position file");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+package chess.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Open-addressing table of position counters kept in a direct buffer, so its size is
+// bounded by -XX:MaxDirectMemorySize rather than by the heap and it costs the GC nothing.
+// Each record is key, games, white wins, draws and black wins as five longs.
+public class PositionTable {
+
+	public static final int RECORD_SIZE = 40;
+	public static final int GAMES = 1;
+	public static final int WHITE_WINS = 2;
+	public static final int DRAWS = 3;
+	public static final int BLACK_WINS = 4;
+
+	private static final int MAX_CAPACITY = 1 << 25;
+	private static final double LOAD_FACTOR = 0.75;
+
+	private final ByteBuffer buffer;
+	private final int mask;
+	private final int limit;
+	private int size;
+
+	public PositionTable(int megabytes) {
+		long records = Math.max(1024, (long)megabytes * 1024 * 1024 / RECORD_SIZE);
+		int capacity = Integer.highestOneBit((int)Math.min(records, MAX_CAPACITY));
+		this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+		this.mask = capacity - 1;
+		this.limit = (int)(capacity * LOAD_FACTOR);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isFull() {
+		return this.size >= this.limit;
+	}
+
+	// Key 0 marks an empty slot, so a position hashing to 0 shares the counters of key 1.
+	public void add(long key, Outcome outcome) {
+		if (key == 0) {
+			key = 1;
+		}
+		int slot = (int)(mix(key) & this.mask);
+		while (true) {
+			long stored = get(slot, 0);
+			if (stored == key) {
+				break;
+			}
+			if (stored == 0) {
+				if (isFull()) {
+					throw new IllegalStateException("Position table is full");
+				}
+				set(slot, 0, key);
+				this.size ++;
+				break;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		increment(slot, GAMES);
+		switch (outcome) {
+		case WHITE_WINS:
+			increment(slot, WHITE_WINS);
+			break;
+		case DRAW:
+			increment(slot, DRAWS);
+			break;
+		case BLACK_WINS:
+			increment(slot, BLACK_WINS);
+			break;
+		default:
+			break;
+		}
+	}
+
+	// Moves the records to the front of the buffer sorted by unsigned key and writes them out,
+	// then empties the table for the next run.
+	public void spill(WritableByteChannel channel) throws IOException {
+		int count = 0;
+		for (int slot=0; slot<=this.mask; slot++) {
+			if (get(slot, 0) != 0) {
+				if (slot != count) {
+					copy(slot, count);
+				}
+				count ++;
+			}
+		}
+		sort(0, count - 1);
+		ByteBuffer records = this.buffer.duplicate();
+		records.position(0).limit(count * RECORD_SIZE);
+		while (records.hasRemaining()) {
+			channel.write(records);
+		}
+		clear();
+	}
+
+	public void clear() {
+		for (int i=0; i<this.buffer.capacity(); i+=8) {
+			this.buffer.putLong(i, 0);
+		}
+		this.size = 0;
+	}
+
+	private void sort(int low, int high) {
+		while (high - low > 16) {
+			int middle = (low + high) >>> 1;
+			long pivot = median(get(low, 0), get(middle, 0), get(high, 0));
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (Long.compareUnsigned(get(i, 0), pivot) < 0) {
+					i ++;
+				}
+				while (Long.compareUnsigned(get(j, 0), pivot) > 0) {
+					j --;
+				}
+				if (i <= j) {
+					swap(i++, j--);
+				}
+			}
+			// recurse into the smaller half to keep the stack logarithmic
+			if (j - low < high - i) {
+				sort(low, j);
+				low = i;
+			} else {
+				sort(i, high);
+				high = j;
+			}
+		}
+		for (int i=low+1; i<=high; i++) {
+			for (int j=i; j>low && Long.compareUnsigned(get(j - 1, 0), get(j, 0)) > 0; j--) {
+				swap(j - 1, j);
+			}
+		}
+	}
+
+	private static long median(long a, long b, long c) {
+		if (Long.compareUnsigned(a, b) > 0) {
+			long t = a;
+			a = b;
+			b = t;
+		}
+		if (Long.compareUnsigned(b, c) > 0) {
+			b = c;
+		}
+		return (Long.compareUnsigned(a, b) > 0) ? a : b;
+	}
+
+	private void swap(int a, int b) {
+		for (int field=0; field<5; field++) {
+			long value = get(a, field);
+			set(a, field, get(b, field));
+			set(b, field, value);
+		}
+	}
+
+	private void copy(int from, int to) {
+		for (int field=0; field<5; field++) {
+			set(to, field, get(from, field));
+			set(from, field, 0);
+		}
+	}
+
+	private void increment(int slot, int field) {
+		set(slot, field, get(slot, field) + 1);
+	}
+
+	private long get(int slot, int field) {
+		return this.buffer.getLong(slot * RECORD_SIZE + field * 8);
+	}
+
+	private void set(int slot, int field, long value) {
+		this.buffer.putLong(slot * RECORD_SIZE + field * 8, value);
+	}
+
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		return key ^ (key >>> 33);
+	}
+
+}
@@ -0,0 +1,28 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("chess.Operation")
+@Label("Chess Operation")
+@Category("Chess")
+@StackTrace(false)
+class ChessOperationEvent extends Event {
+	
+	@Label("Operation")
+	String operation;
+	
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+	
+	@Label("Allocated")
+	@DataAmount
+	long allocated;
+
+}
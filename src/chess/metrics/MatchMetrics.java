@@ -0,0 +1,118 @@
+package chess.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jdk.jfr.EventType;
+
+public final class MatchMetrics {
+
+	private static final OperationStats[] STATS = new OperationStats[Operation.values().length];
+	private static final EventType EVENT_TYPE = EventType.getEventType(ChessOperationEvent.class);
+	private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+	private static final ThreadLocal<Frames> FRAMES = ThreadLocal.withInitial(Frames::new);
+
+	private static volatile boolean enabled = Boolean.getBoolean("chess.metrics");
+	private static volatile boolean allocationTracking = Boolean.getBoolean("chess.metrics.allocation") && THREADS != null;
+
+	static {
+		for (Operation operation : Operation.values()) {
+			STATS[operation.ordinal()] = new OperationStats(operation);
+		}
+	}
+
+	private MatchMetrics() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean value) {
+		enabled = value;
+	}
+
+	public static void setAllocationTracking(boolean value) {
+		allocationTracking = value && THREADS != null;
+	}
+
+	// Returns 0 when instrumentation is off, so the matching stop() call is a single branch.
+	public static long start() {
+		if (!enabled) {
+			return 0;
+		}
+		Frames frames = FRAMES.get();
+		frames.push(allocationTracking ? THREADS.getCurrentThreadAllocatedBytes() : -1);
+		long now = System.nanoTime();
+		return (now == 0) ? 1 : now;
+	}
+
+	public static void stop(Operation operation, long start) {
+		if (start == 0) {
+			return;
+		}
+		long nanos = System.nanoTime() - start;
+		long mark = FRAMES.get().pop();
+		long allocated = (mark < 0) ? -1 : THREADS.getCurrentThreadAllocatedBytes() - mark;
+		STATS[operation.ordinal()].record(nanos, allocated);
+
+		if (EVENT_TYPE.isEnabled()) {
+			ChessOperationEvent event = new ChessOperationEvent();
+			event.operation = operation.name();
+			event.latency = nanos;
+			event.allocated = Math.max(allocated, 0);
+			event.commit();
+		}
+	}
+
+	public static OperationStats stats(Operation operation) {
+		return STATS[operation.ordinal()];
+	}
+
+	public static List<OperationStats> snapshot() {
+		return new ArrayList<>(Arrays.asList(STATS));
+	}
+
+	public static void reset() {
+		for (OperationStats stats : STATS) {
+			stats.reset();
+		}
+	}
+
+	public static String report() {
+		StringBuilder sb = new StringBuilder();
+		for (OperationStats stats : STATS) {
+			sb.append(stats).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+
+	private static com.sun.management.ThreadMXBean threadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			return (com.sun.management.ThreadMXBean) bean;
+		}
+		return null;
+	}
+
+	private static class Frames {
+
+		private long[] marks = new long[16];
+		private int depth;
+
+		void push(long mark) {
+			if (this.depth == this.marks.length) {
+				this.marks = Arrays.copyOf(this.marks, this.depth * 2);
+			}
+			this.marks[this.depth++] = mark;
+		}
+
+		long pop() {
+			return (this.depth == 0) ? -1 : this.marks[--this.depth];
+		}
+	}
+
+}
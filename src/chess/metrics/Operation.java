@@ -0,0 +1,13 @@
+package chess.metrics;
+
+public enum Operation {
+	
+	PERFORM_CHESS_MOVE,
+	POSSIBLE_MOVES,
+	TEST_CHECK,
+	TEST_CHECK_MATE,
+	MAKE_MOVE,
+	UNDO_MOVE,
+	PIECE_MOVES;
+
+}
@@ -0,0 +1,81 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationStats {
+	
+	private static final int BUCKETS = 64;
+	
+	private final Operation operation;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAdder allocatedBytes = new LongAdder();
+	private final LongAdder[] histogram = new LongAdder[BUCKETS];
+	
+	OperationStats(Operation operation) {
+		this.operation = operation;
+		for (int i=0; i<BUCKETS; i++) {
+			this.histogram[i] = new LongAdder();
+		}
+	}
+	
+	void record(long nanos, long allocated) {
+		this.count.increment();
+		this.totalNanos.add(nanos);
+		if (allocated > 0) {
+			this.allocatedBytes.add(allocated);
+		}
+		this.histogram[BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 1))].increment();
+	}
+	
+	void reset() {
+		this.count.reset();
+		this.totalNanos.reset();
+		this.allocatedBytes.reset();
+		for (LongAdder bucket : this.histogram) {
+			bucket.reset();
+		}
+	}
+	
+	public Operation getOperation() {
+		return this.operation;
+	}
+	
+	public long getCount() {
+		return this.count.sum();
+	}
+	
+	public long getTotalNanos() {
+		return this.totalNanos.sum();
+	}
+	
+	public long getAllocatedBytes() {
+		return this.allocatedBytes.sum();
+	}
+	
+	// Upper bound of the power-of-two latency bucket holding the given percentile.
+	public long getPercentileNanos(double percentile) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * percentile / 100.0);
+		long seen = 0;
+		for (int i=0; i<BUCKETS; i++) {
+			seen += this.histogram[i].sum();
+			if (seen >= rank) {
+				return (i == BUCKETS - 1) ? Long.MAX_VALUE : (1L << i) - 1;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+	
+	@Override
+	public String toString() {
+		long calls = getCount();
+		return String.format("%-20s calls=%d mean=%dns p50<=%dns p99<=%dns alloc/call=%dB",
+				this.operation, calls, (calls == 0) ? 0 : getTotalNanos() / calls,
+				getPercentileNanos(50), getPercentileNanos(99), (calls == 0) ? 0 : getAllocatedBytes() / calls);
+	}
+
+}
@@ -1,73 +1,21 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
-public class Knight extends ChessPiece {
+public final class Knight extends ChessPiece {
 
 	public Knight(Board board, Color color) {
-		super(board, color);
-		// TODO Auto-generated constructor stub
+		super(board, color, PieceType.KNIGHT);
 	}
 	
-	@Override
-	public String toString() {
-		return "N";
-	}
-
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean [][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		Position p = new Position(0, 0);
-		
-		p.setValues(position.getRow() - 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() - 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() - 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() - 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
+		markSteps(matrix, getTables().knight(position.getRow(), position.getColumn()));
 		return matrix;
 	}
-	
-	private boolean canMove(Position position) {
-		ChessPiece piece = (ChessPiece)getBoard().piece(position);
-		return piece == null || piece.getColor() != getColor();
-	}
 
 }
@@ -5,21 +5,17 @@ import boardgame.Position;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
-public class Pawn extends ChessPiece {
+public final class Pawn extends ChessPiece {
 	
 	private ChessMatch chessMatch;
 
 	public Pawn(Board board, Color color, ChessMatch chessMatch) {
-		super(board, color);
+		super(board, color, PieceType.PAWN);
 		this.chessMatch = chessMatch;
 	}
 	
-	@Override
-	public String toString() {
-		return "P";
-	}
-
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean [][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
@@ -32,10 +28,9 @@ public class Pawn extends ChessPiece {
 			}
 		
 			p.setValues(position.getRow() - 2, position.getColumn());
-			Position p2 = new Position(position.getRow() - 1, position.getColumn());
 			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) 
-					&& getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p)
-					&& getMoveCount() == 0) {
+					&& getBoard().piece(position.getRow() - 1, position.getColumn()) == null
+					&& getMoveCount() == 0 && chessMatch.getVariant().hasDoublePawnStep()) {
 				matrix[p.getRow()][p.getColumn()] = true;
 			}
 			
@@ -49,16 +44,16 @@ public class Pawn extends ChessPiece {
 				matrix[p.getRow()][p.getColumn()] = true;
 			}
 			
-			if (position.getRow() == 3) {
-				Position leftPassant = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(leftPassant) && isThereOpponentPiece(leftPassant)
-						&& getBoard().piece(leftPassant) == chessMatch.getEnPassantVunerable()) {
-					matrix[leftPassant.getRow() - 1][leftPassant.getColumn()] = true;
+			if (position.getRow() == chessMatch.getVariant().enPassantRow(getColor())) {
+				if (getBoard().positionExists(position.getRow(), position.getColumn() - 1)
+						&& getBoard().piece(position.getRow(), position.getColumn() - 1) == chessMatch.getEnPassantVunerable()
+						&& isThereOpponentPiece(getBoard().position(position.getRow(), position.getColumn() - 1))) {
+					matrix[position.getRow() - 1][position.getColumn() - 1] = true;
 				}
-				Position rightPassant = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(rightPassant) && isThereOpponentPiece(rightPassant)
-						&& getBoard().piece(rightPassant) == chessMatch.getEnPassantVunerable()) {
-					matrix[rightPassant.getRow() - 1][rightPassant.getColumn()] = true;
+				if (getBoard().positionExists(position.getRow(), position.getColumn() + 1)
+						&& getBoard().piece(position.getRow(), position.getColumn() + 1) == chessMatch.getEnPassantVunerable()
+						&& isThereOpponentPiece(getBoard().position(position.getRow(), position.getColumn() + 1))) {
+					matrix[position.getRow() - 1][position.getColumn() + 1] = true;
 				}
 			}
 		} else {
@@ -68,10 +63,9 @@ public class Pawn extends ChessPiece {
 			}
 		
 			p.setValues(position.getRow() + 2, position.getColumn());
-			Position p2 = new Position(position.getRow() + 1, position.getColumn());
 			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) 
-					&& getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p)
-					&& getMoveCount() == 0) {
+					&& getBoard().piece(position.getRow() + 1, position.getColumn()) == null
+					&& getMoveCount() == 0 && chessMatch.getVariant().hasDoublePawnStep()) {
 				matrix[p.getRow()][p.getColumn()] = true;
 			}
 			
@@ -85,16 +79,16 @@ public class Pawn extends ChessPiece {
 				matrix[p.getRow()][p.getColumn()] = true;
 			}
 			
-			if (position.getRow() == 4) {
-				Position leftPassant = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(leftPassant) && isThereOpponentPiece(leftPassant)
-						&& getBoard().piece(leftPassant) == chessMatch.getEnPassantVunerable()) {
-					matrix[leftPassant.getRow() + 1][leftPassant.getColumn()] = true;
+			if (position.getRow() == chessMatch.getVariant().enPassantRow(getColor())) {
+				if (getBoard().positionExists(position.getRow(), position.getColumn() - 1)
+						&& getBoard().piece(position.getRow(), position.getColumn() - 1) == chessMatch.getEnPassantVunerable()
+						&& isThereOpponentPiece(getBoard().position(position.getRow(), position.getColumn() - 1))) {
+					matrix[position.getRow() + 1][position.getColumn() - 1] = true;
 				}
-				Position rightPassant = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(rightPassant) && isThereOpponentPiece(rightPassant)
-						&& getBoard().piece(rightPassant) == chessMatch.getEnPassantVunerable()) {
-					matrix[rightPassant.getRow() + 1][rightPassant.getColumn()] = true;
+				if (getBoard().positionExists(position.getRow(), position.getColumn() + 1)
+						&& getBoard().piece(position.getRow(), position.getColumn() + 1) == chessMatch.getEnPassantVunerable()
+						&& isThereOpponentPiece(getBoard().position(position.getRow(), position.getColumn() + 1))) {
+					matrix[position.getRow() + 1][position.getColumn() + 1] = true;
 				}
 			}
 		}
@@ -1,62 +1,22 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.MoveTables;
+import chess.PieceType;
 
-public class Rook extends ChessPiece {
+public final class Rook extends ChessPiece {
 
 	public Rook(Board board, Color color) {
-		super(board, color);
+		super(board, color, PieceType.ROOK);
 	}
 	
-	@Override
-	public String toString() {
-		return "R";
-	}
-
 	@Override
 	public boolean[][] possibleMoves() {
 		boolean [][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		Position p = new Position(0, 0);
-		
-		p.setValues(position.getRow() - 1, position.getColumn());
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setRow(p.getRow() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow(), position.getColumn() -1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setColumn(p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 1, position.getColumn());
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setRow(p.getRow() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow(), position.getColumn() +1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setColumn(p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-		
+		markRays(matrix, getTables().rays(position.getRow(), position.getColumn()),
+				MoveTables.ORTHOGONAL_FIRST, MoveTables.ORTHOGONAL_LAST);
 		return matrix;
 	}
 
@@ -0,0 +1,126 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Square;
+
+public class LocalTablebase implements Tablebase {
+
+	private Map<Character, MappedByteBuffer> tables = new HashMap<>();
+
+	public LocalTablebase(Path directory) throws IOException {
+		for (char piece : TablebaseGenerator.PIECES.toCharArray()) {
+			Path path = directory.resolve(TablebaseFile.fileName(piece));
+			if (Files.exists(path)) {
+				this.tables.put(piece, TablebaseFile.map(path, piece));
+			}
+		}
+	}
+
+	@Override
+	public boolean covers(ChessMatch chessMatch) {
+		return entry(chessMatch) != -2;
+	}
+
+	@Override
+	public Wdl probeWdl(ChessMatch chessMatch) {
+		int entry = coveredEntry(chessMatch);
+		if (entry == 0) {
+			return Wdl.DRAW;
+		}
+		return ((entry & 1) == 0) ? Wdl.WIN : Wdl.LOSS;
+	}
+
+	@Override
+	public int probeDtz(ChessMatch chessMatch) {
+		int entry = coveredEntry(chessMatch);
+		if (entry == 0) {
+			return 0;
+		}
+		int dtz = (entry >> 1) - 1;
+		return ((entry & 1) == 0) ? dtz : -dtz;
+	}
+
+	private int coveredEntry(ChessMatch chessMatch) {
+		int entry = entry(chessMatch);
+		if (entry == -2) {
+			throw new TablebaseException("Tablebase error: Position is not covered by the local tables!");
+		}
+		return entry;
+	}
+
+	// Returns -2 when the position is not covered, 0 for a draw and otherwise the stored
+	// entry shifted left by one, with the low bit set when the side to move is losing.
+	private int entry(ChessMatch chessMatch) {
+		ChessPiece[][] pieces = chessMatch.getPieces();
+		int whiteKing = -1;
+		int blackKing = -1;
+		int square = -1;
+		char code = 0;
+		Color strongSide = null;
+		for (int i=0; i<pieces.length; i++) {
+			for (int j=0; j<pieces[i].length; j++) {
+				ChessPiece piece = pieces[i][j];
+				if (piece == null) {
+					continue;
+				}
+				char pieceCode = piece.getType().getCode();
+				if (pieceCode == 'K') {
+					if (piece.getColor() == Color.WHITE) {
+						whiteKing = Square.index(i, j);
+					} else {
+						blackKing = Square.index(i, j);
+					}
+				} else if (strongSide != null) {
+					return -2;
+				} else {
+					strongSide = piece.getColor();
+					code = pieceCode;
+					square = Square.index(i, j);
+				}
+			}
+		}
+		if (whiteKing < 0 || blackKing < 0 || pieces.length != 8) {
+			return -2;
+		}
+		if (strongSide == null) {
+			return 0;
+		}
+		MappedByteBuffer table = this.tables.get(code);
+		if (table == null) {
+			return -2;
+		}
+		if (chessMatch.getCheckMate()) {
+			// the match keeps the winner as current player, but the mated side is to move
+			return (1 << 1) | 1;
+		}
+
+		int sideToMove = (chessMatch.getCurrentPlayer() == Color.WHITE) ? 0 : 1;
+		if (strongSide == Color.BLACK) {
+			int king = mirror(blackKing);
+			blackKing = mirror(whiteKing);
+			whiteKing = king;
+			square = mirror(square);
+			sideToMove = 1 - sideToMove;
+		}
+		int value = table.get(TablebaseFile.HEADER_SIZE
+				+ TablebaseFile.index(sideToMove, whiteKing, blackKing, square)) & 0xff;
+		if (value == 0) {
+			return 0;
+		}
+		return (value << 1) | sideToMove;
+	}
+
+	private static int mirror(int square) {
+		return (7 - square / 8) * 8 + square % 8;
+	}
+
+}
@@ -0,0 +1,15 @@
+package chess.tablebase;
+
+import chess.ChessMatch;
+
+public interface Tablebase {
+	
+	boolean covers(ChessMatch chessMatch);
+	
+	Wdl probeWdl(ChessMatch chessMatch);
+	
+	// Plies to the next zeroing move (pawn move, capture or mate): positive when the
+	// side to move wins, negative when it loses and zero for a draw.
+	int probeDtz(ChessMatch chessMatch);
+
+}
@@ -0,0 +1,11 @@
+package chess.tablebase;
+
+public class TablebaseException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public TablebaseException(String msg) {
+		super(msg);
+	}
+
+}
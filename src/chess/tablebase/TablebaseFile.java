@@ -0,0 +1,61 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// File layout: a 16 byte header (magic, version, piece code, entry count) followed by one
+// unsigned byte per entry. An entry holds 0 for a draw or illegal position, otherwise the
+// distance to zeroing plus one.
+class TablebaseFile {
+
+	static final int MAGIC = 0x43544231;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ENTRIES = 2 * 64 * 64 * 64;
+	static final String EXTENSION = ".ctb";
+
+	static String fileName(char piece) {
+		return "K" + piece + "K" + EXTENSION;
+	}
+
+	static int index(int sideToMove, int whiteKing, int blackKing, int piece) {
+		return ((sideToMove * 64 + whiteKing) * 64 + blackKing) * 64 + piece;
+	}
+
+	static void write(Path path, char piece, byte[] entries) throws IOException {
+		if (entries.length != ENTRIES) {
+			throw new TablebaseException("Tablebase error: Wrong number of entries for " + fileName(piece));
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(piece).putInt(entries.length).flip();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			ByteBuffer data = ByteBuffer.wrap(entries);
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+		}
+	}
+
+	static MappedByteBuffer map(Path path, char piece) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() != HEADER_SIZE + ENTRIES) {
+				throw new TablebaseException("Tablebase error: " + path + " has an invalid size!");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+					|| buffer.getInt(8) != piece || buffer.getInt(12) != ENTRIES) {
+				throw new TablebaseException("Tablebase error: " + path + " has an invalid header!");
+			}
+			return buffer;
+		}
+	}
+
+}
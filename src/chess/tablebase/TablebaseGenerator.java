@@ -0,0 +1,314 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TablebaseGenerator {
+
+	public static final String PIECES = "QRBNP";
+
+	private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+	private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+	private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+	private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+	private static final int NORMAL = 0;
+	private static final int ZEROING = 1;
+	private static final int QUEEN_PROMOTION = 2;
+	private static final int ROOK_PROMOTION = 3;
+	private static final int CAPTURE = 4;
+
+	private static final byte UNKNOWN = 0;
+	private static final byte WIN = 1;
+	private static final byte LOSS = 2;
+
+	private final char piece;
+	private final byte[] queenTable;
+	private final byte[] rookTable;
+
+	private final int[] childIndex = new int[64];
+	private final int[] childKind = new int[64];
+
+	public TablebaseGenerator(char piece, byte[] queenTable, byte[] rookTable) {
+		if (PIECES.indexOf(piece) < 0) {
+			throw new TablebaseException("Tablebase error: Unsupported piece " + piece);
+		}
+		if (piece == 'P' && (queenTable == null || rookTable == null)) {
+			throw new TablebaseException("Tablebase error: KPK needs the KQK and KRK tables!");
+		}
+		this.piece = piece;
+		this.queenTable = queenTable;
+		this.rookTable = rookTable;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length > 0 ? args[0] : "tablebases");
+		generateAll(directory);
+	}
+
+	public static void generateAll(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Map<Character, byte[]> tables = new HashMap<>();
+		for (char piece : PIECES.toCharArray()) {
+			TablebaseGenerator generator = new TablebaseGenerator(piece, tables.get('Q'), tables.get('R'));
+			byte[] entries = generator.generate();
+			tables.put(piece, entries);
+			TablebaseFile.write(directory.resolve(TablebaseFile.fileName(piece)), piece, entries);
+		}
+	}
+
+	public byte[] generate() {
+		boolean[] legal = new boolean[TablebaseFile.ENTRIES];
+		byte[] wdl = new byte[TablebaseFile.ENTRIES];
+		int[] dtz = new int[TablebaseFile.ENTRIES];
+
+		for (int i=0; i<TablebaseFile.ENTRIES; i++) {
+			legal[i] = isLegal(i);
+			dtz[i] = -1;
+			if (legal[i] && sideToMove(i) == 1 && generateMoves(i) == 0
+					&& attacks(piece(i), blackKing(i), whiteKing(i))) {
+				wdl[i] = LOSS;
+				dtz[i] = 0;
+			}
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i=0; i<TablebaseFile.ENTRIES; i++) {
+				if (!legal[i] || wdl[i] != UNKNOWN) {
+					continue;
+				}
+				int count = generateMoves(i);
+				if (sideToMove(i) == 0) {
+					for (int m=0; m<count; m++) {
+						if (isLostChild(wdl, m)) {
+							wdl[i] = WIN;
+							changed = true;
+							break;
+						}
+					}
+				} else if (count > 0) {
+					boolean lost = true;
+					for (int m=0; m<count && lost; m++) {
+						lost = childKind[m] == NORMAL && wdl[childIndex[m]] == WIN;
+					}
+					if (lost) {
+						wdl[i] = LOSS;
+						changed = true;
+					}
+				}
+			}
+		}
+
+		for (int n=1; ; n++) {
+			boolean resolved = false;
+			for (int i=0; i<TablebaseFile.ENTRIES; i++) {
+				if (wdl[i] == UNKNOWN || dtz[i] >= 0) {
+					continue;
+				}
+				int count = generateMoves(i);
+				if (sideToMove(i) == 0) {
+					for (int m=0; m<count; m++) {
+						boolean zeroing = childKind[m] != NORMAL && n == 1;
+						boolean next = childKind[m] == NORMAL && dtz[childIndex[m]] == n - 1;
+						if (isLostChild(wdl, m) && (zeroing || next)) {
+							dtz[i] = n;
+							resolved = true;
+							break;
+						}
+					}
+				} else {
+					boolean done = true;
+					for (int m=0; m<count && done; m++) {
+						int value = dtz[childIndex[m]];
+						done = value >= 0 && value < n;
+					}
+					if (done) {
+						dtz[i] = n;
+						resolved = true;
+					}
+				}
+			}
+			if (!resolved) {
+				break;
+			}
+		}
+
+		byte[] entries = new byte[TablebaseFile.ENTRIES];
+		for (int i=0; i<TablebaseFile.ENTRIES; i++) {
+			if (wdl[i] != UNKNOWN && dtz[i] >= 0) {
+				entries[i] = (byte) Math.min(dtz[i] + 1, 255);
+			}
+		}
+		return entries;
+	}
+
+	private boolean isLostChild(byte[] wdl, int m) {
+		switch (childKind[m]) {
+		case NORMAL:
+		case ZEROING:
+			return wdl[childIndex[m]] == LOSS;
+		case QUEEN_PROMOTION:
+			return this.queenTable[childIndex[m]] != 0;
+		case ROOK_PROMOTION:
+			return this.rookTable[childIndex[m]] != 0;
+		default:
+			return false;
+		}
+	}
+
+	private boolean isLegal(int index) {
+		int whiteKing = whiteKing(index);
+		int blackKing = blackKing(index);
+		int piece = piece(index);
+		if (whiteKing == blackKing || piece == whiteKing || piece == blackKing || adjacent(whiteKing, blackKing)) {
+			return false;
+		}
+		if (this.piece == 'P' && (piece / 8 == 0 || piece / 8 == 7)) {
+			return false;
+		}
+		return sideToMove(index) == 1 || !attacks(piece, blackKing, whiteKing);
+	}
+
+	private int generateMoves(int index) {
+		int whiteKing = whiteKing(index);
+		int blackKing = blackKing(index);
+		int piece = piece(index);
+		int count = 0;
+
+		if (sideToMove(index) == 1) {
+			for (int[] step : KING_STEPS) {
+				int target = offset(blackKing, step[0], step[1]);
+				if (target < 0 || adjacent(target, whiteKing)) {
+					continue;
+				}
+				if (target == piece) {
+					count = add(count, 0, CAPTURE);
+				} else if (!attacks(piece, target, whiteKing)) {
+					count = add(count, TablebaseFile.index(0, whiteKing, target, piece), NORMAL);
+				}
+			}
+			return count;
+		}
+
+		for (int[] step : KING_STEPS) {
+			int target = offset(whiteKing, step[0], step[1]);
+			if (target >= 0 && target != piece && !adjacent(target, blackKing)) {
+				count = add(count, TablebaseFile.index(1, target, blackKing, piece), NORMAL);
+			}
+		}
+
+		switch (this.piece) {
+		case 'N':
+			for (int[] step : KNIGHT_STEPS) {
+				int target = offset(piece, step[0], step[1]);
+				if (target >= 0 && target != whiteKing && target != blackKing) {
+					count = add(count, TablebaseFile.index(1, whiteKing, blackKing, target), NORMAL);
+				}
+			}
+			break;
+		case 'P':
+			int target = piece - 8;
+			if (target != whiteKing && target != blackKing) {
+				if (target / 8 == 0) {
+					count = add(count, TablebaseFile.index(1, whiteKing, blackKing, target), QUEEN_PROMOTION);
+					count = add(count, TablebaseFile.index(1, whiteKing, blackKing, target), ROOK_PROMOTION);
+				} else {
+					count = add(count, TablebaseFile.index(1, whiteKing, blackKing, target), ZEROING);
+					int doubleTarget = piece - 16;
+					if (piece / 8 == 6 && doubleTarget != whiteKing && doubleTarget != blackKing) {
+						count = add(count, TablebaseFile.index(1, whiteKing, blackKing, doubleTarget), ZEROING);
+					}
+				}
+			}
+			break;
+		default:
+			for (int[] direction : directions()) {
+				int next = offset(piece, direction[0], direction[1]);
+				while (next >= 0 && next != whiteKing && next != blackKing) {
+					count = add(count, TablebaseFile.index(1, whiteKing, blackKing, next), NORMAL);
+					next = offset(next, direction[0], direction[1]);
+				}
+			}
+		}
+		return count;
+	}
+
+	private int add(int count, int index, int kind) {
+		this.childIndex[count] = index;
+		this.childKind[count] = kind;
+		return count + 1;
+	}
+
+	private boolean attacks(int from, int target, int blocker) {
+		int rowDelta = target / 8 - from / 8;
+		int columnDelta = target % 8 - from % 8;
+		switch (this.piece) {
+		case 'P':
+			return rowDelta == -1 && Math.abs(columnDelta) == 1;
+		case 'N':
+			return Math.abs(rowDelta * columnDelta) == 2;
+		default:
+			boolean straight = rowDelta == 0 || columnDelta == 0;
+			boolean diagonal = Math.abs(rowDelta) == Math.abs(columnDelta);
+			if ((rowDelta == 0 && columnDelta == 0)
+					|| (this.piece == 'R' && !straight) || (this.piece == 'B' && !diagonal)
+					|| (!straight && !diagonal)) {
+				return false;
+			}
+			int next = offset(from, Integer.signum(rowDelta), Integer.signum(columnDelta));
+			while (next != target) {
+				if (next == blocker) {
+					return false;
+				}
+				next = offset(next, Integer.signum(rowDelta), Integer.signum(columnDelta));
+			}
+			return true;
+		}
+	}
+
+	private int[][] directions() {
+		if (this.piece == 'R') {
+			return ROOK_DIRECTIONS;
+		}
+		if (this.piece == 'B') {
+			return BISHOP_DIRECTIONS;
+		}
+		return KING_STEPS;
+	}
+
+	private static int offset(int square, int rows, int columns) {
+		int row = square / 8 + rows;
+		int column = square % 8 + columns;
+		if (row < 0 || row > 7 || column < 0 || column > 7) {
+			return -1;
+		}
+		return row * 8 + column;
+	}
+
+	private static boolean adjacent(int a, int b) {
+		return Math.abs(a / 8 - b / 8) <= 1 && Math.abs(a % 8 - b % 8) <= 1;
+	}
+
+	private static int sideToMove(int index) {
+		return index >> 18;
+	}
+
+	private static int whiteKing(int index) {
+		return (index >> 12) & 63;
+	}
+
+	private static int blackKing(int index) {
+		return (index >> 6) & 63;
+	}
+
+	private static int piece(int index) {
+		return index & 63;
+	}
+
+}
@@ -0,0 +1,9 @@
+package chess.tablebase;
+
+public enum Wdl {
+	
+	LOSS,
+	DRAW,
+	WIN;
+
+}
@@ -0,0 +1,42 @@
+package engine;
+
+import chess.Move;
+
+public class Bench {
+
+	// Openings given as UCI moves from the initial position.
+	private static final String[] POSITIONS = {
+		"",
+		"e2e4 e7e5 g1f3 b8c6 f1b5 a7a6",
+		"d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7",
+		"e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6",
+		"e2e4 e7e5 g1f3 b8c6 f1c4 f8c5 c2c3 g8f6 d2d4 e5d4",
+		"d2d4 g8f6 c2c4 g7g6 b1c3 f8g7 e2e4 d7d6 g1f3 e8g8"
+	};
+
+	public static void main(String[] args) {
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 6;
+		SearchParams params = SearchParams.parse((args.length > 1) ? args[1] : null);
+		SearchEngine engine = new SearchEngine(params, new Evaluator(), new TranspositionTable(16));
+
+		System.out.println("Params: " + params);
+		long totalNodes = 0;
+		long totalMillis = 0;
+		for (String position : POSITIONS) {
+			engine.clear();
+			SearchResult result = engine.search(Openings.toMatch(position), SearchLimits.depth(depth));
+			System.out.println(String.format("%-8s score %6d nodes %10d time %6d ms  pv %s",
+					Move.toString(result.getBestMove()), result.getScore(), result.getNodes(),
+					result.getMillis(), result.getPvString()));
+			totalNodes += result.getNodes();
+			totalMillis += result.getMillis();
+		}
+		long millis = Math.max(1, totalMillis);
+
+		System.out.println();
+		System.out.println("Nodes: " + totalNodes);
+		System.out.println("Time: " + millis + " ms");
+		System.out.println("Nodes/s: " + (totalNodes * 1000 / millis));
+	}
+
+}
@@ -0,0 +1,175 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceType;
+import chess.Square;
+
+public class Evaluator {
+
+	public static final String PIECE_CODES = PieceType.CODES;
+	public static final int PIECE_TYPES = PieceType.COUNT;
+	public static final int MATERIAL_OFFSET = 0;
+	public static final int TABLE_OFFSET = PIECE_TYPES;
+	public static final int WEIGHT_COUNT = TABLE_OFFSET + PIECE_TYPES * Square.COUNT;
+
+	// Piece-square tables seen from white, row 0 being the eighth rank.
+	private static final int[][] TABLES = {
+		{
+			 0,  0,  0,  0,  0,  0,  0,  0,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			10, 10, 20, 30, 30, 20, 10, 10,
+			 5,  5, 10, 25, 25, 10,  5,  5,
+			 0,  0,  0, 20, 20,  0,  0,  0,
+			 5, -5,-10,  0,  0,-10, -5,  5,
+			 5, 10, 10,-20,-20, 10, 10,  5,
+			 0,  0,  0,  0,  0,  0,  0,  0
+		},
+		{
+			-50,-40,-30,-30,-30,-30,-40,-50,
+			-40,-20,  0,  0,  0,  0,-20,-40,
+			-30,  0, 10, 15, 15, 10,  0,-30,
+			-30,  5, 15, 20, 20, 15,  5,-30,
+			-30,  0, 15, 20, 20, 15,  0,-30,
+			-30,  5, 10, 15, 15, 10,  5,-30,
+			-40,-20,  0,  5,  5,  0,-20,-40,
+			-50,-40,-30,-30,-30,-30,-40,-50
+		},
+		{
+			-20,-10,-10,-10,-10,-10,-10,-20,
+			-10,  0,  0,  0,  0,  0,  0,-10,
+			-10,  0,  5, 10, 10,  5,  0,-10,
+			-10,  5,  5, 10, 10,  5,  5,-10,
+			-10,  0, 10, 10, 10, 10,  0,-10,
+			-10, 10, 10, 10, 10, 10, 10,-10,
+			-10,  5,  0,  0,  0,  0,  5,-10,
+			-20,-10,-10,-10,-10,-10,-10,-20
+		},
+		{
+			 0,  0,  0,  0,  0,  0,  0,  0,
+			 5, 10, 10, 10, 10, 10, 10,  5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			 0,  0,  0,  5,  5,  0,  0,  0
+		},
+		{
+			-20,-10,-10, -5, -5,-10,-10,-20,
+			-10,  0,  0,  0,  0,  0,  0,-10,
+			-10,  0,  5,  5,  5,  5,  0,-10,
+			 -5,  0,  5,  5,  5,  5,  0, -5,
+			  0,  0,  5,  5,  5,  5,  0, -5,
+			-10,  5,  5,  5,  5,  5,  0,-10,
+			-10,  0,  5,  0,  0,  0,  0,-10,
+			-20,-10,-10, -5, -5,-10,-10,-20
+		},
+		{
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-20,-30,-30,-40,-40,-30,-30,-20,
+			-10,-20,-20,-20,-20,-20,-20,-10,
+			 20, 20,  0,  0,  0,  0, 20, 20,
+			 20, 30, 10,  0,  0, 10, 30, 20
+		}
+	};
+
+	private final int[] weights;
+
+	public Evaluator() {
+		this.weights = defaultWeights();
+	}
+
+	public Evaluator(int[] weights) {
+		if (weights.length != WEIGHT_COUNT) {
+			throw new IllegalArgumentException("Evaluator needs " + WEIGHT_COUNT + " weights");
+		}
+		this.weights = weights.clone();
+	}
+
+	public static int[] defaultWeights() {
+		int[] weights = new int[WEIGHT_COUNT];
+		for (int type=0; type<PIECE_TYPES; type++) {
+			weights[MATERIAL_OFFSET + type] = PieceValues.of(String.valueOf(PIECE_CODES.charAt(type)));
+			System.arraycopy(TABLES[type], 0, weights, TABLE_OFFSET + type * Square.COUNT, Square.COUNT);
+		}
+		weights[MATERIAL_OFFSET + PIECE_TYPES - 1] = 0;
+		return weights;
+	}
+
+	public int[] getWeights() {
+		return this.weights.clone();
+	}
+
+	// Weights as written by save: integers separated by whitespace or commas, '#' starting a comment.
+	public static Evaluator load(Path path) throws IOException {
+		List<Integer> values = new ArrayList<>();
+		for (String line : Files.readAllLines(path)) {
+			int comment = line.indexOf('#');
+			String text = (comment < 0) ? line : line.substring(0, comment);
+			for (String token : text.trim().split("[\\s,]+")) {
+				if (!token.isEmpty()) {
+					values.add(Integer.parseInt(token));
+				}
+			}
+		}
+		int[] weights = new int[values.size()];
+		for (int i=0; i<weights.length; i++) {
+			weights[i] = values.get(i);
+		}
+		return new Evaluator(weights);
+	}
+
+	// Material values on one line, then each piece-square table as eight rows of eight.
+	public static void save(int[] weights, Path path) throws IOException {
+		StringBuilder sb = new StringBuilder("# material " + PIECE_CODES + "\n");
+		for (int type=0; type<PIECE_TYPES; type++) {
+			sb.append(weights[MATERIAL_OFFSET + type]).append((type < PIECE_TYPES - 1) ? " " : "\n");
+		}
+		for (int type=0; type<PIECE_TYPES; type++) {
+			sb.append("# table ").append(PIECE_CODES.charAt(type)).append('\n');
+			for (int square=0; square<Square.COUNT; square++) {
+				sb.append(String.format("%4d", weights[tableIndex(type, square)]));
+				sb.append((Square.column(square) == 7) ? "\n" : " ");
+			}
+		}
+		Files.write(path, sb.toString().getBytes());
+	}
+
+	// Score in centipawns from the point of view of the side to move.
+	public int evaluate(ChessMatch chessMatch) {
+		int score = 0;
+		for (int square=0; square<Square.COUNT; square++) {
+			ChessPiece piece = chessMatch.getPiece(square);
+			if (piece == null) {
+				continue;
+			}
+			int type = piece.getType().ordinal();
+			if (piece.getColor() == Color.WHITE) {
+				score += this.weights[MATERIAL_OFFSET + type] + this.weights[tableIndex(type, square)];
+			} else {
+				score -= this.weights[MATERIAL_OFFSET + type] + this.weights[tableIndex(type, mirror(square))];
+			}
+		}
+		return (chessMatch.getCurrentPlayer() == Color.WHITE) ? score : -score;
+	}
+
+	public static int tableIndex(int type, int square) {
+		return TABLE_OFFSET + type * Square.COUNT + square;
+	}
+
+	public static int mirror(int square) {
+		return Square.index(7 - Square.row(square), Square.column(square));
+	}
+
+}
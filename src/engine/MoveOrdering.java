@@ -0,0 +1,65 @@
+package engine;
+
+import java.util.Arrays;
+
+import chess.Color;
+import chess.Move;
+
+public class MoveOrdering {
+	
+	public static final int MAX_PLY = 128;
+	
+	private static final int HISTORY_LIMIT = 1 << 20;
+	
+	private final int[][] killers = new int[MAX_PLY][2];
+	private final int[][][] history = new int[2][64][64];
+	
+	public int killer(int ply, int slot) {
+		return this.killers[ply][slot];
+	}
+	
+	public boolean isKiller(int ply, int move) {
+		return this.killers[ply][0] == move || this.killers[ply][1] == move;
+	}
+	
+	public void addKiller(int ply, int move) {
+		if (this.killers[ply][0] != move) {
+			this.killers[ply][1] = this.killers[ply][0];
+			this.killers[ply][0] = move;
+		}
+	}
+	
+	public int history(Color color, int move) {
+		return this.history[color.ordinal()][Move.origin(move)][Move.target(move)];
+	}
+	
+	public void addHistory(Color color, int move, int depth) {
+		int[] scores = this.history[color.ordinal()][Move.origin(move)];
+		scores[Move.target(move)] += depth * depth;
+		if (scores[Move.target(move)] > HISTORY_LIMIT) {
+			age();
+		}
+	}
+	
+	public void age() {
+		for (int[][] side : this.history) {
+			for (int[] scores : side) {
+				for (int i=0; i<scores.length; i++) {
+					scores[i] >>= 1;
+				}
+			}
+		}
+	}
+	
+	public void clear() {
+		for (int[] slots : this.killers) {
+			Arrays.fill(slots, Move.NONE);
+		}
+		for (int[][] side : this.history) {
+			for (int[] scores : side) {
+				Arrays.fill(scores, 0);
+			}
+		}
+	}
+
+}
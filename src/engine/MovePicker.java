@@ -0,0 +1,153 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.Square;
+
+public class MovePicker {
+
+	public enum Stage {
+		HASH,
+		CAPTURES,
+		KILLERS,
+		QUIETS,
+		DONE;
+	}
+
+	private static final int QUIET = Integer.MIN_VALUE;
+
+	private final MoveOrdering ordering;
+	private final int[] moves = new int[Move.MAX_MOVES];
+	private final int[] scores = new int[Move.MAX_MOVES];
+	private int count;
+	private int hashMove;
+	private int ply;
+	private Color color;
+	private Stage stage;
+	private Stage lastStage;
+	private int killerSlot;
+
+	public MovePicker(MoveOrdering ordering) {
+		this.ordering = ordering;
+	}
+
+	public void init(ChessMatch chessMatch, int hashMove, int ply) {
+		this.count = chessMatch.generateMoves(this.moves);
+		this.hashMove = hashMove;
+		this.ply = ply;
+		this.color = chessMatch.getCurrentPlayer();
+		this.stage = Stage.HASH;
+		this.killerSlot = 0;
+		for (int i=0; i<this.count; i++) {
+			this.scores[i] = captureScore(chessMatch, this.moves[i]);
+		}
+	}
+
+	public int getMoveCount() {
+		return this.count;
+	}
+
+	// Stage that produced the move last returned by next().
+	public Stage getStage() {
+		return this.lastStage;
+	}
+
+	public int next() {
+		while (true) {
+			switch (this.stage) {
+			case HASH:
+				this.stage = Stage.CAPTURES;
+				if (this.hashMove != Move.NONE && take(this.hashMove)) {
+					this.lastStage = Stage.HASH;
+					return this.hashMove;
+				}
+				break;
+			case CAPTURES:
+				int capture = takeBest(false);
+				if (capture != Move.NONE) {
+					this.lastStage = Stage.CAPTURES;
+					return capture;
+				}
+				this.stage = Stage.KILLERS;
+				break;
+			case KILLERS:
+				while (this.killerSlot < 2) {
+					int killer = this.ordering.killer(this.ply, this.killerSlot++);
+					if (killer != Move.NONE && take(killer)) {
+						this.lastStage = Stage.KILLERS;
+						return killer;
+					}
+				}
+				for (int i=0; i<this.count; i++) {
+					if (this.moves[i] != Move.NONE) {
+						this.scores[i] = this.ordering.history(this.color, this.moves[i]);
+					}
+				}
+				this.stage = Stage.QUIETS;
+				break;
+			case QUIETS:
+				int quiet = takeBest(true);
+				if (quiet != Move.NONE) {
+					this.lastStage = Stage.QUIETS;
+					return quiet;
+				}
+				this.stage = Stage.DONE;
+				break;
+			default:
+				return Move.NONE;
+			}
+		}
+	}
+
+	private boolean take(int move) {
+		for (int i=0; i<this.count; i++) {
+			if (this.moves[i] == move) {
+				this.moves[i] = Move.NONE;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int takeBest(boolean quiets) {
+		int best = -1;
+		for (int i=0; i<this.count; i++) {
+			if (this.moves[i] == Move.NONE || (!quiets && this.scores[i] == QUIET)) {
+				continue;
+			}
+			if (best < 0 || this.scores[i] > this.scores[best]) {
+				best = i;
+			}
+		}
+		if (best < 0) {
+			return Move.NONE;
+		}
+		int move = this.moves[best];
+		this.moves[best] = Move.NONE;
+		return move;
+	}
+
+	// MVV-LVA: most valuable victim first, least valuable attacker breaking ties.
+	// Promotions rank with captures so they are searched before quiet moves. A piece of the
+	// mover's own colour on the target is Chess960 castling, not a victim.
+	static int captureScore(ChessMatch chessMatch, int move) {
+		ChessPiece attacker = chessMatch.getPiece(Move.origin(move));
+		ChessPiece victim = chessMatch.getPiece(Move.target(move));
+		if (victim != null && victim.getColor() == attacker.getColor()) {
+			victim = null;
+		}
+		int victimValue = PieceValues.of(victim);
+		if (victim == null && PieceValues.of(attacker) == PieceValues.PAWN
+				&& Square.column(Move.origin(move)) != Square.column(Move.target(move))) {
+			victimValue = PieceValues.PAWN;
+		}
+		int promotionValue = PieceValues.of(Move.promotion(move));
+		if (victimValue == 0 && promotionValue == 0) {
+			return QUIET;
+		}
+		return (victimValue + promotionValue) * 16 - PieceValues.of(attacker) / 100;
+	}
+
+}
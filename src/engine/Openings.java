@@ -0,0 +1,56 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.Move;
+
+public class Openings {
+
+	// Balanced openings given as UCI moves from the initial position.
+	public static final List<String> SUITE = List.of(
+		"e2e4 e7e5 g1f3 b8c6 f1b5 a7a6",
+		"e2e4 e7e5 g1f3 b8c6 f1c4 f8c5 c2c3 g8f6",
+		"e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6",
+		"e2e4 c7c5 b1c3 b8c6 g2g3 g7g6",
+		"e2e4 e7e6 d2d4 d7d5 b1c3 g8f6",
+		"e2e4 c7c6 d2d4 d7d5 e4e5 c8f5",
+		"d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7",
+		"d2d4 d7d5 c2c4 c7c6 g1f3 g8f6 b1c3 d5c4",
+		"d2d4 g8f6 c2c4 g7g6 b1c3 f8g7 e2e4 d7d6",
+		"d2d4 g8f6 c2c4 e7e6 b1c3 f8b4",
+		"c2c4 e7e5 b1c3 g8f6 g1f3 b8c6",
+		"g1f3 d7d5 g2g3 g8f6 f1g2 e7e6"
+	);
+
+	public static ChessMatch toMatch(String line) {
+		String text = line.trim();
+		if (text.contains("/")) {
+			return new ChessMatch(text);
+		}
+		ChessMatch chessMatch = new ChessMatch();
+		for (String move : text.split("\\s+")) {
+			if (!move.isEmpty()) {
+				SearchEngine.apply(chessMatch, Move.parse(move));
+			}
+		}
+		return chessMatch;
+	}
+
+	// One opening per line, either a FEN or a sequence of UCI moves; '#' starts a comment.
+	public static List<String> load(Path path) throws IOException {
+		List<String> openings = new ArrayList<>();
+		for (String line : Files.readAllLines(path)) {
+			String text = line.trim();
+			if (!text.isEmpty() && !text.startsWith("#")) {
+				openings.add(text);
+			}
+		}
+		return openings;
+	}
+
+}
@@ -0,0 +1,87 @@
+package engine;
+
+import java.util.concurrent.ForkJoinPool;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.metrics.MatchMetrics;
+
+public class Perft {
+	
+	public static long perft(ChessMatch chessMatch, int depth) {
+		return perft(chessMatch, depth, null);
+	}
+	
+	public static long perft(ChessMatch chessMatch, int depth, PerftTable table) {
+		return perft(chessMatch, depth, new int[Math.max(depth, 1)][Move.MAX_MOVES], table);
+	}
+	
+	public static long parallelPerft(ChessMatch chessMatch, int depth, ForkJoinPool pool, PerftTable table) {
+		if (depth < PerftTask.SPLIT_DEPTH) {
+			return perft(chessMatch, depth, table);
+		}
+		return pool.invoke(new PerftTask(new ChessMatch(chessMatch), depth, table));
+	}
+	
+	private static long perft(ChessMatch chessMatch, int depth, int[][] moves, PerftTable table) {
+		if (depth == 0) {
+			return 1;
+		}
+		int count = chessMatch.generateMoves(moves[depth - 1]);
+		if (depth == 1) {
+			return count;
+		}
+		long key = chessMatch.getPositionKey();
+		if (table != null) {
+			long cached = table.get(key, depth);
+			if (cached >= 0) {
+				return cached;
+			}
+		}
+		
+		long nodes = 0;
+		for (int i=0; i<count; i++) {
+			chessMatch.doMove(moves[depth - 1][i]);
+			nodes += perft(chessMatch, depth - 1, moves, table);
+			chessMatch.undoLastMove();
+		}
+		if (table != null) {
+			table.put(key, depth, nodes);
+		}
+		return nodes;
+	}
+	
+	public static void main(String[] args) {
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int hashMegabytes = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+		
+		ChessMatch chessMatch = new ChessMatch();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		PerftTable table = (hashMegabytes > 0) ? new PerftTable(hashMegabytes) : null;
+		
+		long start = System.nanoTime();
+		long total = 0;
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = chessMatch.generateMoves(moves);
+		for (int i=0; i<count; i++) {
+			ChessMatch child = new ChessMatch(chessMatch);
+			child.doMove(moves[i]);
+			long nodes = parallelPerft(child, depth - 1, pool, table);
+			System.out.println(Move.toString(moves[i]) + ": " + nodes);
+			total += nodes;
+		}
+		long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+		
+		System.out.println();
+		System.out.println("Nodes: " + total);
+		System.out.println("Time: " + millis + " ms");
+		System.out.println("Nodes/s: " + (total * 1000 / millis));
+		if (MatchMetrics.isEnabled()) {
+			System.out.println();
+			System.out.print(MatchMetrics.report());
+		}
+		pool.shutdown();
+	}
+
+}
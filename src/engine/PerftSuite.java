@@ -0,0 +1,42 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Variant;
+
+// Move generation regression check: perft of well-known positions against their published
+// node counts. Prints one line per position and exits with status 1 on any mismatch, so the
+// build can run it as a gate.
+public class PerftSuite {
+
+	private static final Object[][] POSITIONS = {
+		{"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", Variant.STANDARD, 4, 197281L},
+		{"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", Variant.STANDARD, 3, 97862L},
+		{"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", Variant.STANDARD, 4, 43238L},
+		{"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", Variant.STANDARD, 3, 9467L},
+		{"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", Variant.STANDARD, 3, 62379L},
+		{"bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9", Variant.CHESS960, 3, 12189L},
+		{"2nnrbkr/p1qppppp/8/1ppb4/6PP/3PP3/PPP2P2/BQNNRBKR w HEhe - 1 9", Variant.CHESS960, 3, 18002L}
+	};
+
+	public static void main(String[] args) {
+		int failures = 0;
+		for (Object[] position : POSITIONS) {
+			String fen = (String)position[0];
+			int depth = (Integer)position[2];
+			long expected = (Long)position[3];
+			long nodes = Perft.perft(new ChessMatch(fen, (Variant)position[1]), depth);
+			boolean passed = nodes == expected;
+			System.out.println(String.format("%s  depth %d  nodes %10d  expected %10d  %s",
+					passed ? "ok  " : "FAIL", depth, nodes, expected, fen));
+			if (!passed) {
+				failures ++;
+			}
+		}
+		System.out.println();
+		System.out.println(failures + " of " + POSITIONS.length + " positions failed");
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+}
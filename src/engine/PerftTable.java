@@ -0,0 +1,37 @@
+package engine;
+
+public class PerftTable {
+	
+	// 2^30 entries of 16 bytes, the largest power of two a long[] can hold
+	private static final long MAX_ENTRIES = 1L << 30;
+	
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+	
+	public PerftTable(int megabytes) {
+		int entries = (int)Long.highestOneBit(Math.min(MAX_ENTRIES, Math.max(1, megabytes * 1024L * 1024 / 16)));
+		this.keys = new long[entries];
+		this.data = new long[entries];
+		this.mask = entries - 1;
+	}
+	
+	// Entries are stored as key ^ data so that a torn write from a concurrent
+	// worker is detected as a miss instead of returning a wrong count.
+	public long get(long key, int depth) {
+		int i = (int)(key ^ (key >>> 32)) & this.mask;
+		long value = this.data[i];
+		if ((this.keys[i] ^ value) == key && (value & 0xff) == depth) {
+			return value >>> 8;
+		}
+		return -1;
+	}
+	
+	public void put(long key, int depth, long count) {
+		int i = (int)(key ^ (key >>> 32)) & this.mask;
+		long value = (count << 8) | depth;
+		this.data[i] = value;
+		this.keys[i] = key ^ value;
+	}
+
+}
@@ -0,0 +1,57 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import chess.ChessMatch;
+import chess.Move;
+
+class PerftTask extends RecursiveTask<Long> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	static final int SPLIT_DEPTH = 4;
+	
+	private final ChessMatch chessMatch;
+	private final int depth;
+	private final PerftTable table;
+	
+	PerftTask(ChessMatch chessMatch, int depth, PerftTable table) {
+		this.chessMatch = chessMatch;
+		this.depth = depth;
+		this.table = table;
+	}
+	
+	@Override
+	protected Long compute() {
+		if (this.depth < SPLIT_DEPTH) {
+			return Perft.perft(this.chessMatch, this.depth, this.table);
+		}
+		if (this.table != null) {
+			long cached = this.table.get(this.chessMatch.getPositionKey(), this.depth);
+			if (cached >= 0) {
+				return cached;
+			}
+		}
+		
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = this.chessMatch.generateMoves(moves);
+		List<PerftTask> tasks = new ArrayList<>();
+		for (int i=0; i<count; i++) {
+			ChessMatch child = new ChessMatch(this.chessMatch);
+			child.doMove(moves[i]);
+			tasks.add(new PerftTask(child, this.depth - 1, this.table));
+		}
+		
+		long nodes = 0;
+		for (PerftTask task : invokeAll(tasks)) {
+			nodes += task.join();
+		}
+		if (this.table != null) {
+			this.table.put(this.chessMatch.getPositionKey(), this.depth, nodes);
+		}
+		return nodes;
+	}
+
+}
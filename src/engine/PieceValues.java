@@ -0,0 +1,28 @@
+package engine;
+
+import chess.ChessPiece;
+import chess.PieceType;
+
+public final class PieceValues {
+	
+	public static final int PAWN = 100;
+	public static final int KNIGHT = 320;
+	public static final int BISHOP = 330;
+	public static final int ROOK = 500;
+	public static final int QUEEN = 900;
+	public static final int KING = 20000;
+	
+	private static final int[] VALUES = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+	
+	private PieceValues() {
+	}
+	
+	public static int of(ChessPiece piece) {
+		return (piece == null) ? 0 : VALUES[piece.getType().ordinal()];
+	}
+	
+	public static int of(String pieceCode) {
+		return (pieceCode == null) ? 0 : VALUES[PieceType.of(pieceCode.charAt(0)).ordinal()];
+	}
+
+}
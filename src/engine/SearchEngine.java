@@ -0,0 +1,369 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Move;
+
+public class SearchEngine {
+
+	public static final int INFINITE = 32000;
+	public static final int MATE = 30000;
+	public static final int MAX_PLY = MoveOrdering.MAX_PLY;
+
+	private static final int CHECK_INTERVAL = 127;
+
+	private final SearchParams params;
+	private final Evaluator evaluator;
+	private final TranspositionTable table;
+	private final MoveOrdering ordering = new MoveOrdering();
+	private final StaticExchange staticExchange = new StaticExchange();
+	private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+	private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+	private final int[] pvLength = new int[MAX_PLY];
+
+	private SearchListener listener;
+	// Set from other threads and polled by the search, which winds down at the next node.
+	private volatile boolean stopped;
+	private volatile boolean pondering;
+	private volatile boolean stopOnPonderHit;
+	private volatile long deadline;
+	private long nodes;
+	private long nodeLimit;
+	private long moveTime;
+	private TimeManager timeManager;
+
+	public SearchEngine() {
+		this(new SearchParams(), new Evaluator(), new TranspositionTable(16));
+	}
+
+	public SearchEngine(SearchParams params, Evaluator evaluator, TranspositionTable table) {
+		this.params = params;
+		this.evaluator = evaluator;
+		this.table = table;
+		for (int i=0; i<MAX_PLY; i++) {
+			this.pickers[i] = new MovePicker(this.ordering);
+		}
+	}
+
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	public void stop() {
+		this.stopped = true;
+	}
+
+	// The opponent played the move being pondered on: the running search carries on as a
+	// normal search whose clock starts now, or ends at once if its time budget had already
+	// been used up while pondering.
+	public void ponderHit() {
+		if (!this.pondering) {
+			return;
+		}
+		this.deadline = deadline(System.currentTimeMillis());
+		this.pondering = false;
+		if (this.stopOnPonderHit) {
+			this.stopped = true;
+		}
+	}
+
+	public void clear() {
+		this.table.clear();
+		this.ordering.clear();
+	}
+
+	public SearchResult search(ChessMatch chessMatch, SearchLimits limits) {
+		ChessMatch match = new ChessMatch(chessMatch);
+		long start = System.currentTimeMillis();
+		this.stopped = false;
+		this.nodes = 0;
+		this.nodeLimit = limits.getNodes();
+		this.moveTime = limits.getMoveTime();
+		this.timeManager = (limits.getTime() > 0 && this.moveTime == 0)
+				? new TimeManager(limits.getTime(), limits.getIncrement(), limits.getMovesToGo()) : null;
+		this.stopOnPonderHit = false;
+		this.pondering = limits.isPonder();
+		this.deadline = this.pondering ? 0 : deadline(start);
+		int maxDepth = (limits.getDepth() > 0) ? Math.min(limits.getDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+		this.ordering.age();
+
+		int[] rootMoves = new int[Move.MAX_MOVES];
+		int rootCount = match.generateMoves(rootMoves);
+		SearchResult result = new SearchResult((rootCount > 0) ? rootMoves[0] : Move.NONE,
+				0, 0, 0, 0, new int[0]);
+		if (rootCount == 0) {
+			return result;
+		}
+
+		for (int depth=1; depth<=maxDepth; depth++) {
+			int score = search(match, depth, -INFINITE, INFINITE, 0, true);
+			if (this.stopped && depth > 1) {
+				break;
+			}
+			int[] line = new int[this.pvLength[0]];
+			System.arraycopy(this.pv[0], 0, line, 0, line.length);
+			result = new SearchResult((line.length > 0) ? line[0] : result.getBestMove(), score, depth,
+					this.nodes, System.currentTimeMillis() - start, line);
+			if (this.listener != null) {
+				this.listener.onIteration(result);
+			}
+			if (this.stopped || (result.isMate() && depth >= SearchEngine.MATE - Math.abs(score))) {
+				break;
+			}
+			if (this.timeManager != null && this.timeManager.shouldStop(result.getMillis(), result.getBestMove(), score, depth)) {
+				// published before pondering is read, so a concurrent ponderHit cannot miss it
+				this.stopOnPonderHit = true;
+				if (!this.pondering) {
+					break;
+				}
+			}
+		}
+		// a ponder search may only report its move once the opponent has moved
+		while (this.pondering && !this.stopped) {
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return result;
+	}
+
+	// Plays a move on a live match through the public API, so promotions go through
+	// replacePromotedPiece exactly as an interactive player would.
+	public static void apply(ChessMatch chessMatch, int move) {
+		chessMatch.performChessMove(ChessPosition.fromSquare(Move.origin(move)),
+				ChessPosition.fromSquare(Move.target(move)));
+		String promotion = Move.promotion(move);
+		if (promotion != null && chessMatch.getPromoted() != null && !promotion.equals("Q")) {
+			chessMatch.replacePromotedPiece(promotion);
+		}
+	}
+
+	private int search(ChessMatch match, int depth, int alpha, int beta, int ply, boolean nullAllowed) {
+		if (depth <= 0) {
+			return quiescence(match, alpha, beta, ply);
+		}
+		this.pvLength[ply] = ply;
+		if (countNode()) {
+			return 0;
+		}
+		if (ply > 0 && (match.getHalfmoveClock() >= 100 || match.getRepetitionCount() >= 2
+				|| match.isInsufficientMaterial())) {
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1) {
+			return this.evaluator.evaluate(match);
+		}
+
+		boolean pvNode = beta - alpha > 1;
+		long key = match.getPositionKey();
+		long entry = this.table.probe(key);
+		int hashMove = Move.NONE;
+		if (entry != 0) {
+			hashMove = TranspositionTable.move(entry);
+			if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER && score >= beta)
+						|| (bound == TranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		boolean inCheck = match.getCheck();
+		int staticEval = inCheck ? -INFINITE : this.evaluator.evaluate(match);
+
+		if (this.params.isEnabled(SearchParam.NULL_MOVE) && nullAllowed && !pvNode && !inCheck
+				&& depth >= this.params.get(SearchParam.NULL_MOVE_MIN_DEPTH) && staticEval >= beta
+				&& match.hasNonPawnMaterial(match.getCurrentPlayer())) {
+			match.doNullMove();
+			int reduced = depth - 1 - this.params.get(SearchParam.NULL_MOVE_REDUCTION);
+			int score = -search(match, reduced, -beta, -beta + 1, ply + 1, false);
+			match.undoLastMove();
+			if (this.stopped) {
+				return 0;
+			}
+			if (score >= beta) {
+				return (score >= MATE - MAX_PLY) ? beta : score;
+			}
+		}
+
+		boolean futile = this.params.isEnabled(SearchParam.FUTILITY) && !pvNode && !inCheck
+				&& depth <= this.params.get(SearchParam.FUTILITY_MAX_DEPTH)
+				&& staticEval + this.params.get(SearchParam.FUTILITY_MARGIN) * depth <= alpha;
+
+		MovePicker picker = this.pickers[ply];
+		picker.init(match, hashMove, ply);
+		if (picker.getMoveCount() == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+
+		int originalAlpha = alpha;
+		int best = -INFINITE;
+		int bestMove = Move.NONE;
+		int moveNumber = 0;
+		int move;
+		while ((move = picker.next()) != Move.NONE) {
+			moveNumber++;
+			boolean quiet = picker.getStage() == MovePicker.Stage.QUIETS
+					|| picker.getStage() == MovePicker.Stage.KILLERS;
+			match.doMove(move);
+			boolean givesCheck = match.getCheck();
+
+			if (futile && quiet && !givesCheck && moveNumber > 1) {
+				match.undoLastMove();
+				continue;
+			}
+
+			int score;
+			if (moveNumber == 1) {
+				score = -search(match, depth - 1, -beta, -alpha, ply + 1, true);
+			} else {
+				int reduction = 0;
+				if (this.params.isEnabled(SearchParam.LMR) && quiet && !inCheck && !givesCheck
+						&& depth >= this.params.get(SearchParam.LMR_MIN_DEPTH)
+						&& moveNumber > this.params.get(SearchParam.LMR_MIN_MOVES)) {
+					reduction = (moveNumber > 2 * this.params.get(SearchParam.LMR_MIN_MOVES) + 4 && depth > 4) ? 2 : 1;
+				}
+				score = -search(match, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+				if (score > alpha && reduction > 0) {
+					score = -search(match, depth - 1, -alpha - 1, -alpha, ply + 1, true);
+				}
+				if (score > alpha && score < beta) {
+					score = -search(match, depth - 1, -beta, -alpha, ply + 1, true);
+				}
+			}
+			match.undoLastMove();
+			if (this.stopped) {
+				return 0;
+			}
+
+			if (score > best) {
+				best = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					updatePv(ply, move);
+					if (score >= beta) {
+						if (quiet) {
+							this.ordering.addKiller(ply, move);
+							this.ordering.addHistory(match.getCurrentPlayer(), move, depth);
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		int bound = (best >= beta) ? TranspositionTable.LOWER
+				: (best > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		this.table.store(key, bestMove, toTable(best, ply), depth, bound);
+		return best;
+	}
+
+	private int quiescence(ChessMatch match, int alpha, int beta, int ply) {
+		this.pvLength[ply] = ply;
+		if (countNode()) {
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1 || !this.params.isEnabled(SearchParam.QUIESCENCE)) {
+			return this.evaluator.evaluate(match);
+		}
+
+		boolean inCheck = match.getCheck();
+		int best = -INFINITE;
+		if (!inCheck) {
+			best = this.evaluator.evaluate(match);
+			if (best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+
+		MovePicker picker = this.pickers[ply];
+		picker.init(match, Move.NONE, ply);
+		if (picker.getMoveCount() == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+
+		int move;
+		while ((move = picker.next()) != Move.NONE) {
+			if (!inCheck && picker.getStage() != MovePicker.Stage.CAPTURES) {
+				break;
+			}
+			if (!inCheck && this.params.isEnabled(SearchParam.SEE_PRUNING)
+					&& this.staticExchange.evaluate(match, move) < 0) {
+				continue;
+			}
+			match.doMove(move);
+			int score = -quiescence(match, -beta, -alpha, ply + 1);
+			match.undoLastMove();
+			if (this.stopped) {
+				return 0;
+			}
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					updatePv(ply, move);
+					if (score >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	private boolean countNode() {
+		this.nodes++;
+		if ((this.nodes & CHECK_INTERVAL) == 0) {
+			if ((this.nodeLimit > 0 && this.nodes >= this.nodeLimit)
+					|| (this.deadline > 0 && System.currentTimeMillis() >= this.deadline)) {
+				this.stopped = true;
+			}
+		}
+		return this.stopped;
+	}
+
+	private long deadline(long start) {
+		if (this.moveTime > 0) {
+			return start + this.moveTime;
+		}
+		return (this.timeManager != null) ? start + this.timeManager.getMaximum() : 0;
+	}
+
+	private void updatePv(int ply, int move) {
+		this.pv[ply][ply] = move;
+		int length = Math.max(this.pvLength[ply + 1], ply + 1);
+		for (int i=ply+1; i<length; i++) {
+			this.pv[ply][i] = this.pv[ply + 1][i];
+		}
+		this.pvLength[ply] = length;
+	}
+
+	private static int toTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score + ply;
+		}
+		if (score <= -MATE + MAX_PLY) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score - ply;
+		}
+		if (score <= -MATE + MAX_PLY) {
+			return score + ply;
+		}
+		return score;
+	}
+
+}
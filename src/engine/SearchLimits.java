@@ -0,0 +1,73 @@
+package engine;
+
+public class SearchLimits {
+	
+	private int depth;
+	private long nodes;
+	private long moveTime;
+	private long time;
+	private long increment;
+	private int movesToGo;
+	private boolean ponder;
+	
+	public SearchLimits(int depth, long nodes, long moveTime) {
+		this(depth, nodes, moveTime, 0, 0, 0, false);
+	}
+	
+	// time, increment and movesToGo describe the clock of the side to move, to be budgeted by
+	// a TimeManager. A ponder search runs without any time limit until ponderHit.
+	public SearchLimits(int depth, long nodes, long moveTime, long time, long increment, int movesToGo, boolean ponder) {
+		this.depth = depth;
+		this.nodes = nodes;
+		this.moveTime = moveTime;
+		this.time = time;
+		this.increment = increment;
+		this.movesToGo = movesToGo;
+		this.ponder = ponder;
+	}
+	
+	public static SearchLimits depth(int depth) {
+		return new SearchLimits(depth, 0, 0);
+	}
+	
+	public static SearchLimits nodes(long nodes) {
+		return new SearchLimits(0, nodes, 0);
+	}
+	
+	public static SearchLimits moveTime(long millis) {
+		return new SearchLimits(0, 0, millis);
+	}
+	
+	public static SearchLimits clock(long time, long increment, int movesToGo) {
+		return new SearchLimits(0, 0, 0, time, increment, movesToGo, false);
+	}
+	
+	public int getDepth() {
+		return this.depth;
+	}
+	
+	public long getNodes() {
+		return this.nodes;
+	}
+	
+	public long getMoveTime() {
+		return this.moveTime;
+	}
+	
+	public long getTime() {
+		return this.time;
+	}
+	
+	public long getIncrement() {
+		return this.increment;
+	}
+	
+	public int getMovesToGo() {
+		return this.movesToGo;
+	}
+	
+	public boolean isPonder() {
+		return this.ponder;
+	}
+
+}
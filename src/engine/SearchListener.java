@@ -0,0 +1,7 @@
+package engine;
+
+public interface SearchListener {
+	
+	void onIteration(SearchResult result);
+
+}
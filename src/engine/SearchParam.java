@@ -0,0 +1,27 @@
+package engine;
+
+public enum SearchParam {
+	
+	QUIESCENCE(1),
+	SEE_PRUNING(1),
+	NULL_MOVE(1),
+	NULL_MOVE_MIN_DEPTH(3),
+	NULL_MOVE_REDUCTION(2),
+	LMR(1),
+	LMR_MIN_DEPTH(3),
+	LMR_MIN_MOVES(3),
+	FUTILITY(1),
+	FUTILITY_MAX_DEPTH(2),
+	FUTILITY_MARGIN(150);
+	
+	private final int defaultValue;
+	
+	private SearchParam(int defaultValue) {
+		this.defaultValue = defaultValue;
+	}
+	
+	public int getDefaultValue() {
+		return this.defaultValue;
+	}
+
+}
@@ -0,0 +1,57 @@
+package engine;
+
+public class SearchParams {
+	
+	private final int[] values = new int[SearchParam.values().length];
+	
+	public SearchParams() {
+		for (SearchParam param : SearchParam.values()) {
+			this.values[param.ordinal()] = param.getDefaultValue();
+		}
+	}
+	
+	public SearchParams(SearchParams other) {
+		System.arraycopy(other.values, 0, this.values, 0, this.values.length);
+	}
+	
+	// Parses "name=value" pairs separated by commas, e.g. "null_move=0,lmr_min_depth=4".
+	public static SearchParams parse(String text) {
+		SearchParams params = new SearchParams();
+		if (text == null || text.isBlank()) {
+			return params;
+		}
+		for (String pair : text.split(",")) {
+			String[] parts = pair.split("=");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Invalid search parameter: " + pair);
+			}
+			params.set(SearchParam.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+		}
+		return params;
+	}
+	
+	public int get(SearchParam param) {
+		return this.values[param.ordinal()];
+	}
+	
+	public boolean isEnabled(SearchParam param) {
+		return this.values[param.ordinal()] != 0;
+	}
+	
+	public void set(SearchParam param, int value) {
+		this.values[param.ordinal()] = value;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (SearchParam param : SearchParam.values()) {
+			if (sb.length() > 0) {
+				sb.append(",");
+			}
+			sb.append(param.name().toLowerCase()).append("=").append(get(param));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,74 @@
+package engine;
+
+import java.util.Arrays;
+
+import chess.Move;
+
+public class SearchResult {
+	
+	private final int bestMove;
+	private final int score;
+	private final int depth;
+	private final long nodes;
+	private final long millis;
+	private final int[] pv;
+	
+	public SearchResult(int bestMove, int score, int depth, long nodes, long millis, int[] pv) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.millis = millis;
+		this.pv = pv;
+	}
+	
+	public int getBestMove() {
+		return this.bestMove;
+	}
+	
+	public int getScore() {
+		return this.score;
+	}
+	
+	public int getDepth() {
+		return this.depth;
+	}
+	
+	public long getNodes() {
+		return this.nodes;
+	}
+	
+	public long getMillis() {
+		return this.millis;
+	}
+	
+	public long getNodesPerSecond() {
+		return this.nodes * 1000 / Math.max(1, this.millis);
+	}
+	
+	public int[] getPv() {
+		return Arrays.copyOf(this.pv, this.pv.length);
+	}
+	
+	public boolean isMate() {
+		return Math.abs(this.score) >= SearchEngine.MATE - MoveOrdering.MAX_PLY;
+	}
+	
+	// Moves (not plies) to mate, positive when the side to move mates.
+	public int getMateIn() {
+		int plies = SearchEngine.MATE - Math.abs(this.score);
+		return (this.score > 0) ? (plies + 1) / 2 : -(plies / 2);
+	}
+	
+	public String getPvString() {
+		StringBuilder sb = new StringBuilder();
+		for (int move : this.pv) {
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(Move.toString(move));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,114 @@
+package engine;
+
+public class Sprt {
+
+	public enum Decision {
+		CONTINUE,
+		ACCEPT_H0,
+		ACCEPT_H1;
+	}
+
+	private final double elo0;
+	private final double elo1;
+	private final double lowerBound;
+	private final double upperBound;
+
+	private int wins;
+	private int draws;
+	private int losses;
+
+	// Tests H0: elo <= elo0 against H1: elo >= elo1 with error rates alpha and beta.
+	public Sprt(double elo0, double elo1, double alpha, double beta) {
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.lowerBound = Math.log(beta / (1 - alpha));
+		this.upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	// Result of one game from the point of view of the tested configuration: 1, 0.5 or 0.
+	public synchronized void add(double score) {
+		if (score > 0.5) {
+			this.wins ++;
+		} else if (score < 0.5) {
+			this.losses ++;
+		} else {
+			this.draws ++;
+		}
+	}
+
+	public synchronized int getGames() {
+		return this.wins + this.draws + this.losses;
+	}
+
+	public synchronized double getScore() {
+		int games = getGames();
+		return (games == 0) ? 0.5 : (this.wins + this.draws / 2.0) / games;
+	}
+
+	public synchronized double getElo() {
+		return elo(getScore());
+	}
+
+	// Half width of the 95% confidence interval of the Elo difference.
+	public synchronized double getEloMargin() {
+		int games = getGames();
+		if (games == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double score = getScore();
+		double margin = 1.959964 * Math.sqrt(variance(score) / games);
+		return (elo(Math.min(score + margin, 0.999)) - elo(Math.max(score - margin, 0.001))) / 2;
+	}
+
+	// Generalized SPRT log-likelihood ratio under the normal approximation of the trinomial model.
+	public synchronized double getLlr() {
+		int games = getGames();
+		double score = getScore();
+		double variance = variance(score);
+		if (games == 0 || variance <= 0) {
+			return 0;
+		}
+		double s0 = expectedScore(this.elo0);
+		double s1 = expectedScore(this.elo1);
+		return games * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+	}
+
+	public synchronized Decision getDecision() {
+		double llr = getLlr();
+		if (llr >= this.upperBound) {
+			return Decision.ACCEPT_H1;
+		}
+		if (llr <= this.lowerBound) {
+			return Decision.ACCEPT_H0;
+		}
+		return Decision.CONTINUE;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("Games %d: +%d =%d -%d  score %.1f%%  elo %+.1f +/- %.1f  LLR %.2f [%.2f, %.2f] (%.1f, %.1f)  %s",
+				getGames(), this.wins, this.draws, this.losses, getScore() * 100, getElo(), getEloMargin(),
+				getLlr(), this.lowerBound, this.upperBound, this.elo0, this.elo1, getDecision());
+	}
+
+	private double variance(double score) {
+		int games = getGames();
+		if (games == 0) {
+			return 0;
+		}
+		return (this.wins * Math.pow(1 - score, 2) + this.draws * Math.pow(0.5 - score, 2)
+				+ this.losses * Math.pow(score, 2)) / games;
+	}
+
+	public static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	public static double elo(double score) {
+		if (score <= 0 || score >= 1) {
+			return (score <= 0) ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+}
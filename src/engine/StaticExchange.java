@@ -0,0 +1,200 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.Square;
+
+public class StaticExchange {
+
+	private static final int[] VALUES = {PieceValues.PAWN, PieceValues.KNIGHT, PieceValues.BISHOP,
+			PieceValues.ROOK, PieceValues.QUEEN, PieceValues.KING};
+	private static final int PAWN = 0;
+	private static final int KNIGHT = 1;
+	private static final int BISHOP = 2;
+	private static final int ROOK = 3;
+	private static final int QUEEN = 4;
+	private static final int KING = 5;
+
+	private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+	private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+	private static final int[][] DIAGONALS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+	private static final int[][] LINES = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+	// Square contents: -1 for empty, otherwise type index plus 8 for black pieces.
+	private final int[] board = new int[Square.COUNT];
+	private final int[] gain = new int[40];
+
+	public int evaluate(ChessMatch chessMatch, int move) {
+		load(chessMatch);
+		int origin = Move.origin(move);
+		int target = Move.target(move);
+		long occupied = occupied();
+
+		int victim = this.board[target];
+		if (victim >= 0 && colorOf(target) == colorOf(origin)) {
+			// Chess960 castling, encoded as the king taking its own rook, wins nothing
+			return 0;
+		}
+		int captured = (victim < 0) ? 0 : VALUES[victim & 7];
+		if (victim < 0 && (this.board[origin] & 7) == PAWN && Square.column(origin) != Square.column(target)) {
+			captured = PieceValues.PAWN;
+			occupied &= ~(1L << Square.index(Square.row(origin), Square.column(target)));
+		}
+		int attackerValue = VALUES[this.board[origin] & 7];
+		String promotion = Move.promotion(move);
+		if (promotion != null) {
+			captured += PieceValues.of(promotion) - PieceValues.PAWN;
+			attackerValue = PieceValues.of(promotion);
+		}
+		return swap(origin, target, occupied, captured, attackerValue, colorOf(origin));
+	}
+
+	public boolean isAtLeast(ChessMatch chessMatch, int move, int threshold) {
+		return evaluate(chessMatch, move) >= threshold;
+	}
+
+	// Material the opponent of the piece on the square can win by starting an exchange there,
+	// or 0 when the piece is empty, unattacked or adequately defended.
+	public int threat(ChessMatch chessMatch, int square) {
+		load(chessMatch);
+		if (this.board[square] < 0) {
+			return 0;
+		}
+		Color attacker = (colorOf(square) == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		long occupied = occupied();
+		int from = leastValuableAttacker(square, attacker, occupied);
+		if (from < 0) {
+			return 0;
+		}
+		int value = swap(from, square, occupied, VALUES[this.board[square] & 7], VALUES[this.board[from] & 7], attacker);
+		return Math.max(value, 0);
+	}
+
+	private int swap(int from, int target, long occupied, int captured, int attackerValue, Color side) {
+		int depth = 0;
+		this.gain[0] = captured;
+		occupied &= ~(1L << from);
+		boolean kingCaptured = (this.board[from] & 7) == KING;
+
+		while (true) {
+			side = (side == Color.WHITE) ? Color.BLACK : Color.WHITE;
+			int next = leastValuableAttacker(target, side, occupied);
+			if (next < 0) {
+				break;
+			}
+			if (kingCaptured) {
+				// the previous capture was made by a king into a defended square, so it was illegal
+				depth--;
+				break;
+			}
+			depth++;
+			this.gain[depth] = attackerValue - this.gain[depth - 1];
+			if (Math.max(-this.gain[depth - 1], this.gain[depth]) < 0) {
+				break;
+			}
+			attackerValue = VALUES[this.board[next] & 7];
+			kingCaptured = (this.board[next] & 7) == KING;
+			occupied &= ~(1L << next);
+		}
+
+		if (depth < 0) {
+			return -VALUES[KING];
+		}
+		while (depth > 0) {
+			this.gain[depth - 1] = -Math.max(-this.gain[depth - 1], this.gain[depth]);
+			depth--;
+		}
+		return this.gain[0];
+	}
+
+	private int leastValuableAttacker(int target, Color side, long occupied) {
+		int row = Square.row(target);
+		int column = Square.column(target);
+		int pawnRow = (side == Color.WHITE) ? row + 1 : row - 1;
+		int best = -1;
+		for (int dc = -1; dc <= 1; dc += 2) {
+			best = better(best, square(pawnRow, column + dc), PAWN, side, occupied);
+		}
+		for (int[] step : KNIGHT_STEPS) {
+			best = better(best, square(row + step[0], column + step[1]), KNIGHT, side, occupied);
+		}
+		for (int[] direction : DIAGONALS) {
+			int hit = firstOccupied(target, direction, occupied);
+			best = better(best, hit, BISHOP, side, occupied);
+			best = better(best, hit, QUEEN, side, occupied);
+		}
+		for (int[] direction : LINES) {
+			int hit = firstOccupied(target, direction, occupied);
+			best = better(best, hit, ROOK, side, occupied);
+			best = better(best, hit, QUEEN, side, occupied);
+		}
+		for (int[] step : KING_STEPS) {
+			best = better(best, square(row + step[0], column + step[1]), KING, side, occupied);
+		}
+		return best;
+	}
+
+	private int better(int best, int square, int type, Color side, long occupied) {
+		if (square < 0 || (occupied & (1L << square)) == 0) {
+			return best;
+		}
+		int piece = this.board[square];
+		if ((piece & 7) != type || colorOf(square) != side) {
+			return best;
+		}
+		if (best < 0 || VALUES[type] < VALUES[this.board[best] & 7]) {
+			return square;
+		}
+		return best;
+	}
+
+	private int firstOccupied(int from, int[] direction, long occupied) {
+		int row = Square.row(from) + direction[0];
+		int column = Square.column(from) + direction[1];
+		while (row >= 0 && row < 8 && column >= 0 && column < 8) {
+			int square = Square.index(row, column);
+			if ((occupied & (1L << square)) != 0) {
+				return square;
+			}
+			row += direction[0];
+			column += direction[1];
+		}
+		return -1;
+	}
+
+	private void load(ChessMatch chessMatch) {
+		for (int i=0; i<Square.COUNT; i++) {
+			ChessPiece piece = chessMatch.getPiece(i);
+			if (piece == null) {
+				this.board[i] = -1;
+			} else {
+				int type = piece.getType().ordinal();
+				this.board[i] = (piece.getColor() == Color.BLACK) ? type + 8 : type;
+			}
+		}
+	}
+
+	private long occupied() {
+		long occupied = 0;
+		for (int i=0; i<Square.COUNT; i++) {
+			if (this.board[i] >= 0) {
+				occupied |= 1L << i;
+			}
+		}
+		return occupied;
+	}
+
+	private Color colorOf(int square) {
+		return (this.board[square] >= 8) ? Color.BLACK : Color.WHITE;
+	}
+
+	private static int square(int row, int column) {
+		if (row < 0 || row > 7 || column < 0 || column > 7) {
+			return -1;
+		}
+		return Square.index(row, column);
+	}
+
+}
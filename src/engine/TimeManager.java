@@ -0,0 +1,63 @@
+package engine;
+
+// Turns the clock into a time budget for one move. A normal move should take about the
+// optimum; between iterations the search stops sooner when the best move has been stable for a
+// few iterations and goes on longer when the best move changes or the score drops, but never
+// past the maximum, which the search enforces as a hard deadline.
+public class TimeManager {
+
+	// Kept back from every budget for communication and scheduling lag.
+	public static final long MOVE_OVERHEAD = 30;
+
+	private static final int DEFAULT_MOVES_TO_GO = 30;
+	private static final int MAX_MOVES_TO_GO = 50;
+	private static final int MAX_FACTOR = 4;
+	private static final int STABLE_ITERATIONS = 3;
+	private static final int FAIL_LOW_MARGIN = 30;
+
+	private final long optimum;
+	private final long maximum;
+	private int lastBestMove;
+	private int lastScore;
+	private int stableIterations;
+
+	public TimeManager(long time, long increment, int movesToGo) {
+		long available = Math.max(1, time - MOVE_OVERHEAD);
+		int moves = (movesToGo > 0) ? Math.min(movesToGo, MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+		long optimum = available / moves + increment * 3 / 4;
+		this.maximum = Math.max(1, Math.min(optimum * MAX_FACTOR, available * 4 / 5));
+		this.optimum = Math.max(1, Math.min(optimum, this.maximum));
+	}
+
+	public long getOptimum() {
+		return this.optimum;
+	}
+
+	public long getMaximum() {
+		return this.maximum;
+	}
+
+	// Called after each completed iteration with the time used so far.
+	public boolean shouldStop(long elapsed, int bestMove, int score, int depth) {
+		int percent = 100;
+		if (depth > 1) {
+			if (bestMove == this.lastBestMove) {
+				this.stableIterations ++;
+			} else {
+				this.stableIterations = 0;
+				percent = 130;
+			}
+			if (this.stableIterations >= STABLE_ITERATIONS) {
+				percent = 50;
+			}
+			if (score <= this.lastScore - FAIL_LOW_MARGIN) {
+				percent = 200;
+			}
+		}
+		this.lastBestMove = bestMove;
+		this.lastScore = score;
+		// the next iteration usually takes longer than all the previous ones together
+		return elapsed * 2 >= this.optimum * percent / 100;
+	}
+
+}
@@ -0,0 +1,64 @@
+package engine;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+	
+	public static final int EXACT = 0;
+	public static final int LOWER = 1;
+	public static final int UPPER = 2;
+	
+	// 2^30 entries of 16 bytes, the largest power of two a long[] can hold
+	public static final int MAX_MEGABYTES = 16384;
+	private static final long MAX_ENTRIES = 1L << 30;
+	
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+	
+	public TranspositionTable(int megabytes) {
+		int entries = (int)Long.highestOneBit(Math.min(MAX_ENTRIES, Math.max(1, megabytes * 1024L * 1024 / 16)));
+		this.keys = new long[entries];
+		this.data = new long[entries];
+		this.mask = entries - 1;
+	}
+	
+	// Returns the packed entry for the key, or 0 when there is none.
+	public long probe(long key) {
+		int i = (int)(key ^ (key >>> 32)) & this.mask;
+		long value = this.data[i];
+		return ((this.keys[i] ^ value) == key) ? value : 0;
+	}
+	
+	public void store(long key, int move, int score, int depth, int bound) {
+		int i = (int)(key ^ (key >>> 32)) & this.mask;
+		long value = (move & 0xffffL)
+				| ((long)((score + 32768) & 0xffff) << 16)
+				| ((long)(depth & 0xff) << 32)
+				| ((long)(bound + 1) << 40);
+		this.data[i] = value;
+		this.keys[i] = key ^ value;
+	}
+	
+	public void clear() {
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.data, 0);
+	}
+	
+	public static int move(long entry) {
+		return (int)(entry & 0xffff);
+	}
+	
+	public static int score(long entry) {
+		return (int)((entry >>> 16) & 0xffff) - 32768;
+	}
+	
+	public static int depth(long entry) {
+		return (int)((entry >>> 32) & 0xff);
+	}
+	
+	public static int bound(long entry) {
+		return (int)((entry >>> 40) & 3) - 1;
+	}
+
+}
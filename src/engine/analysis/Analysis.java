@@ -0,0 +1,70 @@
+package engine.analysis;
+
+import java.util.Arrays;
+
+import engine.SearchResult;
+
+// What an analysis found for one position: best move, score for the side to move, completed
+// depth, principal variation and the legal moves.
+public class Analysis {
+
+	private final long key;
+	private final int bestMove;
+	private final int score;
+	private final int depth;
+	private final int[] pv;
+	private final int[] legalMoves;
+
+	public Analysis(long key, int bestMove, int score, int depth, int[] pv, int[] legalMoves) {
+		this.key = key;
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.pv = pv.clone();
+		this.legalMoves = legalMoves.clone();
+	}
+
+	public static Analysis of(long key, SearchResult result, int[] legalMoves) {
+		return new Analysis(key, result.getBestMove(), result.getScore(), result.getDepth(), result.getPv(), legalMoves);
+	}
+
+	public long getKey() {
+		return this.key;
+	}
+
+	public int getBestMove() {
+		return this.bestMove;
+	}
+
+	public int getScore() {
+		return this.score;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public int[] getPv() {
+		return this.pv.clone();
+	}
+
+	public int[] getLegalMoves() {
+		return this.legalMoves.clone();
+	}
+
+	public int getLegalMoveCount() {
+		return this.legalMoves.length;
+	}
+
+	// As a search result, so callers can report a cached analysis like a finished search.
+	public SearchResult toSearchResult() {
+		return new SearchResult(this.bestMove, this.score, this.depth, 0, 0, this.pv.clone());
+	}
+
+	@Override
+	public String toString() {
+		return "Analysis [key=" + Long.toHexString(this.key) + ", depth=" + this.depth + ", score=" + this.score
+				+ ", pv=" + Arrays.toString(this.pv) + "]";
+	}
+
+}
@@ -0,0 +1,207 @@
+package engine.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Analyses by position key, bounded by entry count, with W-TinyLFU eviction: new entries go
+// into a small LRU window, and an entry pushed out of the window only displaces the least
+// recently used entry of the main LRU region if the frequency sketch has seen it more often.
+// One-off positions therefore cannot flush the hot ones. save and load keep the entries,
+// their recency order and the frequency sketch across restarts.
+public class AnalysisCache {
+
+	public static final int MAGIC = 0x43414331;
+	public static final int VERSION = 2;
+
+	private static final int WINDOW_PERCENT = 1;
+
+	private final int windowCapacity;
+	private final int mainCapacity;
+	private final LinkedHashMap<Long, Analysis> window = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<Long, Analysis> main = new LinkedHashMap<>(16, 0.75f, true);
+	private final FrequencySketch sketch;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public AnalysisCache(int capacity) {
+		if (capacity < 2) {
+			throw new IllegalArgumentException("Analysis cache needs room for at least 2 entries");
+		}
+		this.windowCapacity = Math.max(1, capacity * WINDOW_PERCENT / 100);
+		this.mainCapacity = capacity - this.windowCapacity;
+		this.sketch = new FrequencySketch(capacity);
+	}
+
+	public synchronized Analysis get(long key) {
+		this.sketch.increment(key);
+		Analysis analysis = this.window.get(key);
+		if (analysis == null) {
+			analysis = this.main.get(key);
+		}
+		if (analysis == null) {
+			this.misses ++;
+		} else {
+			this.hits ++;
+		}
+		return analysis;
+	}
+
+	// Keeps the deeper analysis when the position is already cached.
+	public synchronized void put(Analysis analysis) {
+		long key = analysis.getKey();
+		this.sketch.increment(key);
+		if (replace(this.window, analysis) || replace(this.main, analysis)) {
+			return;
+		}
+		this.window.put(key, analysis);
+		if (this.window.size() > this.windowCapacity) {
+			Analysis candidate = removeEldest(this.window);
+			if (this.main.size() < this.mainCapacity) {
+				this.main.put(candidate.getKey(), candidate);
+				return;
+			}
+			Analysis victim = this.main.values().iterator().next();
+			if (this.sketch.frequency(candidate.getKey()) > this.sketch.frequency(victim.getKey())) {
+				this.main.remove(victim.getKey());
+				this.main.put(candidate.getKey(), candidate);
+			}
+			this.evictions ++;
+		}
+	}
+
+	public synchronized int size() {
+		return this.window.size() + this.main.size();
+	}
+
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	// Writes a snapshot next to the target and renames it over the target, so a crash while
+	// saving never leaves a truncated file behind.
+	public synchronized void save(Path path) throws IOException {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(size());
+			this.sketch.write(out);
+			// least recently used first, so loading in file order restores the recency order
+			for (Analysis analysis : this.main.values()) {
+				write(out, analysis, false);
+			}
+			for (Analysis analysis : this.window.values()) {
+				write(out, analysis, true);
+			}
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Adds the entries of a snapshot; a missing file leaves the cache empty.
+	public synchronized void load(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not an analysis cache snapshot: " + path);
+			}
+			int count = in.readInt();
+			// an empty cache of the same capacity takes the saved sketch over as it was;
+			// otherwise each entry's frequency is restored on its own
+			boolean restored = this.sketch.read(in, size() == 0);
+			for (int i=0; i<count; i++) {
+				boolean inWindow = in.readBoolean();
+				int frequency = in.readByte();
+				long key = in.readLong();
+				int bestMove = in.readInt();
+				int score = in.readInt();
+				int depth = in.readShort();
+				int[] pv = readMoves(in);
+				int[] legalMoves = readMoves(in);
+				// raised to the saved estimate rather than incremented by it, since the keys
+				// sharing a counter with this one have raised it already
+				while (!restored && this.sketch.frequency(key) < frequency) {
+					this.sketch.increment(key);
+				}
+				LinkedHashMap<Long, Analysis> region = inWindow ? this.window : this.main;
+				region.put(key, new Analysis(key, bestMove, score, depth, pv, legalMoves));
+			}
+		}
+		while (this.window.size() > this.windowCapacity) {
+			removeEldest(this.window);
+		}
+		while (this.main.size() > this.mainCapacity) {
+			removeEldest(this.main);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		long lookups = this.hits + this.misses;
+		return "Analysis cache: " + size() + " entries, " + this.hits + "/" + lookups + " hits, "
+				+ this.evictions + " evictions";
+	}
+
+	private void write(DataOutputStream out, Analysis analysis, boolean inWindow) throws IOException {
+		out.writeBoolean(inWindow);
+		out.writeByte(this.sketch.frequency(analysis.getKey()));
+		out.writeLong(analysis.getKey());
+		out.writeInt(analysis.getBestMove());
+		out.writeInt(analysis.getScore());
+		out.writeShort(analysis.getDepth());
+		writeMoves(out, analysis.getPv());
+		writeMoves(out, analysis.getLegalMoves());
+	}
+
+	private static void writeMoves(DataOutputStream out, int[] moves) throws IOException {
+		out.writeShort(moves.length);
+		for (int move : moves) {
+			out.writeInt(move);
+		}
+	}
+
+	private static int[] readMoves(DataInputStream in) throws IOException {
+		int[] moves = new int[in.readUnsignedShort()];
+		for (int i=0; i<moves.length; i++) {
+			moves[i] = in.readInt();
+		}
+		return moves;
+	}
+
+	private static boolean replace(LinkedHashMap<Long, Analysis> region, Analysis analysis) {
+		Analysis cached = region.get(analysis.getKey());
+		if (cached == null) {
+			return false;
+		}
+		if (analysis.getDepth() >= cached.getDepth()) {
+			region.put(analysis.getKey(), analysis);
+		}
+		return true;
+	}
+
+	private static Analysis removeEldest(LinkedHashMap<Long, Analysis> region) {
+		Iterator<Analysis> iterator = region.values().iterator();
+		Analysis eldest = iterator.next();
+		iterator.remove();
+		return eldest;
+	}
+
+}
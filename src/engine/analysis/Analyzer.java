@@ -0,0 +1,67 @@
+package engine.analysis;
+
+import chess.ChessMatch;
+import chess.Move;
+import engine.SearchEngine;
+import engine.SearchLimits;
+import engine.SearchResult;
+
+// A SearchEngine behind an AnalysisCache. A position already analysed at least as deep as
+// asked is answered from the cache without searching; anything else is searched and the
+// result stored for next time. Like the engine it wraps, one Analyzer serves one thread.
+public class Analyzer {
+
+	private final SearchEngine engine;
+	private final AnalysisCache cache;
+	private final int[] moves = new int[Move.MAX_MOVES];
+
+	public Analyzer(SearchEngine engine, AnalysisCache cache) {
+		this.engine = engine;
+		this.cache = cache;
+	}
+
+	public SearchEngine getEngine() {
+		return this.engine;
+	}
+
+	public AnalysisCache getCache() {
+		return this.cache;
+	}
+
+	// The cached analysis when it is deep enough for the limits, otherwise null. Searches
+	// limited by nodes or time cannot be judged by depth, and ponder searches must wait for
+	// the opponent's move, so they always miss.
+	public Analysis lookup(ChessMatch chessMatch, SearchLimits limits) {
+		if (limits.getDepth() <= 0 || limits.getNodes() > 0 || limits.getMoveTime() > 0
+				|| limits.getTime() > 0 || limits.isPonder()) {
+			return null;
+		}
+		Analysis analysis = this.cache.get(chessMatch.getPositionKey());
+		return (analysis != null && analysis.getDepth() >= limits.getDepth()) ? analysis : null;
+	}
+
+	public Analysis analyze(ChessMatch chessMatch, SearchLimits limits) {
+		Analysis analysis = lookup(chessMatch, limits);
+		if (analysis != null) {
+			return analysis;
+		}
+		return store(chessMatch, this.engine.search(chessMatch, limits));
+	}
+
+	public Analysis analyze(ChessMatch chessMatch, int depth) {
+		return analyze(chessMatch, SearchLimits.depth(depth));
+	}
+
+	// Records a search of the position made elsewhere, e.g. a time-limited game search.
+	public Analysis store(ChessMatch chessMatch, SearchResult result) {
+		int count = chessMatch.generateMoves(this.moves);
+		int[] legalMoves = new int[count];
+		System.arraycopy(this.moves, 0, legalMoves, 0, count);
+		Analysis analysis = Analysis.of(chessMatch.getPositionKey(), result, legalMoves);
+		if (result.getDepth() > 0) {
+			this.cache.put(analysis);
+		}
+		return analysis;
+	}
+
+}
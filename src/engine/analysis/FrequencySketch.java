@@ -0,0 +1,95 @@
+package engine.analysis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Approximate access counts for TinyLFU admission: a count-min sketch of 4-bit counters,
+// four per key, packed sixteen to a long. Once the number of recorded accesses reaches ten
+// times the cache size every counter is halved, so old popularity fades away.
+class FrequencySketch {
+
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+			0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAX_COUNT = 15;
+
+	private final long[] table;
+	private final int mask;
+	private final int sampleSize;
+	private int additions;
+
+	// One to two longs, sixteen counters, per cached entry; a quarter of that let collisions
+	// lift one-off keys above the hot ones.
+	FrequencySketch(int capacity) {
+		int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+		this.table = new long[size];
+		this.mask = this.table.length - 1;
+		this.sampleSize = 10 * Math.max(1, capacity);
+	}
+
+	int frequency(long key) {
+		int frequency = MAX_COUNT;
+		for (int i=0; i<SEEDS.length; i++) {
+			int hash = hash(key, i);
+			int shift = (hash >>> 28) << 2;
+			frequency = Math.min(frequency, (int)(this.table[hash & this.mask] >>> shift) & MAX_COUNT);
+		}
+		return frequency;
+	}
+
+	void increment(long key) {
+		boolean added = false;
+		for (int i=0; i<SEEDS.length; i++) {
+			int hash = hash(key, i);
+			int index = hash & this.mask;
+			int shift = (hash >>> 28) << 2;
+			if (((this.table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+				this.table[index] += 1L << shift;
+				added = true;
+			}
+		}
+		if (added && ++this.additions >= this.sampleSize) {
+			reset();
+		}
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(this.table.length);
+		for (long counters : this.table) {
+			out.writeLong(counters);
+		}
+		out.writeInt(this.additions);
+	}
+
+	// Reads counters written by write, taking them over only if replace is set and they were
+	// written by a sketch of the same size; returns whether they were taken over.
+	boolean read(DataInputStream in, boolean replace) throws IOException {
+		long[] counters = new long[in.readInt()];
+		for (int i=0; i<counters.length; i++) {
+			counters[i] = in.readLong();
+		}
+		int count = in.readInt();
+		if (!replace || counters.length != this.table.length) {
+			return false;
+		}
+		System.arraycopy(counters, 0, this.table, 0, counters.length);
+		this.additions = count;
+		return true;
+	}
+
+	private void reset() {
+		for (int i=0; i<this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		this.additions /= 2;
+	}
+
+	// Row selected by the low bits, counter within the long by the top four bits.
+	private static int hash(long key, int seed) {
+		long hash = (key + SEEDS[seed]) * SEEDS[(seed + 1) % SEEDS.length];
+		hash ^= hash >>> 32;
+		return (int)hash;
+	}
+
+}
@@ -0,0 +1,124 @@
+package engine.nnue;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceListener;
+import chess.Square;
+import engine.Evaluator;
+
+// Hidden layer of a Network for both sides of one match, kept up to date as a PieceListener.
+// Changes are queued and only applied when the position is evaluated, and a change that
+// reverses the last queued one cancels it, so the make/undo pairs used to test legality
+// cost nothing. The int16 additions wrap exactly like the network trainer's, so adding and
+// subtracting the same columns always restores the previous values.
+public class Accumulator implements PieceListener {
+
+	private static final int MAX_PENDING = 32;
+
+	private final Network network;
+	private final short[] white;
+	private final short[] black;
+	// Feature index plus one, negative for removals.
+	private final int[] pending = new int[MAX_PENDING];
+	private int pendingCount;
+
+	public Accumulator(Network network) {
+		this.network = network;
+		this.white = new short[network.getHidden()];
+		this.black = new short[network.getHidden()];
+	}
+
+	public Network getNetwork() {
+		return this.network;
+	}
+
+	// Rebuilds both sides from the pieces on the board.
+	public void refresh(ChessMatch chessMatch) {
+		this.pendingCount = 0;
+		System.arraycopy(this.network.hiddenBiases, 0, this.white, 0, this.white.length);
+		System.arraycopy(this.network.hiddenBiases, 0, this.black, 0, this.black.length);
+		for (int square=0; square<Square.COUNT; square++) {
+			ChessPiece piece = chessMatch.getPiece(square);
+			if (piece != null) {
+				apply(feature(piece, square) + 1);
+			}
+		}
+	}
+
+	public int evaluate(Color sideToMove) {
+		flush();
+		return (sideToMove == Color.WHITE)
+				? this.network.evaluate(this.white, this.black)
+				: this.network.evaluate(this.black, this.white);
+	}
+
+	@Override
+	public void pieceAdded(ChessPiece piece, int square) {
+		queue(feature(piece, square) + 1);
+	}
+
+	@Override
+	public void pieceRemoved(ChessPiece piece, int square) {
+		queue(-(feature(piece, square) + 1));
+	}
+
+	private void queue(int change) {
+		if (this.pendingCount > 0 && this.pending[this.pendingCount - 1] == -change) {
+			this.pendingCount --;
+			return;
+		}
+		if (this.pendingCount == MAX_PENDING) {
+			flush();
+		}
+		this.pending[this.pendingCount++] = change;
+	}
+
+	private void flush() {
+		for (int i=0; i<this.pendingCount; i++) {
+			apply(this.pending[i]);
+		}
+		this.pendingCount = 0;
+	}
+
+	// Adds or subtracts the weight columns of one feature, seen from white and from black.
+	private void apply(int change) {
+		int feature = Math.abs(change) - 1;
+		int hidden = this.white.length;
+		short[] weights = this.network.inputWeights;
+		int whiteOffset = feature * hidden;
+		int blackOffset = flip(feature) * hidden;
+		if (change > 0) {
+			for (int i=0; i<hidden; i++) {
+				this.white[i] += weights[whiteOffset + i];
+			}
+			for (int i=0; i<hidden; i++) {
+				this.black[i] += weights[blackOffset + i];
+			}
+		} else {
+			for (int i=0; i<hidden; i++) {
+				this.white[i] -= weights[whiteOffset + i];
+			}
+			for (int i=0; i<hidden; i++) {
+				this.black[i] -= weights[blackOffset + i];
+			}
+		}
+	}
+
+	// Input index seen from white: colour, piece type and square, row 0 being the eighth rank.
+	static int feature(ChessPiece piece, int square) {
+		int type = piece.getType().ordinal();
+		int color = (piece.getColor() == Color.WHITE) ? 0 : 1;
+		return (color * Evaluator.PIECE_TYPES + type) * Square.COUNT + square;
+	}
+
+	// The same input seen from black: colours swapped and the board mirrored vertically.
+	static int flip(int feature) {
+		int square = feature % Square.COUNT;
+		int piece = feature / Square.COUNT;
+		int color = piece / Evaluator.PIECE_TYPES;
+		int type = piece % Evaluator.PIECE_TYPES;
+		return ((1 - color) * Evaluator.PIECE_TYPES + type) * Square.COUNT + (square ^ 56);
+	}
+
+}
@@ -0,0 +1,122 @@
+package engine.nnue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Quantised 768 -> 2 x hidden -> 1 network. Each side keeps an accumulator of the hidden layer
+// over the 768 (colour, piece, square) inputs seen from its own side, so a move only adds and
+// subtracts a few weight columns. The output layer reads the side to move's accumulator first.
+//
+// File layout, big-endian: magic, version, hidden size, then the input weights as int16
+// [feature][hidden], the hidden biases as int16, the output weights as int16 [2 x hidden]
+// and the output bias as int32.
+public final class Network {
+
+	public static final int MAGIC = 0x4E4E5531;
+	public static final int VERSION = 1;
+	public static final int FEATURES = 768;
+	public static final int MAX_HIDDEN = 4096;
+
+	// Hidden activations are clipped to [0, QA]; output weights are scaled by QB.
+	static final int QA = 255;
+	static final int QB = 64;
+	static final int SCALE = 400;
+
+	private final int hidden;
+	final short[] inputWeights;
+	final short[] hiddenBiases;
+	private final short[] outputWeights;
+	private final int outputBias;
+
+	Network(int hidden, short[] inputWeights, short[] hiddenBiases, short[] outputWeights, int outputBias) {
+		this.hidden = hidden;
+		this.inputWeights = inputWeights;
+		this.hiddenBiases = hiddenBiases;
+		this.outputWeights = outputWeights;
+		this.outputBias = outputBias;
+	}
+
+	public static Network load(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a network file: " + path);
+			}
+			int hidden = in.readInt();
+			if (hidden <= 0 || hidden > MAX_HIDDEN) {
+				throw new IOException("Invalid hidden layer size " + hidden + " in " + path);
+			}
+			short[] inputWeights = readShorts(in, FEATURES * hidden);
+			short[] hiddenBiases = readShorts(in, hidden);
+			short[] outputWeights = readShorts(in, 2 * hidden);
+			return new Network(hidden, inputWeights, hiddenBiases, outputWeights, in.readInt());
+		}
+	}
+
+	public void save(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(this.hidden);
+			writeShorts(out, this.inputWeights);
+			writeShorts(out, this.hiddenBiases);
+			writeShorts(out, this.outputWeights);
+			out.writeInt(this.outputBias);
+		}
+	}
+
+	// Small random weights, only useful for checking the plumbing.
+	public static Network random(int hidden, long seed) {
+		Random random = new Random(seed);
+		short[] inputWeights = new short[FEATURES * hidden];
+		for (int i=0; i<inputWeights.length; i++) {
+			inputWeights[i] = (short)(random.nextInt(65) - 32);
+		}
+		short[] hiddenBiases = new short[hidden];
+		short[] outputWeights = new short[2 * hidden];
+		for (int i=0; i<outputWeights.length; i++) {
+			outputWeights[i] = (short)(random.nextInt(129) - 64);
+		}
+		return new Network(hidden, inputWeights, hiddenBiases, outputWeights, 0);
+	}
+
+	public int getHidden() {
+		return this.hidden;
+	}
+
+	// Centipawns for the side whose accumulator is given first.
+	int evaluate(short[] us, short[] them) {
+		long sum = 0;
+		for (int i=0; i<this.hidden; i++) {
+			sum += clip(us[i]) * this.outputWeights[i];
+		}
+		for (int i=0; i<this.hidden; i++) {
+			sum += clip(them[i]) * this.outputWeights[this.hidden + i];
+		}
+		return (int)((sum + this.outputBias) * SCALE / (QA * QB));
+	}
+
+	private static int clip(short value) {
+		return Math.min(Math.max(value, 0), QA);
+	}
+
+	private static short[] readShorts(DataInputStream in, int count) throws IOException {
+		short[] values = new short[count];
+		for (int i=0; i<count; i++) {
+			values[i] = in.readShort();
+		}
+		return values;
+	}
+
+	private static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+		for (short value : values) {
+			out.writeShort(value);
+		}
+	}
+
+}
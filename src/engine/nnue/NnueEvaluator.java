@@ -0,0 +1,44 @@
+package engine.nnue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import chess.ChessMatch;
+import chess.PieceListener;
+import engine.Evaluator;
+
+// Evaluates with a Network instead of the piece-square tables. The accumulator lives on the
+// match as its PieceListener, attached and filled the first time the match is evaluated, so
+// one evaluator can serve any number of matches and search threads. Only 8x8 boards are
+// supported.
+public class NnueEvaluator extends Evaluator {
+
+	private final Network network;
+
+	public NnueEvaluator(Network network) {
+		this.network = network;
+	}
+
+	public static NnueEvaluator load(Path path) throws IOException {
+		return new NnueEvaluator(Network.load(path));
+	}
+
+	public Network getNetwork() {
+		return this.network;
+	}
+
+	@Override
+	public int evaluate(ChessMatch chessMatch) {
+		PieceListener listener = chessMatch.getPieceListener();
+		Accumulator accumulator;
+		if (listener instanceof Accumulator && ((Accumulator)listener).getNetwork() == this.network) {
+			accumulator = (Accumulator)listener;
+		} else {
+			accumulator = new Accumulator(this.network);
+			accumulator.refresh(chessMatch);
+			chessMatch.setPieceListener(accumulator);
+		}
+		return accumulator.evaluate(chessMatch.getCurrentPlayer());
+	}
+
+}
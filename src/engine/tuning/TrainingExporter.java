@@ -0,0 +1,131 @@
+package engine.tuning;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.Square;
+import chess.archive.ArchivedGame;
+import chess.archive.MoveResolver;
+import chess.archive.PgnReader;
+import engine.StaticExchange;
+
+// Samples quiet positions from game archives (imported, or written by SelfPlay with pgn=)
+// and labels them with the game result, e.g.
+//   java engine.tuning.TrainingExporter train.bin 0.25 selfplay.pgn imported.pgn
+// A position is quiet when the side to move is not in check and has no capture or
+// promotion that wins material by static exchange, so its static evaluation is meaningful.
+public class TrainingExporter {
+
+	private static final int MIN_PLY = 8;
+
+	private final TrainingWriter writer;
+	private final double rate;
+	private final Random random = new Random(0x7E7E1L);
+	private final StaticExchange staticExchange = new StaticExchange();
+	private final int[] moves = new int[Move.MAX_MOVES];
+	private long games;
+	private long skippedGames;
+
+	// rate is the fraction of quiet positions kept, so one game does not contribute dozens of
+	// near-identical positions.
+	public TrainingExporter(TrainingWriter writer, double rate) {
+		this.writer = writer;
+		this.rate = rate;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: TrainingExporter <output> [rate] <games.pgn>...");
+			return;
+		}
+		boolean hasRate = args.length > 2 && args[1].matches("[0-9.]+");
+		double rate = hasRate ? Double.parseDouble(args[1]) : 1;
+		long start = System.nanoTime();
+		try (TrainingWriter writer = new TrainingWriter(Paths.get(args[0]))) {
+			TrainingExporter exporter = new TrainingExporter(writer, rate);
+			for (int i=hasRate ? 2 : 1; i<args.length; i++) {
+				try (PgnReader reader = new PgnReader(Files.newBufferedReader(Paths.get(args[i])))) {
+					ArchivedGame game;
+					while ((game = reader.next()) != null) {
+						exporter.add(game);
+					}
+				}
+			}
+			long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+			System.out.println("Games: " + exporter.games + " (" + exporter.skippedGames + " skipped)");
+			System.out.println("Positions: " + writer.getCount());
+			System.out.println("Time: " + millis + " ms");
+		}
+	}
+
+	public void add(ArchivedGame game) throws IOException {
+		byte result;
+		switch (game.getOutcome()) {
+		case WHITE_WINS:
+			result = TrainingFile.WIN;
+			break;
+		case DRAW:
+			result = TrainingFile.DRAW;
+			break;
+		case BLACK_WINS:
+			result = TrainingFile.LOSS;
+			break;
+		default:
+			this.skippedGames ++;
+			return;
+		}
+		ChessMatch chessMatch;
+		try {
+			chessMatch = (game.getFen() == null) ? new ChessMatch() : new ChessMatch(game.getFen());
+		} catch (ChessException e) {
+			this.skippedGames ++;
+			return;
+		}
+		this.games ++;
+		List<String> tokens = game.getMoves();
+		for (int ply=0; ply<tokens.size(); ply++) {
+			int count = chessMatch.generateMoves(this.moves);
+			if (ply >= MIN_PLY && this.random.nextDouble() < this.rate && isQuiet(chessMatch, count)) {
+				this.writer.write(chessMatch, result);
+			}
+			int move = MoveResolver.resolve(chessMatch, this.moves, count, tokens.get(ply));
+			if (move == Move.NONE) {
+				break;
+			}
+			chessMatch.doMove(move);
+		}
+	}
+
+	private boolean isQuiet(ChessMatch chessMatch, int count) {
+		if (chessMatch.getCheck() || count == 0) {
+			return false;
+		}
+		for (int i=0; i<count; i++) {
+			int move = this.moves[i];
+			if ((isCapture(chessMatch, move) || Move.promotion(move) != null)
+					&& this.staticExchange.evaluate(chessMatch, move) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isCapture(ChessMatch chessMatch, int move) {
+		ChessPiece piece = chessMatch.getPiece(Move.origin(move));
+		ChessPiece victim = chessMatch.getPiece(Move.target(move));
+		if (victim != null) {
+			return victim.getColor() != piece.getColor();
+		}
+		return piece.getType() == PieceType.PAWN && Square.column(Move.origin(move)) != Square.column(Move.target(move));
+	}
+
+}
@@ -0,0 +1,46 @@
+package engine.tuning;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import chess.PositionCodec;
+
+// Labelled positions for tuning: a 16-byte header (magic, version, record count) followed by
+// records of a PositionCodec position and one byte with the game result for white,
+// LOSS, DRAW or WIN.
+public final class TrainingFile {
+
+	public static final int MAGIC = 0x43545231;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = PositionCodec.SIZE + 1;
+
+	public static final byte LOSS = 0;
+	public static final byte DRAW = 1;
+	public static final byte WIN = 2;
+
+	private TrainingFile() {
+	}
+
+	// Reads the header and returns the number of records.
+	public static long count(FileChannel channel, Path path) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IOException("Not a training file: " + path);
+			}
+		}
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("Not a training file: " + path);
+		}
+		return header.getLong(8);
+	}
+
+	// Game result from white's point of view, 0 to 1.
+	public static double score(byte result) {
+		return result / 2.0;
+	}
+
+}
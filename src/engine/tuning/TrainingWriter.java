@@ -0,0 +1,54 @@
+package engine.tuning;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessMatch;
+import chess.PositionCodec;
+
+// Appends records to a new training file; the record count in the header is filled in on close.
+public class TrainingWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Path path;
+	private final DataOutputStream out;
+	private final byte[] record = new byte[TrainingFile.RECORD_SIZE];
+	private long count;
+
+	public TrainingWriter(Path path) throws IOException {
+		this.path = path;
+		this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+		this.out.writeInt(TrainingFile.MAGIC);
+		this.out.writeInt(TrainingFile.VERSION);
+		this.out.writeLong(0);
+	}
+
+	public void write(ChessMatch chessMatch, byte result) throws IOException {
+		PositionCodec.encode(chessMatch, this.record, 0);
+		this.record[PositionCodec.SIZE] = result;
+		this.out.write(this.record);
+		this.count ++;
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.out.close();
+		try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(8).putLong(0, this.count);
+			channel.write(header, 8);
+		}
+	}
+
+}
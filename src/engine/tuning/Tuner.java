@@ -0,0 +1,258 @@
+package engine.tuning;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.PositionCodec;
+import chess.Square;
+import engine.Evaluator;
+
+// Texel tuning of the Evaluator weights: minimises the mean squared error between game results
+// and sigmoid(K * evaluation) over a training file, e.g.
+//   java engine.tuning.Tuner data=train.bin out=weights.txt epochs=200 threads=8
+// Every epoch streams the file once, split into one contiguous range per thread, so the data
+// never has to fit in memory; the summed gradient then takes one Adam step.
+public class Tuner {
+
+	private static final int BLOCK_RECORDS = 1 << 12;
+	private static final double BETA1 = 0.9;
+	private static final double BETA2 = 0.999;
+	private static final double EPSILON = 1e-8;
+	// the king's material value cancels out and stays 0
+	private static final int[] FROZEN = {Evaluator.MATERIAL_OFFSET + Evaluator.PIECE_TYPES - 1};
+
+	private final FileChannel channel;
+	private final long count;
+	private final ExecutorService pool;
+	private final int threads;
+	private final double[] weights;
+	private final double[] moment = new double[Evaluator.WEIGHT_COUNT];
+	private final double[] velocity = new double[Evaluator.WEIGHT_COUNT];
+	private double k = 1;
+	private int steps;
+
+	public Tuner(Path data, int[] weights, int threads) throws IOException {
+		this.channel = FileChannel.open(data, StandardOpenOption.READ);
+		this.count = TrainingFile.count(this.channel, data);
+		this.threads = threads;
+		this.pool = Executors.newFixedThreadPool(threads);
+		this.weights = new double[weights.length];
+		for (int i=0; i<weights.length; i++) {
+			this.weights[i] = weights[i];
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			String[] parts = arg.split("=", 2);
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Expected name=value but got: " + arg);
+			}
+			options.put(parts[0], parts[1]);
+		}
+		if (!options.containsKey("data")) {
+			System.out.println("Usage: Tuner data=<file> [out=weights.txt] [init=<weights>] [epochs=100] "
+					+ "[threads=n] [rate=1] [k=<scale>]");
+			return;
+		}
+		Path output = Paths.get(options.getOrDefault("out", "weights.txt"));
+		int epochs = Integer.parseInt(options.getOrDefault("epochs", "100"));
+		int threads = Integer.parseInt(options.getOrDefault("threads",
+				String.valueOf(Runtime.getRuntime().availableProcessors())));
+		double rate = Double.parseDouble(options.getOrDefault("rate", "1"));
+		int[] initial = options.containsKey("init")
+				? Evaluator.load(Paths.get(options.get("init"))).getWeights() : Evaluator.defaultWeights();
+
+		Tuner tuner = new Tuner(Paths.get(options.get("data")), initial, threads);
+		try {
+			System.out.println("Positions: " + tuner.count);
+			tuner.k = options.containsKey("k") ? Double.parseDouble(options.get("k")) : tuner.fitK();
+			System.out.printf("K: %.4f%n", tuner.k);
+			for (int epoch=1; epoch<=epochs; epoch++) {
+				long start = System.nanoTime();
+				double error = tuner.step(rate);
+				long millis = (System.nanoTime() - start) / 1000000;
+				System.out.printf("Epoch %d: error %.6f (%d ms)%n", epoch, error, millis);
+				Evaluator.save(tuner.getWeights(), output);
+			}
+			System.out.printf("Final error: %.6f%n", tuner.error());
+		} finally {
+			tuner.close();
+		}
+	}
+
+	public int[] getWeights() {
+		int[] rounded = new int[this.weights.length];
+		for (int i=0; i<rounded.length; i++) {
+			rounded[i] = (int)Math.round(this.weights[i]);
+		}
+		return rounded;
+	}
+
+	// Mean squared error of the current weights.
+	public double error() throws InterruptedException {
+		return pass(false).error / Math.max(1, this.count);
+	}
+
+	// One pass over the data and one Adam update; returns the error before the update.
+	public double step(double rate) throws InterruptedException {
+		Pass pass = pass(true);
+		for (int index : FROZEN) {
+			pass.gradient[index] = 0;
+		}
+		this.steps ++;
+		for (int i=0; i<this.weights.length; i++) {
+			double gradient = pass.gradient[i] / Math.max(1, this.count);
+			this.moment[i] = BETA1 * this.moment[i] + (1 - BETA1) * gradient;
+			this.velocity[i] = BETA2 * this.velocity[i] + (1 - BETA2) * gradient * gradient;
+			double m = this.moment[i] / (1 - Math.pow(BETA1, this.steps));
+			double v = this.velocity[i] / (1 - Math.pow(BETA2, this.steps));
+			this.weights[i] -= rate * m / (Math.sqrt(v) + EPSILON);
+		}
+		return pass.error / Math.max(1, this.count);
+	}
+
+	// Scaling constant that best fits the current weights, found by golden section search.
+	public double fitK() throws InterruptedException {
+		double low = 0.1;
+		double high = 3;
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		for (int i=0; i<16; i++) {
+			double a = high - ratio * (high - low);
+			double b = low + ratio * (high - low);
+			this.k = a;
+			double errorA = error();
+			this.k = b;
+			double errorB = error();
+			if (errorA < errorB) {
+				high = b;
+			} else {
+				low = a;
+			}
+		}
+		return (low + high) / 2;
+	}
+
+	public void close() throws IOException {
+		this.pool.shutdownNow();
+		this.channel.close();
+	}
+
+	private Pass pass(boolean gradient) throws InterruptedException {
+		List<Callable<Pass>> tasks = new ArrayList<>();
+		long share = (this.count + this.threads - 1) / this.threads;
+		for (int t=0; t<this.threads; t++) {
+			long first = Math.min(this.count, t * share);
+			long last = Math.min(this.count, first + share);
+			tasks.add(() -> pass(first, last, gradient));
+		}
+		Pass total = new Pass(gradient);
+		for (Future<Pass> future : this.pool.invokeAll(tasks)) {
+			Pass part;
+			try {
+				part = future.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Tuning pass failed", e.getCause());
+			}
+			total.error += part.error;
+			if (gradient) {
+				for (int i=0; i<total.gradient.length; i++) {
+					total.gradient[i] += part.gradient[i];
+				}
+			}
+		}
+		return total;
+	}
+
+	// Streams records [first, last) in blocks; nothing is allocated per record.
+	private Pass pass(long first, long last, boolean gradient) throws IOException {
+		Pass pass = new Pass(gradient);
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_RECORDS * TrainingFile.RECORD_SIZE);
+		byte[] bytes = block.array();
+		int[] board = new int[Square.COUNT];
+		double scale = Math.log(10) * this.k / 400;
+		for (long record=first; record<last; record+=BLOCK_RECORDS) {
+			int records = (int)Math.min(BLOCK_RECORDS, last - record);
+			block.clear().limit(records * TrainingFile.RECORD_SIZE);
+			long position = TrainingFile.HEADER_SIZE + record * TrainingFile.RECORD_SIZE;
+			while (block.hasRemaining()) {
+				if (this.channel.read(block, position + block.position()) < 0) {
+					throw new IOException("Unexpected end of training file");
+				}
+			}
+			for (int i=0; i<records; i++) {
+				int offset = i * TrainingFile.RECORD_SIZE;
+				PositionCodec.decode(bytes, offset, board);
+				double score = TrainingFile.score(bytes[offset + PositionCodec.SIZE]);
+				double sigmoid = 1 / (1 + Math.exp(-scale * evaluate(board)));
+				double difference = sigmoid - score;
+				pass.error += difference * difference;
+				if (gradient) {
+					accumulate(board, pass.gradient, 2 * difference * sigmoid * (1 - sigmoid) * scale);
+				}
+			}
+		}
+		return pass;
+	}
+
+	// Same terms as Evaluator.evaluate, from white's point of view.
+	private double evaluate(int[] board) {
+		double score = 0;
+		for (int square=0; square<Square.COUNT; square++) {
+			int code = board[square];
+			if (code == PositionCodec.EMPTY) {
+				continue;
+			}
+			int type = (code & 7) - 1;
+			if ((code & PositionCodec.BLACK) == 0) {
+				score += this.weights[Evaluator.MATERIAL_OFFSET + type] + this.weights[Evaluator.tableIndex(type, square)];
+			} else {
+				score -= this.weights[Evaluator.MATERIAL_OFFSET + type]
+						+ this.weights[Evaluator.tableIndex(type, Evaluator.mirror(square))];
+			}
+		}
+		return score;
+	}
+
+	private static void accumulate(int[] board, double[] gradient, double delta) {
+		for (int square=0; square<Square.COUNT; square++) {
+			int code = board[square];
+			if (code == PositionCodec.EMPTY) {
+				continue;
+			}
+			int type = (code & 7) - 1;
+			if ((code & PositionCodec.BLACK) == 0) {
+				gradient[Evaluator.MATERIAL_OFFSET + type] += delta;
+				gradient[Evaluator.tableIndex(type, square)] += delta;
+			} else {
+				gradient[Evaluator.MATERIAL_OFFSET + type] -= delta;
+				gradient[Evaluator.tableIndex(type, Evaluator.mirror(square))] -= delta;
+			}
+		}
+	}
+
+	private static class Pass {
+
+		private final double[] gradient;
+		private double error;
+
+		Pass(boolean gradient) {
+			this.gradient = gradient ? new double[Evaluator.WEIGHT_COUNT] : null;
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+package server;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import chess.ChessMatch;
+import chess.Variant;
+
+// Durable store of the games in progress, split into shards by game id so that shards commit
+// independently and in parallel. Opening a journal recovers every game that was created and
+// not finished; its sessions continue where the last acknowledged move left off. A journal
+// must be reopened with the shard count it was created with.
+public class GameJournal implements AutoCloseable {
+
+	public static final int DEFAULT_SHARDS = 4;
+	public static final int DEFAULT_SNAPSHOT_INTERVAL = 10000;
+
+	private static final String SHARD_PREFIX = "shard-";
+
+	private final JournalShard[] shards;
+	private final List<GameSession> recovered = new ArrayList<>();
+
+	public GameJournal(Path directory) throws IOException {
+		this(directory, DEFAULT_SHARDS, DEFAULT_SNAPSHOT_INTERVAL);
+	}
+
+	public GameJournal(Path directory, int shardCount, int snapshotInterval) throws IOException {
+		if (shardCount < 1 || snapshotInterval < 1) {
+			throw new IllegalArgumentException("A journal needs at least one shard and a positive snapshot interval");
+		}
+		Files.createDirectories(directory);
+		int existing = countShards(directory);
+		if (existing != 0 && existing != shardCount) {
+			throw new IOException("Journal " + directory + " has " + existing + " shards, not " + shardCount);
+		}
+		this.shards = new JournalShard[shardCount];
+		try {
+			for (int i=0; i<shardCount; i++) {
+				this.shards[i] = new JournalShard(directory.resolve(SHARD_PREFIX + i), snapshotInterval);
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+		// rebuilding a match replays its moves, so the shards are rebuilt in parallel
+		List<List<GameSession>> sessions = new ArrayList<>();
+		for (int i=0; i<shardCount; i++) {
+			sessions.add(new ArrayList<>());
+		}
+		IntStream.range(0, shardCount).parallel().forEach(i -> {
+			for (GameLog log : this.shards[i].getGames()) {
+				sessions.get(i).add(new GameSession(log.getId(), log.replay(), this.shards[i],
+						CompletableFuture.completedFuture(null)));
+			}
+		});
+		for (List<GameSession> shardSessions : sessions) {
+			this.recovered.addAll(shardSessions);
+		}
+	}
+
+	// Sessions of the games that were in progress when the journal was opened.
+	public List<GameSession> getRecoveredSessions() {
+		return new ArrayList<>(this.recovered);
+	}
+
+	public GameSession create(long id, Variant variant) {
+		return create(id, new ChessMatch(variant), "", variant);
+	}
+
+	public GameSession create(long id, String fen, Variant variant) {
+		return create(id, new ChessMatch(fen, variant), fen, variant);
+	}
+
+	private GameSession create(long id, ChessMatch chessMatch, String fen, Variant variant) {
+		JournalShard shard = shard(id);
+		CompletableFuture<Void> write = shard.create(id, variant.toString(), fen);
+		return new GameSession(id, chessMatch, shard, write);
+	}
+
+	// Flushes every shard; games still in progress are recovered when the journal is reopened.
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+		for (JournalShard shard : this.shards) {
+			if (shard == null) {
+				continue;
+			}
+			try {
+				shard.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private JournalShard shard(long id) {
+		return this.shards[(int)Math.floorMod(id, (long)this.shards.length)];
+	}
+
+	private static int countShards(Path directory) throws IOException {
+		int count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SHARD_PREFIX + "*")) {
+			for (Path file : files) {
+				if (Files.isDirectory(file)) {
+					count ++;
+				}
+			}
+		}
+		return count;
+	}
+
+	// Lists the games a journal would recover: java server.GameJournal <directory> [shards]
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("usage: java server.GameJournal <directory> [shards]");
+			return;
+		}
+		int shardCount = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_SHARDS;
+		try (GameJournal journal = new GameJournal(Path.of(args[0]), shardCount, DEFAULT_SNAPSHOT_INTERVAL)) {
+			for (GameSession session : journal.getRecoveredSessions()) {
+				ChessMatch chessMatch = session.getChessMatch();
+				System.out.println(session.getId() + " " + chessMatch.getVariant() + " " + chessMatch.getFen());
+			}
+		}
+	}
+
+}
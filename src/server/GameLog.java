@@ -0,0 +1,112 @@
+package server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Move;
+import chess.Variant;
+
+// Everything needed to rebuild one game: the variant, the starting FEN (empty for the
+// variant's own setup) and the operations played since, in order. A move is stored as its
+// Move code, which is never 0 or negative, and a promotion as the negated piece code.
+final class GameLog {
+
+	private final long id;
+	private final String variant;
+	private final String fen;
+	private int[] operations;
+	private int size;
+
+	GameLog(long id, String variant, String fen) {
+		this(id, variant, fen, new int[16], 0);
+	}
+
+	private GameLog(long id, String variant, String fen, int[] operations, int size) {
+		this.id = id;
+		this.variant = variant;
+		this.fen = fen;
+		this.operations = operations;
+		this.size = size;
+	}
+
+	static int move(ChessPosition origin, ChessPosition target) {
+		return Move.of(origin.toSquare(), target.toSquare());
+	}
+
+	static int promotion(String pieceCode) {
+		return -Character.toUpperCase(pieceCode.charAt(0));
+	}
+
+	long getId() {
+		return this.id;
+	}
+
+	String getVariant() {
+		return this.variant;
+	}
+
+	String getFen() {
+		return this.fen;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	void add(int operation) {
+		if (this.size == this.operations.length) {
+			this.operations = Arrays.copyOf(this.operations, 2 * this.size);
+		}
+		this.operations[this.size++] = operation;
+	}
+
+	GameLog copy() {
+		return new GameLog(this.id, this.variant, this.fen, Arrays.copyOf(this.operations, this.size), this.size);
+	}
+
+	// Plays the game again through the same public calls that were journaled.
+	ChessMatch replay() {
+		Variant variant = Variant.forName(this.variant);
+		ChessMatch match = this.fen.isEmpty() ? new ChessMatch(variant) : new ChessMatch(this.fen, variant);
+		for (int i=0; i<this.size; i++) {
+			int operation = this.operations[i];
+			if (operation > 0) {
+				match.performChessMove(ChessPosition.fromSquare(Move.origin(operation)),
+						ChessPosition.fromSquare(Move.target(operation)));
+			} else {
+				match.replacePromotedPiece(String.valueOf((char)-operation));
+			}
+		}
+		return match;
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeLong(this.id);
+		out.writeUTF(this.variant);
+		out.writeUTF(this.fen);
+		out.writeInt(this.size);
+		for (int i=0; i<this.size; i++) {
+			out.writeInt(this.operations[i]);
+		}
+	}
+
+	static GameLog read(DataInputStream in) throws IOException {
+		long id = in.readLong();
+		String variant = in.readUTF();
+		String fen = in.readUTF();
+		int size = in.readInt();
+		if (size < 0) {
+			throw new IOException("Corrupt game log for game " + id);
+		}
+		int[] operations = new int[Math.max(16, size)];
+		for (int i=0; i<size; i++) {
+			operations[i] = in.readInt();
+		}
+		return new GameLog(id, variant, fen, operations, size);
+	}
+
+}
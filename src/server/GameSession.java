@@ -0,0 +1,99 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Move;
+import chess.MoveResult;
+
+// A ChessMatch whose changes are journaled. Every call that changes the match appends its
+// record before returning; durable() completes once the last of them is on disk, so a server
+// acknowledges a move to the players only after the future completes. Calls are serialized
+// per session, which keeps the journal order the order the moves were played in.
+public class GameSession {
+
+	private final long id;
+	private final ChessMatch chessMatch;
+	private final JournalShard shard;
+	private volatile CompletableFuture<Void> lastWrite;
+	private boolean finished;
+
+	GameSession(long id, ChessMatch chessMatch, JournalShard shard, CompletableFuture<Void> lastWrite) {
+		this.id = id;
+		this.chessMatch = chessMatch;
+		this.shard = shard;
+		this.lastWrite = lastWrite;
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	// For reading the position only: changes made on the match directly are not journaled.
+	public ChessMatch getChessMatch() {
+		return this.chessMatch;
+	}
+
+	public synchronized boolean isFinished() {
+		return this.finished;
+	}
+
+	public CompletableFuture<Void> durable() {
+		return this.lastWrite;
+	}
+
+	public synchronized ChessPiece performChessMove(ChessPosition originPosition, ChessPosition targetPosition) {
+		checkActive();
+		ChessPiece capturedPiece = this.chessMatch.performChessMove(originPosition, targetPosition);
+		this.lastWrite = this.shard.append(JournalShard.MOVE, this.id, GameLog.move(originPosition, targetPosition));
+		return capturedPiece;
+	}
+
+	public synchronized MoveResult tryMove(ChessPosition originPosition, ChessPosition targetPosition) {
+		checkActive();
+		MoveResult result = this.chessMatch.tryMove(originPosition, targetPosition);
+		if (result.isOk()) {
+			this.lastWrite = this.shard.append(JournalShard.MOVE, this.id, GameLog.move(originPosition, targetPosition));
+		}
+		return result;
+	}
+
+	// A move carrying a promotion is journaled as the move followed by the promotion, the
+	// same two calls replay makes.
+	public synchronized MoveResult tryMove(int move) {
+		checkActive();
+		MoveResult result = this.chessMatch.tryMove(move);
+		if (result.isOk()) {
+			this.lastWrite = this.shard.append(JournalShard.MOVE, this.id, Move.of(Move.origin(move), Move.target(move)));
+			String promotion = Move.promotion(move);
+			if (promotion != null) {
+				this.lastWrite = this.shard.append(JournalShard.PROMOTE, this.id, GameLog.promotion(promotion));
+			}
+		}
+		return result;
+	}
+
+	public synchronized ChessPiece replacePromotedPiece(String pieceCode) {
+		checkActive();
+		ChessPiece promotedPiece = this.chessMatch.replacePromotedPiece(pieceCode);
+		this.lastWrite = this.shard.append(JournalShard.PROMOTE, this.id, GameLog.promotion(pieceCode));
+		return promotedPiece;
+	}
+
+	// Drops the game from the journal; it is not recovered after a restart.
+	public synchronized CompletableFuture<Void> finish() {
+		checkActive();
+		this.finished = true;
+		this.lastWrite = this.shard.append(JournalShard.FINISH, this.id, 0);
+		return this.lastWrite;
+	}
+
+	private void checkActive() {
+		if (this.finished) {
+			throw new IllegalStateException("Game " + this.id + " is finished");
+		}
+	}
+
+}
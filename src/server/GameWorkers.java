@@ -0,0 +1,52 @@
+package server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Fixed set of single-threaded workers that own the games. All tasks of a game run on the
+// worker chosen by its id, so a game is only ever touched by one thread at a time and its
+// journal records keep the order the tasks were submitted in.
+public class GameWorkers implements AutoCloseable {
+
+	private final ExecutorService[] workers;
+
+	public GameWorkers(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Game workers need at least one thread");
+		}
+		this.workers = new ExecutorService[threads];
+		for (int i=0; i<threads; i++) {
+			String name = "game-worker-" + i;
+			this.workers[i] = Executors.newSingleThreadExecutor(task -> {
+				Thread thread = new Thread(task, name);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	public int getThreads() {
+		return this.workers.length;
+	}
+
+	public void execute(long gameId, Runnable task) {
+		this.workers[(int)Math.floorMod(gameId, (long)this.workers.length)].execute(task);
+	}
+
+	// Runs the tasks already submitted, then stops the threads.
+	@Override
+	public void close() {
+		for (ExecutorService worker : this.workers) {
+			worker.shutdown();
+		}
+		try {
+			for (ExecutorService worker : this.workers) {
+				worker.awaitTermination(1, TimeUnit.MINUTES);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
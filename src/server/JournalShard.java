@@ -0,0 +1,414 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+// One append-only journal: a directory of numbered segment files plus the latest snapshot.
+// Records are framed as length, CRC32 of the body, then the body: type, game id, payload.
+// Appends only copy the record into the pending batch; a single writer thread writes the
+// whole batch and forces it to disk with one fsync, then completes the future every append
+// of that batch returned (group commit). Every snapshotInterval records the writer starts a
+// new segment and snapshots the active games, after which older files are deleted.
+final class JournalShard implements AutoCloseable {
+
+	static final byte CREATE = 1;
+	static final byte MOVE = 2;
+	static final byte PROMOTE = 3;
+	static final byte FINISH = 4;
+
+	private static final int SNAPSHOT_MAGIC = 0x4A534E31;
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int MAX_RECORD = 1 << 16;
+	private static final String SEGMENT_PREFIX = "journal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".snap";
+
+	private final Path directory;
+	private final int snapshotInterval;
+	private final Map<Long, GameLog> games = new HashMap<>();
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+	private final DataOutputStream bodyOut = new DataOutputStream(this.body);
+	private final CRC32 crc = new CRC32();
+	private final Thread writer;
+	private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private CompletableFuture<Void> batch = new CompletableFuture<>();
+	private int sinceSnapshot;
+	private boolean snapshotDue;
+	private boolean closed;
+	private IOException failure;
+	private FileChannel segment;
+	private long segmentNumber;
+
+	JournalShard(Path directory, int snapshotInterval) throws IOException {
+		this.directory = directory;
+		this.snapshotInterval = snapshotInterval;
+		Files.createDirectories(directory);
+		recover();
+		this.writer = new Thread(this::writeBatches, "journal-" + directory.getFileName());
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	// Games created and not finished, as of the last record read or appended.
+	synchronized List<GameLog> getGames() {
+		List<GameLog> logs = new ArrayList<>(this.games.size());
+		for (GameLog log : this.games.values()) {
+			logs.add(log.copy());
+		}
+		return logs;
+	}
+
+	synchronized boolean contains(long id) {
+		return this.games.containsKey(id);
+	}
+
+	CompletableFuture<Void> create(long id, String variant, String fen) {
+		return append(CREATE, id, 0, variant, fen);
+	}
+
+	CompletableFuture<Void> append(byte type, long id, int operation) {
+		return append(type, id, operation, null, null);
+	}
+
+	private synchronized CompletableFuture<Void> append(byte type, long id, int operation, String variant, String fen) {
+		if (this.closed) {
+			throw new IllegalStateException("Journal is closed");
+		}
+		if (this.failure != null) {
+			throw new UncheckedIOException("Journal write failed", this.failure);
+		}
+		if (type == CREATE && this.games.containsKey(id)) {
+			throw new IllegalStateException("Game " + id + " is already in the journal");
+		}
+		if (type != CREATE && !this.games.containsKey(id)) {
+			throw new IllegalStateException("Game " + id + " is not in the journal");
+		}
+		try {
+			this.body.reset();
+			encode(this.bodyOut, type, id, operation, variant, fen);
+			if (this.body.size() > MAX_RECORD) {
+				throw new IllegalArgumentException("Journal record too long");
+			}
+			this.crc.reset();
+			this.crc.update(this.body.toByteArray(), 0, this.body.size());
+			DataOutputStream frame = new DataOutputStream(this.pending);
+			frame.writeInt(this.body.size());
+			frame.writeInt((int)this.crc.getValue());
+			this.body.writeTo(this.pending);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		apply(this.games, type, id, operation, variant, fen);
+		if (++this.sinceSnapshot >= this.snapshotInterval) {
+			this.sinceSnapshot = 0;
+			this.snapshotDue = true;
+		}
+		notifyAll();
+		return this.batch;
+	}
+
+	// Writes what is still pending, then stops the writer thread.
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			notifyAll();
+		}
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.segment.close();
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+
+	private void writeBatches() {
+		while (true) {
+			byte[] bytes;
+			CompletableFuture<Void> done;
+			List<GameLog> snapshot = null;
+			synchronized (this) {
+				while (this.pending.size() == 0 && !this.closed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				if (this.pending.size() == 0) {
+					this.batch.complete(null);
+					return;
+				}
+				bytes = this.pending.toByteArray();
+				this.pending.reset();
+				done = this.batch;
+				this.batch = new CompletableFuture<>();
+				if (this.snapshotDue) {
+					this.snapshotDue = false;
+					snapshot = getGames();
+				}
+			}
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				while (buffer.hasRemaining()) {
+					this.segment.write(buffer);
+				}
+				this.segment.force(false);
+				done.complete(null);
+				if (snapshot != null) {
+					// the batch just written is the last one the snapshot covers
+					this.segment.close();
+					this.segmentNumber ++;
+					this.segment = openSegment(this.segmentNumber);
+					writeSnapshot(snapshot, this.segmentNumber);
+					deleteBefore(this.segmentNumber);
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					this.failure = e;
+					this.batch.completeExceptionally(e);
+				}
+				done.completeExceptionally(e);
+				return;
+			}
+		}
+	}
+
+	// Loads the newest snapshot, replays the segments from its number on, truncates the log
+	// at the first torn or corrupt record, and opens a fresh segment for new appends.
+	private void recover() throws IOException {
+		List<Long> snapshots = numbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		long first = 0;
+		for (int i=snapshots.size()-1; i>=0; i--) {
+			if (readSnapshot(snapshots.get(i))) {
+				first = snapshots.get(i);
+				break;
+			}
+		}
+		long last = first;
+		boolean intact = true;
+		for (long number : numbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+			Path path = segmentPath(number);
+			if (number < first) {
+				continue;
+			}
+			if (!intact) {
+				// records past a damaged one cannot be applied in order
+				Files.delete(path);
+				continue;
+			}
+			long valid = replay(path);
+			if (valid < Files.size(path)) {
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+					channel.truncate(valid);
+					channel.force(true);
+				}
+				intact = false;
+			}
+			last = number;
+		}
+		this.segmentNumber = last + 1;
+		this.segment = openSegment(this.segmentNumber);
+		writeSnapshot(getGames(), this.segmentNumber);
+		deleteBefore(this.segmentNumber);
+	}
+
+	// Applies the records of a segment and returns the length of its valid prefix.
+	private long replay(Path path) throws IOException {
+		long valid = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					return valid;
+				}
+				if (length <= 0 || length > MAX_RECORD) {
+					return valid;
+				}
+				byte[] bytes = new byte[length];
+				int checksum;
+				try {
+					checksum = in.readInt();
+					in.readFully(bytes);
+				} catch (EOFException e) {
+					return valid;
+				}
+				this.crc.reset();
+				this.crc.update(bytes, 0, length);
+				if ((int)this.crc.getValue() != checksum) {
+					return valid;
+				}
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+				byte type = record.readByte();
+				long id = record.readLong();
+				int operation = 0;
+				String variant = null;
+				String fen = null;
+				if (type == CREATE) {
+					variant = record.readUTF();
+					fen = record.readUTF();
+				} else if (type == MOVE || type == PROMOTE) {
+					operation = record.readInt();
+				} else if (type != FINISH) {
+					return valid;
+				}
+				apply(this.games, type, id, operation, variant, fen);
+				valid += 8 + length;
+			}
+		}
+	}
+
+	private static void encode(DataOutputStream out, byte type, long id, int operation, String variant, String fen)
+			throws IOException {
+		out.writeByte(type);
+		out.writeLong(id);
+		if (type == CREATE) {
+			out.writeUTF(variant);
+			out.writeUTF(fen);
+		} else if (type == MOVE || type == PROMOTE) {
+			out.writeInt(operation);
+		}
+	}
+
+	private static void apply(Map<Long, GameLog> games, byte type, long id, int operation, String variant, String fen) {
+		if (type == CREATE) {
+			games.put(id, new GameLog(id, variant, fen));
+		} else if (type == FINISH) {
+			games.remove(id);
+		} else {
+			GameLog log = games.get(id);
+			if (log != null) {
+				log.add(operation);
+			}
+		}
+	}
+
+	// The snapshot numbered n holds the games as they stand before segment n.
+	private void writeSnapshot(List<GameLog> logs, long number) throws IOException {
+		Path path = this.directory.resolve(SNAPSHOT_PREFIX + number + SNAPSHOT_SUFFIX);
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(SNAPSHOT_MAGIC);
+		out.writeInt(SNAPSHOT_VERSION);
+		out.writeInt(logs.size());
+		for (GameLog log : logs) {
+			log.write(out);
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes.toByteArray(), 0, bytes.size());
+		out.writeInt((int)checksum.getValue());
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Replaces the games with those of the snapshot, or leaves them alone and returns false if
+	// the snapshot is damaged.
+	private boolean readSnapshot(long number) throws IOException {
+		Path path = this.directory.resolve(SNAPSHOT_PREFIX + number + SNAPSHOT_SUFFIX);
+		byte[] bytes = Files.readAllBytes(path);
+		if (bytes.length < 16) {
+			return false;
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes, 0, bytes.length - 4);
+		if ((int)checksum.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+			return false;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+		if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+			return false;
+		}
+		Map<Long, GameLog> logs = new HashMap<>();
+		for (int count=in.readInt(); count>0; count--) {
+			GameLog log = GameLog.read(in);
+			logs.put(log.getId(), log);
+		}
+		this.games.clear();
+		this.games.putAll(logs);
+		return true;
+	}
+
+	private FileChannel openSegment(long number) throws IOException {
+		FileChannel channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		// make the new file itself durable, not only its contents
+		try (FileChannel directory = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (IOException e) {
+			// not every platform can open a directory; the file content is still forced
+		}
+		return channel;
+	}
+
+	private void deleteBefore(long number) throws IOException {
+		for (long old : numbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+			if (old < number) {
+				Files.deleteIfExists(segmentPath(old));
+			}
+		}
+		for (long old : numbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+			if (old < number) {
+				Files.deleteIfExists(this.directory.resolve(SNAPSHOT_PREFIX + old + SNAPSHOT_SUFFIX));
+			}
+		}
+	}
+
+	private Path segmentPath(long number) {
+		return this.directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+	}
+
+	private List<Long> numbers(String prefix, String suffix) throws IOException {
+		List<Long> numbers = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, prefix + "*" + suffix)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+				} catch (NumberFormatException e) {
+					// not one of ours
+				}
+			}
+		}
+		Collections.sort(numbers);
+		return numbers;
+	}
+
+}
@@ -0,0 +1,237 @@
+package server;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import chess.Variant;
+
+// Pairs players asking for the same time control by rating. Waiting requests are kept in one
+// lock-free queue per time control and rating band, oldest first. A new request is paired
+// on the submitting thread with the oldest waiting request in range, claimed by
+// compare-and-set, and is only queued when there is none. The accepted rating difference
+// starts at INITIAL_WINDOW and widens the longer a request waits; a sweeper thread pairs
+// the queued requests again every SWEEP_MILLIS as their windows widen, which also pairs
+// two requests that were queued at the same moment without seeing each other. The game of
+// a new pair is created in the journal on the worker thread that will own it.
+public class Lobby implements AutoCloseable {
+
+	public static final int BAND_WIDTH = 100;
+	public static final int MAX_RATING = 4000;
+	public static final int INITIAL_WINDOW = 100;
+	public static final int MAX_WINDOW = 600;
+	public static final int WINDOW_GROWTH = 100;
+	public static final long SWEEP_MILLIS = 5;
+
+	private static final int BANDS = MAX_RATING / BAND_WIDTH;
+
+	private final GameJournal journal;
+	private final GameWorkers workers;
+	private final Variant variant;
+	private final ConcurrentHashMap<TimeControl, AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>>> pools
+			= new ConcurrentHashMap<>();
+	private final AtomicLong nextGameId;
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final LongAdder pairs = new LongAdder();
+	private final Thread sweeper;
+	private volatile boolean closed;
+
+	public Lobby(GameJournal journal, GameWorkers workers) {
+		this(journal, workers, Variant.STANDARD);
+	}
+
+	// Game ids continue after the games the journal recovered.
+	public Lobby(GameJournal journal, GameWorkers workers, Variant variant) {
+		this.journal = journal;
+		this.workers = workers;
+		this.variant = variant;
+		long firstId = 1;
+		for (GameSession session : journal.getRecoveredSessions()) {
+			firstId = Math.max(firstId, session.getId() + 1);
+		}
+		this.nextGameId = new AtomicLong(firstId);
+		this.sweeper = new Thread(this::sweep, "lobby-sweeper");
+		this.sweeper.setDaemon(true);
+		this.sweeper.start();
+	}
+
+	public PairingRequest submit(long playerId, int rating, TimeControl timeControl) {
+		if (this.closed) {
+			throw new IllegalStateException("Lobby is closed");
+		}
+		long now = System.nanoTime();
+		PairingRequest request = new PairingRequest(playerId, Math.max(0, Math.min(MAX_RATING - 1, rating)), timeControl, now);
+		AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands
+				= this.pools.computeIfAbsent(timeControl, key -> new AtomicReferenceArray<>(BANDS));
+		PairingRequest opponent = findOpponent(bands, request, window(request, now));
+		if (opponent != null) {
+			this.waiting.decrementAndGet();
+			request.claim();
+			start(opponent, request);
+		} else {
+			this.waiting.incrementAndGet();
+			queue(bands, band(request.getRating())).offer(request);
+		}
+		return request;
+	}
+
+	// Takes a waiting request out of the lobby; false if it has been paired already.
+	public boolean cancel(PairingRequest request) {
+		if (request.markCancelled()) {
+			this.waiting.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	public int getWaiting() {
+		return this.waiting.get();
+	}
+
+	public long getPairs() {
+		return this.pairs.sum();
+	}
+
+	// Stops pairing and cancels the requests still waiting. Games already handed to the
+	// workers are unaffected.
+	@Override
+	public void close() {
+		this.closed = true;
+		LockSupport.unpark(this.sweeper);
+		try {
+			this.sweeper.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands : this.pools.values()) {
+			for (int band=0; band<BANDS; band++) {
+				ConcurrentLinkedQueue<PairingRequest> queue = bands.get(band);
+				if (queue != null) {
+					for (PairingRequest request : queue) {
+						cancel(request);
+					}
+				}
+			}
+		}
+	}
+
+	// Rating difference a request accepts after waiting until now.
+	static int window(PairingRequest request, long now) {
+		long waited = (now - request.getSubmittedNanos()) / 1000000;
+		return (int)Math.min(MAX_WINDOW, INITIAL_WINDOW + WINDOW_GROWTH * waited / 1000);
+	}
+
+	// Claims the oldest waiting request within the window, looking at the request's own band
+	// first and then at the bands above and below it.
+	private PairingRequest findOpponent(AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands,
+			PairingRequest request, int window) {
+		int rating = request.getRating();
+		int home = band(rating);
+		int reach = Math.max(home - band(Math.max(0, rating - window)), band(Math.min(MAX_RATING - 1, rating + window)) - home);
+		for (int distance=0; distance<=reach; distance++) {
+			PairingRequest opponent = claimIn(bands, home - distance, request, window);
+			if (opponent == null && distance > 0) {
+				opponent = claimIn(bands, home + distance, request, window);
+			}
+			if (opponent != null) {
+				return opponent;
+			}
+		}
+		return null;
+	}
+
+	private static PairingRequest claimIn(AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands, int band,
+			PairingRequest request, int window) {
+		ConcurrentLinkedQueue<PairingRequest> queue = (band >= 0 && band < BANDS) ? bands.get(band) : null;
+		if (queue == null) {
+			return null;
+		}
+		for (PairingRequest candidate : queue) {
+			if (candidate != request && candidate.isWaiting()
+					&& Math.abs(candidate.getRating() - request.getRating()) <= window && candidate.claim()) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private void sweep() {
+		while (!this.closed) {
+			for (AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands : this.pools.values()) {
+				for (int band=0; band<BANDS; band++) {
+					ConcurrentLinkedQueue<PairingRequest> queue = bands.get(band);
+					if (queue != null) {
+						sweep(bands, queue);
+					}
+				}
+			}
+			LockSupport.parkNanos(SWEEP_MILLIS * 1000000);
+		}
+	}
+
+	// Drops the requests that are no longer waiting and tries again to pair the others.
+	private void sweep(AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands,
+			ConcurrentLinkedQueue<PairingRequest> queue) {
+		long now = System.nanoTime();
+		Iterator<PairingRequest> requests = queue.iterator();
+		while (requests.hasNext()) {
+			PairingRequest request = requests.next();
+			int state = request.getState();
+			if (state == PairingRequest.PAIRED || state == PairingRequest.CANCELLED) {
+				requests.remove();
+				continue;
+			}
+			if (!request.tryClaim()) {
+				continue;
+			}
+			PairingRequest opponent = findOpponent(bands, request, window(request, now));
+			if (opponent == null) {
+				request.release();
+				continue;
+			}
+			request.confirm();
+			this.waiting.addAndGet(-2);
+			requests.remove();
+			start(request, opponent);
+		}
+	}
+
+	// The older request plays white in even-numbered games and black in odd ones.
+	private void start(PairingRequest older, PairingRequest newer) {
+		long pairedNanos = System.nanoTime();
+		long gameId = this.nextGameId.getAndIncrement();
+		PairingRequest white = (gameId % 2 == 0) ? older : newer;
+		PairingRequest black = (white == older) ? newer : older;
+		this.pairs.increment();
+		this.workers.execute(gameId, () -> {
+			try {
+				Pairing pairing = new Pairing(gameId, white, black, this.journal.create(gameId, this.variant), pairedNanos);
+				white.getPairing().complete(pairing);
+				black.getPairing().complete(pairing);
+			} catch (RuntimeException e) {
+				white.getPairing().completeExceptionally(e);
+				black.getPairing().completeExceptionally(e);
+			}
+		});
+	}
+
+	private static int band(int rating) {
+		return rating / BAND_WIDTH;
+	}
+
+	private static ConcurrentLinkedQueue<PairingRequest> queue(
+			AtomicReferenceArray<ConcurrentLinkedQueue<PairingRequest>> bands, int band) {
+		ConcurrentLinkedQueue<PairingRequest> queue = bands.get(band);
+		if (queue == null) {
+			bands.compareAndSet(band, null, new ConcurrentLinkedQueue<>());
+			queue = bands.get(band);
+		}
+		return queue;
+	}
+
+}
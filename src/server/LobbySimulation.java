@@ -0,0 +1,123 @@
+package server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import chess.MoveResult;
+
+// Local load generator for the lobby: producer threads submit pairing requests at a fixed
+// total rate, with ratings spread around 1500 and a handful of popular time controls. Each
+// new game plays a few random moves on its worker and is finished. Reports pairing latency
+// (submitted to claimed) and start latency (submitted to game created and handed to the
+// players) percentiles; the latter includes the queueing on busy workers.
+// java server.LobbySimulation [requests/s] [seconds] [producers] [workers] [moves per game] [journal directory]
+public class LobbySimulation {
+
+	private static final TimeControl[] TIME_CONTROLS = {
+		TimeControl.parse("1+0"), TimeControl.parse("3+0"), TimeControl.parse("3+2"),
+		TimeControl.parse("5+0"), TimeControl.parse("10+0"), TimeControl.parse("15+10")
+	};
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int rate = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		int producers = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+		int workerThreads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		int movesPerGame = (args.length > 4) ? Integer.parseInt(args[4]) : 0;
+		Path directory = (args.length > 5) ? Path.of(args[5]) : Files.createTempDirectory("lobby-journal");
+
+		int capacity = rate * seconds + producers;
+		AtomicLongArray pairingLatency = new AtomicLongArray(capacity);
+		AtomicLongArray startLatency = new AtomicLongArray(capacity);
+		AtomicInteger started = new AtomicInteger();
+		AtomicInteger submitted = new AtomicInteger();
+
+		try (GameJournal journal = new GameJournal(directory);
+				GameWorkers workers = new GameWorkers(workerThreads);
+				Lobby lobby = new Lobby(journal, workers)) {
+			long begin = System.nanoTime();
+			long end = begin + seconds * 1000000000L;
+			Thread[] threads = new Thread[producers];
+			for (int p=0; p<producers; p++) {
+				long firstPlayer = (long)p << 32;
+				long interval = 1000000000L * producers / rate;
+				threads[p] = new Thread(() -> {
+					Random random = ThreadLocalRandom.current();
+					long next = System.nanoTime();
+					for (long player=firstPlayer; next < end; player++) {
+						long wait = next - System.nanoTime();
+						if (wait > 0) {
+							LockSupport.parkNanos(wait);
+						}
+						next += interval;
+						int rating = (int)Math.round(1500 + 350 * random.nextGaussian());
+						TimeControl timeControl = TIME_CONTROLS[random.nextInt(TIME_CONTROLS.length)];
+						PairingRequest request = lobby.submit(player, rating, timeControl);
+						submitted.incrementAndGet();
+						request.getPairing().thenAccept(pairing -> {
+							int sample = started.getAndIncrement();
+							if (sample < capacity) {
+								pairingLatency.set(sample, pairing.getPairedNanos() - request.getSubmittedNanos());
+								startLatency.set(sample, System.nanoTime() - request.getSubmittedNanos());
+							}
+							// the callback may run on this producer if the game is already created,
+							// and the game belongs to its worker
+							if (pairing.getWhite() == request) {
+								workers.execute(pairing.getGameId(), () -> play(pairing.getSession(), movesPerGame));
+							}
+						});
+					}
+				}, "lobby-producer-" + p);
+				threads[p].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			long elapsed = System.nanoTime() - begin;
+			// let the last pairs reach their workers before reporting
+			Thread.sleep(200);
+
+			int samples = Math.min(started.get(), capacity);
+			System.out.println("Journal: " + directory);
+			System.out.printf("Submitted: %d requests in %.1f s (%.0f/s)%n", submitted.get(), elapsed / 1e9,
+					submitted.get() / (elapsed / 1e9));
+			System.out.printf("Paired: %d games (%.0f/s), %d players still waiting%n", lobby.getPairs(),
+					lobby.getPairs() / (elapsed / 1e9), lobby.getWaiting());
+			System.out.println("Pairing latency: " + percentiles(pairingLatency, samples));
+			System.out.println("Start latency:   " + percentiles(startLatency, samples));
+		}
+	}
+
+	private static void play(GameSession session, int plies) {
+		Random random = ThreadLocalRandom.current();
+		for (int i=0; i<plies; i++) {
+			int[] moves = session.getChessMatch().legalMoves();
+			if (moves.length == 0 || session.tryMove(moves[random.nextInt(moves.length)]) != MoveResult.OK) {
+				break;
+			}
+		}
+		session.finish();
+	}
+
+	private static String percentiles(AtomicLongArray latencies, int count) {
+		if (count == 0) {
+			return "no samples";
+		}
+		long[] sorted = new long[count];
+		for (int i=0; i<count; i++) {
+			sorted[i] = latencies.get(i);
+		}
+		Arrays.sort(sorted);
+		return String.format("p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+				sorted[count / 2] / 1e6, sorted[count * 9 / 10] / 1e6, sorted[count * 99 / 100] / 1e6,
+				sorted[count - 1] / 1e6);
+	}
+
+}
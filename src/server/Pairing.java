@@ -0,0 +1,41 @@
+package server;
+
+// Two paired requests and the journaled game created for them.
+public class Pairing {
+
+	private final long gameId;
+	private final PairingRequest white;
+	private final PairingRequest black;
+	private final GameSession session;
+	private final long pairedNanos;
+
+	Pairing(long gameId, PairingRequest white, PairingRequest black, GameSession session, long pairedNanos) {
+		this.gameId = gameId;
+		this.white = white;
+		this.black = black;
+		this.session = session;
+		this.pairedNanos = pairedNanos;
+	}
+
+	public long getGameId() {
+		return this.gameId;
+	}
+
+	public PairingRequest getWhite() {
+		return this.white;
+	}
+
+	public PairingRequest getBlack() {
+		return this.black;
+	}
+
+	public GameSession getSession() {
+		return this.session;
+	}
+
+	// System.nanoTime() when the two requests were claimed for each other.
+	public long getPairedNanos() {
+		return this.pairedNanos;
+	}
+
+}
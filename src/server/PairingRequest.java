@@ -0,0 +1,94 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A player waiting in the lobby. Whoever pairs a request first claims it with a single
+// compare-and-set, so the lobby queues need no locks; getPairing completes once the game for
+// the pair has been created on its worker thread. The sweeper holds the request it is pairing
+// again in the transient CLAIMED state, which only the sweeper turns into PAIRED or back into
+// WAITING, so a cancel arriving meanwhile waits for the outcome instead of guessing it.
+public class PairingRequest {
+
+	static final int WAITING = 0;
+	static final int CLAIMED = 1;
+	static final int PAIRED = 2;
+	static final int CANCELLED = 3;
+
+	private final long playerId;
+	private final int rating;
+	private final TimeControl timeControl;
+	private final long submittedNanos;
+	private final AtomicInteger state = new AtomicInteger(WAITING);
+	private final CompletableFuture<Pairing> pairing = new CompletableFuture<>();
+
+	PairingRequest(long playerId, int rating, TimeControl timeControl, long submittedNanos) {
+		this.playerId = playerId;
+		this.rating = rating;
+		this.timeControl = timeControl;
+		this.submittedNanos = submittedNanos;
+	}
+
+	public long getPlayerId() {
+		return this.playerId;
+	}
+
+	public int getRating() {
+		return this.rating;
+	}
+
+	public TimeControl getTimeControl() {
+		return this.timeControl;
+	}
+
+	// System.nanoTime() when the lobby received the request.
+	public long getSubmittedNanos() {
+		return this.submittedNanos;
+	}
+
+	public CompletableFuture<Pairing> getPairing() {
+		return this.pairing;
+	}
+
+	public boolean isWaiting() {
+		return this.state.get() == WAITING;
+	}
+
+	int getState() {
+		return this.state.get();
+	}
+
+	boolean claim() {
+		return this.state.compareAndSet(WAITING, PAIRED);
+	}
+
+	// Holds the request while an opponent is looked for; confirm or release must follow.
+	boolean tryClaim() {
+		return this.state.compareAndSet(WAITING, CLAIMED);
+	}
+
+	void confirm() {
+		this.state.compareAndSet(CLAIMED, PAIRED);
+	}
+
+	// Undoes a claim that found no opponent.
+	void release() {
+		this.state.compareAndSet(CLAIMED, WAITING);
+	}
+
+	// False once the request is paired, or if it was cancelled before.
+	boolean markCancelled() {
+		while (true) {
+			int state = this.state.get();
+			if (state == CLAIMED) {
+				Thread.onSpinWait();
+			} else if (state != WAITING) {
+				return false;
+			} else if (this.state.compareAndSet(WAITING, CANCELLED)) {
+				this.pairing.cancel(false);
+				return true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package server;
+
+// Base time in minutes plus increment in seconds, written like "5+3". Only players asking for
+// the same time control are paired.
+public final class TimeControl {
+
+	private final int minutes;
+	private final int increment;
+
+	public TimeControl(int minutes, int increment) {
+		if (minutes < 0 || increment < 0 || minutes + increment == 0) {
+			throw new IllegalArgumentException("Invalid time control " + minutes + "+" + increment);
+		}
+		this.minutes = minutes;
+		this.increment = increment;
+	}
+
+	public static TimeControl parse(String text) {
+		int plus = text.indexOf('+');
+		try {
+			if (plus < 0) {
+				return new TimeControl(Integer.parseInt(text.trim()), 0);
+			}
+			return new TimeControl(Integer.parseInt(text.substring(0, plus).trim()),
+					Integer.parseInt(text.substring(plus + 1).trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid time control " + text);
+		}
+	}
+
+	public int getMinutes() {
+		return this.minutes;
+	}
+
+	public int getIncrement() {
+		return this.increment;
+	}
+
+	// In milliseconds, the unit SearchLimits.clock takes.
+	public long getTimeMillis() {
+		return this.minutes * 60000L;
+	}
+
+	public long getIncrementMillis() {
+		return this.increment * 1000L;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof TimeControl)) {
+			return false;
+		}
+		TimeControl timeControl = (TimeControl)other;
+		return this.minutes == timeControl.minutes && this.increment == timeControl.increment;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.minutes + this.increment;
+	}
+
+	@Override
+	public String toString() {
+		return this.minutes + "+" + this.increment;
+	}
+
+}
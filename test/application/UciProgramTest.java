@@ -0,0 +1,78 @@
+package application;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertFalse;
+import static testing.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class UciProgramTest {
+
+	// A GUI keeps sending moves after the repetition that ends the match for performChessMove.
+	public void testReplayPastThreefoldRepetition() throws IOException {
+		List<String> output = run("position startpos moves g1f3 g8f6 f3g1 f6g8 g1f3 g8f6 f3g1 f6g8 e2e4", "d");
+		assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 5", last(output));
+	}
+
+	public void testReplayPastFiftyMoveRule() throws IOException {
+		List<String> output = run("position fen 4k3/8/8/8/8/8/8/R3K3 w - - 99 80 moves a1a2 e8d8 a2a8", "d");
+		assertEquals("R2k4/8/8/8/8/8/8/4K3 b - - 102 81", last(output));
+	}
+
+	public void testSearchAfterReplayPastDraw() throws IOException {
+		List<String> output = run("position startpos moves g1f3 g8f6 f3g1 f6g8 g1f3 g8f6 f3g1 f6g8", "go depth 2");
+		String bestMove = last(output);
+		assertTrue(bestMove.startsWith("bestmove "), bestMove);
+		assertFalse(bestMove.equals("bestmove 0000"), bestMove);
+	}
+
+	// Fifty-move and insufficient-material draws are the GUI's to adjudicate.
+	public void testSearchInDrawnPosition() throws IOException {
+		for (String fen : new String[] {"4k3/8/8/8/8/8/8/R3K3 w - - 100 80", "4k3/8/8/8/8/8/8/4KN2 w - - 0 1"}) {
+			String bestMove = last(run("position fen " + fen, "go depth 2"));
+			assertTrue(bestMove.startsWith("bestmove "), bestMove);
+			assertFalse(bestMove.equals("bestmove 0000"), fen);
+		}
+	}
+
+	public void testNoBestMoveWhenMatchIsOver() throws IOException {
+		assertEquals("bestmove 0000", last(run("position startpos moves f2f3 e7e5 g2g4 d8h4", "go depth 2")));
+		assertEquals("bestmove 0000", last(run("position fen k7/8/1QK5/8/8/8/8/8 b - - 0 1", "go depth 2")));
+	}
+
+	public void testIllegalMoveIsReported() throws IOException {
+		List<String> output = run("position startpos moves e2e5", "d");
+		assertEquals("info string Illegal move: e2e5", output.get(0));
+	}
+
+	public void testHashOutOfRangeIsReported() throws IOException {
+		List<String> output = run("setoption name Hash value 32768", "isready");
+		assertEquals("info string Hash must be between 1 and 16384", output.get(0));
+		assertEquals("readyok", last(output));
+	}
+
+	// Feeds the commands to a UciProgram and returns what it sent, once its search has ended.
+	private static List<String> run(String... commands) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+		try {
+			new UciProgram().run(new BufferedReader(new StringReader(String.join("\n", commands))));
+		} finally {
+			System.setOut(out);
+		}
+		return buffer.toString(StandardCharsets.UTF_8).lines().filter(line -> !line.startsWith("info depth"))
+				.toList();
+	}
+
+	private static String last(List<String> lines) {
+		return lines.isEmpty() ? "" : lines.get(lines.size() - 1);
+	}
+
+}
@@ -0,0 +1,44 @@
+package chess;
+
+import static testing.Assert.assertEquals;
+
+import java.util.Random;
+
+public class FenTest {
+
+	private static final String[] STANDARD = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 3 17",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"4k3/8/8/8/8/8/8/4K2R w K - 49 60"
+	};
+
+	private static final String[] CHESS960 = {
+		"bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9",
+		"2nnrbkr/p1qppppp/8/1ppb4/6PP/3PP3/PPP2P2/BQNNRBKR w HEhe - 1 9"
+	};
+
+	public void testRoundTrip() {
+		for (String fen : STANDARD) {
+			assertEquals(fen, new ChessMatch(fen).getFen());
+		}
+		for (String fen : CHESS960) {
+			assertEquals(fen, new ChessMatch(fen, Variant.CHESS960).getFen());
+		}
+	}
+
+	// Every position of random games, underpromotions included, reads back as itself.
+	public void testRoundTripOfPlayedPositions() {
+		Random random = new Random(7);
+		for (int game=0; game<40; game++) {
+			ChessMatch match = new ChessMatch();
+			for (int ply=0; ply<200 && !match.getCheckMate() && !match.getDraw(); ply++) {
+				RandomPlay.move(match, random);
+				String fen = match.getFen();
+				assertEquals(fen, new ChessMatch(fen).getFen(), "ply " + ply + " of game " + game);
+			}
+		}
+	}
+
+}
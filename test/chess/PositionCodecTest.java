@@ -0,0 +1,40 @@
+package chess;
+
+import static testing.Assert.assertEquals;
+
+import java.util.Random;
+
+public class PositionCodecTest {
+
+	public void testUnderpromotion() {
+		for (String piece : new String[] {"R", "B", "N"}) {
+			ChessMatch match = new ChessMatch("8/k1P5/8/1K6/8/8/8/8 w - - 0 1");
+			match.performChessMove(new ChessPosition('c', 7), new ChessPosition('c', 8));
+			match.replacePromotedPiece(piece);
+			assertEquals(match.getFen(), decode(match, Variant.STANDARD).getFen(), piece);
+		}
+	}
+
+	public void testChess960() {
+		String fen = "bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9";
+		assertEquals(fen, decode(new ChessMatch(fen, Variant.CHESS960), Variant.CHESS960).getFen());
+	}
+
+	public void testPlayedPositions() {
+		Random random = new Random(11);
+		for (int game=0; game<40; game++) {
+			ChessMatch match = new ChessMatch();
+			for (int ply=0; ply<200 && !match.getCheckMate() && !match.getDraw(); ply++) {
+				RandomPlay.move(match, random);
+				assertEquals(match.getFen(), decode(match, Variant.STANDARD).getFen(), "ply " + ply + " of game " + game);
+			}
+		}
+	}
+
+	private static ChessMatch decode(ChessMatch match, Variant variant) {
+		byte[] buffer = new byte[PositionCodec.SIZE];
+		PositionCodec.encode(match, buffer, 0);
+		return PositionCodec.toMatch(buffer, 0, variant);
+	}
+
+}
@@ -0,0 +1,22 @@
+package chess;
+
+import java.util.Random;
+
+// Random legal moves for the tests; a promotion is changed to a random piece two times in three.
+final class RandomPlay {
+
+	private static final String[] PROMOTIONS = {"Q", "R", "B", "N"};
+
+	private RandomPlay() {
+	}
+
+	static void move(ChessMatch match, Random random) {
+		int[] moves = match.legalMoves();
+		int move = moves[random.nextInt(moves.length)];
+		match.performChessMove(ChessPosition.fromSquare(Move.origin(move)), ChessPosition.fromSquare(Move.target(move)));
+		if (match.getPromoted() != null && random.nextInt(3) > 0) {
+			match.replacePromotedPiece(PROMOTIONS[random.nextInt(PROMOTIONS.length)]);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package chess;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertFalse;
+import static testing.Assert.assertTrue;
+
+public class RulesTest {
+
+	public void testFoolsMate() {
+		ChessMatch match = play(new ChessMatch(), "f2f3", "e7e5", "g2g4", "d8h4");
+		assertTrue(match.getCheckMate(), "checkmate");
+		assertFalse(match.getDraw(), "draw");
+		assertEquals(MoveResult.MATCH_OVER, match.tryMove(Move.parse("a2a3")));
+	}
+
+	public void testStalemate() {
+		ChessMatch match = play(new ChessMatch("k7/8/2K5/8/8/8/8/1Q6 w - - 0 1"), "b1b6");
+		assertFalse(match.getCheckMate(), "checkmate");
+		assertTrue(match.getDraw(), "draw");
+		assertEquals(DrawReason.STALEMATE, match.getDrawReason());
+	}
+
+	public void testThreefoldRepetition() {
+		ChessMatch match = play(new ChessMatch(), "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1");
+		assertFalse(match.getDraw(), "draw before the third occurrence");
+		play(match, "f6g8");
+		assertTrue(match.getDraw(), "draw");
+		assertEquals(DrawReason.THREEFOLD_REPETITION, match.getDrawReason());
+		assertEquals(MoveResult.MATCH_OVER, match.tryMove(Move.parse("e2e4")));
+	}
+
+	public void testFiftyMoveRule() {
+		ChessMatch match = play(new ChessMatch("4k3/8/8/8/8/8/8/R3K3 w - - 99 80"), "a1a2");
+		assertTrue(match.getDraw(), "draw");
+		assertEquals(DrawReason.FIFTY_MOVE_RULE, match.getDrawReason());
+	}
+
+	public void testInsufficientMaterial() {
+		ChessMatch match = play(new ChessMatch("4k3/8/8/8/8/8/3r4/4K3 w - - 0 1"), "e1d2");
+		assertTrue(match.getDraw(), "draw");
+		assertEquals(DrawReason.INSUFFICIENT_MATERIAL, match.getDrawReason());
+	}
+
+	public void testUnderpromotionAvoidsStalemate() {
+		// the automatic queen stalemates the black king, a rook leaves it b7
+		ChessMatch match = play(new ChessMatch("8/k1P5/8/1K6/8/8/8/8 w - - 0 1"), "c7c8");
+		assertTrue(match.getDraw(), "stalemate with a queen");
+		match.replacePromotedPiece("R");
+		assertFalse(match.getDraw(), "draw with a rook");
+		assertFalse(match.getCheckMate(), "checkmate with a rook");
+		assertEquals(Color.BLACK, match.getCurrentPlayer());
+		assertTrue(match.legalMoveCount() > 0, "black has a legal move");
+		assertEquals(PieceType.ROOK, match.getPromoted().getType());
+		assertEquals("2R5/k7/8/1K6/8/8/8/8 b - - 0 1", match.getFen());
+	}
+
+	public void testUnderpromotionTakesBackMate() {
+		// the black pawn keeps a bishop from being insufficient material
+		ChessMatch match = play(new ChessMatch("k7/2P5/1K6/8/8/8/7p/8 w - - 0 1"), "c7c8");
+		assertTrue(match.getCheckMate(), "mate with a queen");
+		assertEquals(Color.WHITE, match.getCurrentPlayer());
+		int turn = match.getTurn();
+
+		match.replacePromotedPiece("B");
+		assertFalse(match.getCheckMate(), "checkmate with a bishop");
+		assertEquals(Color.BLACK, match.getCurrentPlayer());
+		assertEquals(turn + 1, match.getTurn());
+		assertTrue(match.legalMoveCount() > 0, "black has a legal move");
+
+		// the promoted piece can be replaced again, and a rook mates like the queen did
+		match.replacePromotedPiece("R");
+		assertTrue(match.getCheckMate(), "mate with a rook");
+		assertEquals(Color.WHITE, match.getCurrentPlayer());
+		assertEquals(turn, match.getTurn());
+	}
+
+	public void testUnderpromotionToInsufficientMaterial() {
+		ChessMatch match = play(new ChessMatch("k7/2P5/1K6/8/8/8/8/8 w - - 0 1"), "c7c8");
+		match.replacePromotedPiece("N");
+		assertFalse(match.getCheckMate(), "checkmate with a knight");
+		assertTrue(match.getDraw(), "draw");
+		assertEquals(DrawReason.INSUFFICIENT_MATERIAL, match.getDrawReason());
+	}
+
+	public void testFenAfterMate() {
+		ChessMatch match = play(new ChessMatch(), "f2f3", "e7e5", "g2g4", "d8h4");
+		String fen = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+		assertEquals(fen, match.getFen());
+		ChessMatch read = new ChessMatch(fen);
+		assertTrue(read.getCheckMate(), "checkmate read back");
+		assertEquals(fen, read.getFen());
+	}
+
+	public void testIllegalMoves() {
+		ChessMatch match = new ChessMatch("4k3/8/8/8/8/8/4r3/4K3 w - - 0 1");
+		assertEquals(MoveResult.NO_PIECE, match.tryMove(Move.parse("a1a2")));
+		assertEquals(MoveResult.OPPONENT_PIECE, match.tryMove(Move.parse("e2e3")));
+		assertEquals(MoveResult.KING_IN_CHECK, match.tryMove(Move.parse("e1f2")));
+		assertEquals(MoveResult.OK, match.tryMove(Move.parse("e1e2")));
+	}
+
+	private static ChessMatch play(ChessMatch match, String... moves) {
+		for (String text : moves) {
+			int move = Move.parse(text);
+			match.performChessMove(ChessPosition.fromSquare(Move.origin(move)), ChessPosition.fromSquare(Move.target(move)));
+		}
+		return match;
+	}
+
+}
@@ -0,0 +1,142 @@
+package chess.archive;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import chess.ChessMatch;
+import chess.Move;
+
+public class PositionAggregatorTest {
+
+	private static final Outcome[] OUTCOMES = {Outcome.WHITE_WINS, Outcome.DRAW, Outcome.BLACK_WINS, Outcome.UNKNOWN};
+
+	public void testSpillSortsByUnsignedKey() throws IOException {
+		PositionTable table = new PositionTable(0);
+		long[] keys = {5, -1, 0, 1, Long.MIN_VALUE, 3, Long.MAX_VALUE};
+		for (long key : keys) {
+			table.add(key, Outcome.WHITE_WINS);
+		}
+		table.add(3, Outcome.DRAW);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		table.spill(Channels.newChannel(bytes));
+		assertEquals(0, table.size(), "size after the spill");
+
+		ByteBuffer records = ByteBuffer.wrap(bytes.toByteArray());
+		long[] expected = {1, 3, 5, Long.MAX_VALUE, Long.MIN_VALUE, -1};
+		assertEquals(expected.length * PositionTable.RECORD_SIZE, records.capacity(), "bytes spilled");
+		for (int i=0; i<expected.length; i++) {
+			assertEquals(expected[i], records.getLong(i * PositionTable.RECORD_SIZE), "key " + i);
+		}
+		// key 0 shares the counters of key 1
+		assertEquals(2L, records.getLong(PositionTable.GAMES * 8));
+		assertEquals(2L, records.getLong(PositionTable.WHITE_WINS * 8));
+		assertEquals(2L, records.getLong(PositionTable.RECORD_SIZE + PositionTable.GAMES * 8));
+		assertEquals(1L, records.getLong(PositionTable.RECORD_SIZE + PositionTable.DRAWS * 8));
+	}
+
+	// A 1024-record table spills many runs; the merged file must hold every position once with
+	// the counters of all its runs summed, in ascending unsigned key order.
+	public void testMergeOfManyRuns() throws IOException {
+		Path directory = Files.createTempDirectory("positions-test");
+		try {
+			Random random = new Random(3);
+			Map<Long, long[]> expected = new HashMap<>();
+			Path output = directory.resolve("positions.bin");
+			long distinct;
+			try (PositionAggregator aggregator = new PositionAggregator(0, 0, directory)) {
+				for (int game=0; game<300; game++) {
+					ArchivedGame archived = randomGame(random, expected);
+					aggregator.add(archived);
+				}
+				distinct = aggregator.finish(output);
+			}
+			assertEquals((long)expected.size(), distinct, "distinct positions");
+			assertTrue(distinct > 10 * 768, "enough positions for several spills");
+
+			try (PositionFile file = new PositionFile(output)) {
+				assertEquals(distinct, file.size());
+				for (Map.Entry<Long, long[]> entry : expected.entrySet()) {
+					long[] counters = file.lookup(entry.getKey());
+					assertEquals(Arrays.toString(entry.getValue()), Arrays.toString(counters), "key " + entry.getKey());
+				}
+				assertEquals(null, file.lookup(0x123456789L));
+			}
+
+			ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(output));
+			for (int i=1; i<distinct; i++) {
+				long previous = records.getLong(PositionFile.HEADER_SIZE + (i - 1) * PositionTable.RECORD_SIZE);
+				long key = records.getLong(PositionFile.HEADER_SIZE + i * PositionTable.RECORD_SIZE);
+				assertTrue(Long.compareUnsigned(previous, key) < 0, "keys ascending at " + i);
+			}
+			// the runs are deleted once merged
+			assertEquals(List.of(output), files(directory));
+		} finally {
+			delete(directory);
+		}
+	}
+
+	// Plays random moves from a few openings, so early positions recur across games and runs,
+	// and counts each position once per game in the expected counters.
+	private static ArchivedGame randomGame(Random random, Map<Long, long[]> expected) {
+		Outcome outcome = OUTCOMES[random.nextInt(OUTCOMES.length)];
+		ChessMatch match = new ChessMatch();
+		List<String> tokens = new ArrayList<>();
+		Set<Long> seen = new HashSet<>();
+		int[] moves = new int[Move.MAX_MOVES];
+		int plies = 20 + random.nextInt(60);
+		for (int ply=0; ; ply++) {
+			long key = match.getPositionKey();
+			if (seen.add(key)) {
+				long[] counters = expected.computeIfAbsent((key == 0) ? 1 : key, k -> new long[4]);
+				counters[0] ++;
+				if (outcome != Outcome.UNKNOWN) {
+					counters[1 + outcome.ordinal()] ++;
+				}
+			}
+			int count = match.generateMoves(moves);
+			if (ply == plies || count == 0) {
+				break;
+			}
+			// the first plies choose among few moves so openings repeat
+			int move = moves[random.nextInt((ply < 4) ? Math.min(2, count) : count)];
+			tokens.add(Move.toString(move));
+			match.doMove(move);
+		}
+		return new ArchivedGame(null, tokens, outcome);
+	}
+
+	private static List<Path> files(Path directory) throws IOException {
+		try (Stream<Path> list = Files.list(directory)) {
+			return list.collect(Collectors.toList());
+		}
+	}
+
+	private static void delete(Path directory) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Files.delete(path);
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package engine.analysis;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class AnalysisCacheTest {
+
+	private static final int CAPACITY = 200;
+
+	public void testKeepsDeeperAnalysis() {
+		AnalysisCache cache = new AnalysisCache(CAPACITY);
+		cache.put(analysis(42, 10));
+		cache.put(analysis(42, 5));
+		assertEquals(10, cache.get(42).getDepth());
+		cache.put(analysis(42, 12));
+		assertEquals(12, cache.get(42).getDepth());
+		assertEquals(1, cache.size());
+	}
+
+	// Positions seen once must not push out positions that keep being looked up, even when the
+	// hot ones come back too rarely for a plain LRU cache of this size to keep any of them. The
+	// sketch only estimates frequencies, so a collision may still cost the odd hot key.
+	public void testOneOffKeysDoNotEvictHotKeys() {
+		AnalysisCache cache = new AnalysisCache(CAPACITY);
+		long[] hot = keys(1, CAPACITY - 2);
+		fillHot(cache, hot);
+		scan(cache, hot);
+		assertHotKeysKept(cache, hot);
+		assertEquals(CAPACITY, cache.size());
+	}
+
+	public void testSaveAndLoad() throws IOException {
+		Path directory = Files.createTempDirectory("analysis-test");
+		Path first = directory.resolve("first.bin");
+		Path second = directory.resolve("second.bin");
+		try {
+			AnalysisCache cache = new AnalysisCache(CAPACITY);
+			long[] hot = keys(1, CAPACITY - 2);
+			fillHot(cache, hot);
+			cache.put(analysis(7, 3));
+			cache.save(first);
+
+			AnalysisCache loaded = new AnalysisCache(CAPACITY);
+			loaded.load(first);
+			assertEquals(cache.size(), loaded.size());
+			Analysis analysis = loaded.get(hot[0]);
+			assertEquals(hot[0], analysis.getKey());
+			assertEquals(9, analysis.getDepth());
+			assertEquals(Arrays.toString(new int[] {1, 2, 3}), Arrays.toString(analysis.getPv()));
+			// saving what was loaded, before any other access, writes the same entries in the
+			// same order with the same frequencies
+			loaded = new AnalysisCache(CAPACITY);
+			loaded.load(first);
+			loaded.save(second);
+			assertTrue(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)), "snapshot unchanged");
+
+			// the frequencies came back too, so the loaded hot keys still resist a scan
+			scan(loaded, hot);
+			assertHotKeysKept(loaded, hot);
+		} finally {
+			Files.deleteIfExists(first);
+			Files.deleteIfExists(second);
+			Files.delete(directory);
+		}
+	}
+
+	public void testMissingFileLoadsNothing() throws IOException {
+		AnalysisCache cache = new AnalysisCache(CAPACITY);
+		cache.load(Path.of("does-not-exist.bin"));
+		assertEquals(0, cache.size());
+	}
+
+	private static void fillHot(AnalysisCache cache, long[] hot) {
+		for (long key : hot) {
+			cache.put(analysis(key, 9));
+		}
+		for (int round=0; round<4; round++) {
+			for (long key : hot) {
+				cache.get(key);
+			}
+		}
+	}
+
+	// One-off positions, with a hot one looked up after every second of them.
+	private static void scan(AnalysisCache cache, long[] hot) {
+		long[] oneOff = keys(2, 10 * CAPACITY);
+		for (int i=0; i<oneOff.length; i++) {
+			cache.put(analysis(oneOff[i], 1));
+			if (i % 2 == 1) {
+				cache.get(hot[(i / 2) % hot.length]);
+			}
+		}
+	}
+
+	private static void assertHotKeysKept(AnalysisCache cache, long[] hot) {
+		int count = 0;
+		for (long key : hot) {
+			if (cache.get(key) != null) {
+				count ++;
+			}
+		}
+		assertTrue(count >= hot.length * 95 / 100, count + " of " + hot.length + " hot keys left");
+	}
+
+	// Random keys like Zobrist keys; different seeds give disjoint sets in practice.
+	private static long[] keys(long seed, int count) {
+		Random random = new Random(seed);
+		long[] keys = new long[count];
+		for (int i=0; i<count; i++) {
+			keys[i] = random.nextLong();
+		}
+		return keys;
+	}
+
+	private static Analysis analysis(long key, int depth) {
+		return new Analysis(key, 1, 0, depth, new int[] {1, 2, 3}, new int[] {1, 2, 3, 4});
+	}
+
+}
@@ -0,0 +1,234 @@
+package server;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertFalse;
+import static testing.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveResult;
+import chess.Variant;
+
+public class GameJournalTest {
+
+	private static final String[] MOVES = {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6"};
+	// a move record is the 8-byte frame plus type, game id and operation
+	private static final int MOVE_RECORD = 8 + 1 + 8 + 4;
+
+	public void testReplayAfterClose() throws IOException {
+		Path directory = Files.createTempDirectory("journal-test");
+		try {
+			String fen;
+			String promotedFen;
+			try (GameJournal journal = new GameJournal(directory, 2, 1000)) {
+				fen = play(journal.create(1, Variant.STANDARD), MOVES.length);
+				GameSession promotion = journal.create(2, "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", Variant.STANDARD);
+				assertEquals(MoveResult.OK, promotion.tryMove(Move.parse("c7c8r")));
+				promotedFen = promotion.getChessMatch().getFen();
+			}
+			try (GameJournal journal = new GameJournal(directory, 2, 1000)) {
+				assertEquals(fen, fen(journal, 1));
+				assertEquals(promotedFen, fen(journal, 2));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	public void testFinishedGameIsDropped() throws IOException {
+		Path directory = Files.createTempDirectory("journal-test");
+		try {
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				play(journal.create(1, Variant.STANDARD), 2);
+				GameSession finished = journal.create(2, Variant.STANDARD);
+				play(finished, 3);
+				finished.finish();
+			}
+			// the game finished before the snapshot taken on reopening stays dropped as well
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				assertEquals(1, journal.getRecoveredSessions().size());
+				assertEquals(null, fen(journal, 2));
+				journal.getRecoveredSessions().get(0).finish();
+			}
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				assertTrue(journal.getRecoveredSessions().isEmpty(), "no game left");
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	public void testTornTailIsTruncated() throws IOException {
+		Path directory = Files.createTempDirectory("journal-test");
+		try {
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				play(journal.create(1, Variant.STANDARD), MOVES.length);
+			}
+			Path segment = lastSegment(directory);
+			long size = Files.size(segment);
+			try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+				channel.truncate(size - 5);
+			}
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				assertEquals(expectedFen(MOVES.length - 1), fen(journal, 1));
+				// new records follow the valid prefix, not the torn bytes
+				play(journal.getRecoveredSessions().get(0), MOVES.length - 1, MOVES.length);
+			}
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				assertEquals(expectedFen(MOVES.length), fen(journal, 1));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	public void testCorruptRecordEndsTheLog() throws IOException {
+		Path directory = Files.createTempDirectory("journal-test");
+		try {
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				play(journal.create(1, Variant.STANDARD), MOVES.length);
+			}
+			// damage the third move: it and every record after it are dropped
+			Path segment = lastSegment(directory);
+			flipByte(segment, Files.size(segment) - (MOVES.length - 3) * MOVE_RECORD - 1);
+			try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+				assertEquals(expectedFen(2), fen(journal, 1));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	public void testSnapshotRotation() throws IOException {
+		Path directory = Files.createTempDirectory("journal-test");
+		try {
+			try (GameJournal journal = new GameJournal(directory, 1, 3)) {
+				play(journal.create(1, Variant.STANDARD), MOVES.length);
+				GameSession finished = journal.create(2, Variant.STANDARD);
+				play(finished, 2);
+				finished.finish().join();
+			}
+			Path shard = directory.resolve("shard-0");
+			List<Path> snapshots = files(shard, ".snap");
+			assertEquals(1, snapshots.size(), "snapshots kept");
+			assertFalse(snapshots.get(0).getFileName().toString().equals("snapshot-1.snap"), "snapshot rotated");
+			assertEquals(1, files(shard, ".log").size(), "segments kept");
+			try (GameJournal journal = new GameJournal(directory, 1, 3)) {
+				assertEquals(1, journal.getRecoveredSessions().size());
+				assertEquals(expectedFen(MOVES.length), fen(journal, 1));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	// A damaged newest snapshot falls back to the one before it and replays every segment
+	// since; a damaged record there also drops the segments that follow it.
+	public void testFallbackToOlderSnapshot() throws IOException {
+		for (boolean damagedSegment : new boolean[] {false, true}) {
+			Path directory = Files.createTempDirectory("journal-test");
+			Path saved = Files.createTempDirectory("journal-saved");
+			try {
+				Path shard = directory.resolve("shard-0");
+				try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+					play(journal.create(1, Variant.STANDARD), 3);
+				}
+				// snapshot-1 and journal-1 are deleted when the journal is reopened
+				for (Path file : files(shard, "")) {
+					Files.copy(file, saved.resolve(file.getFileName()));
+				}
+				try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+					play(journal.getRecoveredSessions().get(0), 3, MOVES.length);
+				}
+				for (Path file : files(saved, "")) {
+					Files.copy(file, shard.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+				}
+				flipByte(shard.resolve("snapshot-2.snap"), 12);
+				if (damagedSegment) {
+					flipByte(shard.resolve("journal-1.log"), Files.size(shard.resolve("journal-1.log")) - 1);
+				}
+				try (GameJournal journal = new GameJournal(directory, 1, 1000)) {
+					assertEquals(expectedFen(damagedSegment ? 2 : MOVES.length), fen(journal, 1));
+					if (damagedSegment) {
+						assertEquals(0L, Files.size(shard.resolve("journal-2.log")), "segment after the damage");
+					}
+				}
+			} finally {
+				delete(directory);
+				delete(saved);
+			}
+		}
+	}
+
+	private static String play(GameSession session, int count) {
+		return play(session, 0, count);
+	}
+
+	private static String play(GameSession session, int from, int to) {
+		for (int i=from; i<to; i++) {
+			assertEquals(MoveResult.OK, session.tryMove(Move.parse(MOVES[i])), MOVES[i]);
+		}
+		return session.getChessMatch().getFen();
+	}
+
+	private static String expectedFen(int count) {
+		ChessMatch match = new ChessMatch();
+		for (int i=0; i<count; i++) {
+			match.tryMove(Move.parse(MOVES[i]));
+		}
+		return match.getFen();
+	}
+
+	private static String fen(GameJournal journal, long id) {
+		for (GameSession session : journal.getRecoveredSessions()) {
+			if (session.getId() == id) {
+				return session.getChessMatch().getFen();
+			}
+		}
+		return null;
+	}
+
+	private static Path lastSegment(Path directory) throws IOException {
+		List<Path> segments = files(directory.resolve("shard-0"), ".log");
+		return segments.get(segments.size() - 1);
+	}
+
+	private static List<Path> files(Path directory, String suffix) throws IOException {
+		try (Stream<Path> list = Files.list(directory)) {
+			return list.filter(path -> path.toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static void flipByte(Path file, long position) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1);
+			channel.read(buffer, position);
+			buffer.put(0, (byte)(buffer.get(0) ^ 0x5A));
+			buffer.rewind();
+			channel.write(buffer, position);
+		}
+	}
+
+	private static void delete(Path directory) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Files.delete(path);
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package testing;
+
+import java.util.Objects;
+
+// The few assertions the tests need; a failure is an AssertionError, which TestRunner reports.
+public final class Assert {
+
+	private Assert() {
+	}
+
+	public static void assertTrue(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	public static void assertFalse(boolean condition, String message) {
+		assertTrue(!condition, message);
+	}
+
+	public static void assertEquals(Object expected, Object actual) {
+		assertEquals(expected, actual, null);
+	}
+
+	public static void assertEquals(Object expected, Object actual, String message) {
+		if (!Objects.equals(expected, actual)) {
+			throw new AssertionError(((message == null) ? "" : message + ": ") + "expected <" + expected
+					+ "> but was <" + actual + ">");
+		}
+	}
+
+}
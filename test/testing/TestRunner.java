@@ -0,0 +1,45 @@
+package testing;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Runs every public no-argument method named test* of the test classes given as arguments,
+// each on a new instance. Prints one line per test and exits with status 1 on any failure,
+// so the build can run it as a gate.
+public class TestRunner {
+
+	public static void main(String[] args) throws ReflectiveOperationException {
+		int tests = 0;
+		int failures = 0;
+		for (String className : args) {
+			Class<?> testClass = Class.forName(className);
+			Method[] methods = testClass.getMethods();
+			Arrays.sort(methods, Comparator.comparing(Method::getName));
+			for (Method method : methods) {
+				if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+						|| Modifier.isStatic(method.getModifiers())) {
+					continue;
+				}
+				tests ++;
+				String name = testClass.getSimpleName() + "." + method.getName();
+				try {
+					method.invoke(testClass.getDeclaredConstructor().newInstance());
+					System.out.println("ok    " + name);
+				} catch (InvocationTargetException e) {
+					failures ++;
+					System.out.println("FAIL  " + name + ": " + e.getCause());
+					e.getCause().printStackTrace(System.out);
+				}
+			}
+		}
+		System.out.println();
+		System.out.println(failures + " of " + tests + " tests failed");
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+}